@@ -0,0 +1,81 @@
+package com.geminiambiental.facturacion.carga;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Informe en markdown de una corrida frente a otra de referencia: por operación, throughput y percentiles
+ * con su variación, marcando las que empeoran más que UMBRAL.
+ */
+final class Comparacion {
+
+	// Variación relativa a partir de la cual una métrica se marca como regresión
+	static final double UMBRAL = 0.10;
+
+	private Comparacion() {
+	}
+
+	static String comparar(Informe base, Informe nuevo) {
+		StringBuilder texto = new StringBuilder();
+		texto.append("# Carga: ").append(nuevo.etiqueta()).append(" frente a ").append(base.etiqueta()).append("\n\n");
+		texto.append(String.format(Locale.ROOT, "| | %s | %s |%n|---|---|---|%n", base.etiqueta(), nuevo.etiqueta()));
+		texto.append(fila("escenario", base.escenario() + ", " + base.modo(), nuevo.escenario() + ", " + nuevo.modo()));
+		texto.append(fila("clientes / tasa", base.clientes() + " / " + base.tasa(), nuevo.clientes() + " / " + nuevo.tasa()));
+		texto.append(fila("CPU, Java", base.cpus() + ", " + base.java(), nuevo.cpus() + ", " + nuevo.java()));
+		texto.append(fila("fecha", base.fecha(), nuevo.fecha()));
+		if (!base.escenario().equals(nuevo.escenario()) || !base.modo().equals(nuevo.modo())) {
+			texto.append("\n> Las corridas usan escenarios o modos distintos; las cifras no son comparables.\n");
+		}
+
+		texto.append("\n| operación | métrica | ").append(base.etiqueta()).append(" | ").append(nuevo.etiqueta())
+			.append(" | variación | |\n|---|---|---:|---:|---:|---|\n");
+		Set<String> operaciones = new LinkedHashSet<>(base.operaciones().keySet());
+		operaciones.addAll(nuevo.operaciones().keySet());
+		for (String operacion : operaciones) {
+			Informe.Resumen antes = base.operaciones().get(operacion);
+			Informe.Resumen despues = nuevo.operaciones().get(operacion);
+			if (antes == null || despues == null) {
+				texto.append("| ").append(operacion).append(" | solo en ").append(antes == null ? nuevo.etiqueta() : base.etiqueta())
+					.append(" | | | | |\n");
+				continue;
+			}
+			texto.append(metrica(operacion, "pet/s", antes, despues, Informe.Resumen::porSegundo, true));
+			texto.append(metrica(operacion, "p50 ms", antes, despues, Informe.Resumen::p50Ms, false));
+			texto.append(metrica(operacion, "p90 ms", antes, despues, Informe.Resumen::p90Ms, false));
+			texto.append(metrica(operacion, "p99 ms", antes, despues, Informe.Resumen::p99Ms, false));
+			texto.append(metrica(operacion, "p99.9 ms", antes, despues, Informe.Resumen::p999Ms, false));
+			texto.append(metrica(operacion, "max ms", antes, despues, Informe.Resumen::maxMs, false));
+			texto.append(String.format(Locale.ROOT, "| %s | errores | %d | %d | | %s |%n", operacion, antes.errores(),
+				despues.errores(), despues.errores() > antes.errores() ? "⚠" : ""));
+		}
+		return texto.toString();
+	}
+
+	static Path escribir(Path base, Path nuevo, Path directorio) throws IOException {
+		Informe informeBase = Informe.leer(base);
+		Informe informeNuevo = Informe.leer(nuevo);
+		Files.createDirectories(directorio);
+		Path archivo = directorio.resolve("comparacion-" + informeBase.etiqueta() + "-" + informeNuevo.etiqueta() + ".md");
+		Files.writeString(archivo, comparar(informeBase, informeNuevo));
+		return archivo;
+	}
+
+	private static String fila(String nombre, String base, String nuevo) {
+		return "| " + nombre + " | " + base + " | " + nuevo + " |\n";
+	}
+
+	private static String metrica(String operacion, String nombre, Informe.Resumen antes, Informe.Resumen despues,
+								  ToDoubleFunction<Informe.Resumen> valor, boolean masEsMejor) {
+		double a = valor.applyAsDouble(antes);
+		double d = valor.applyAsDouble(despues);
+		double variacion = a == 0 ? 0 : (d - a) / a;
+		boolean regresion = masEsMejor ? variacion < -UMBRAL : variacion > UMBRAL;
+		return String.format(Locale.ROOT, "| %s | %s | %.2f | %.2f | %+.1f%% | %s |%n", operacion, nombre, a, d,
+			variacion * 100, regresion ? "⚠" : "");
+	}
+}
@@ -0,0 +1,57 @@
+package com.geminiambiental.facturacion.carga;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parámetros de una corrida, leídos de las propiedades del sistema carga.* que pasa el perfil carga del pom.
+ */
+record ConfiguracionCarga(
+	String etiqueta,
+	Escenario escenario,
+	Modo modo,
+	int clientes,
+	double tasa,
+	int maxEnVuelo,
+	Duration duracion,
+	Duration calentamiento,
+	int servicios,
+	long semilla,
+	String[] perfiles,
+	Path salida,
+	List<Path> comparar) {
+
+	enum Modo {
+		// Lazo cerrado: cada cliente espera su respuesta antes de enviar la siguiente
+		CERRADO,
+		// Lazo abierto: las peticiones llegan a una tasa fija, respondan o no a tiempo
+		ABIERTO
+	}
+
+	static ConfiguracionCarga desdePropiedades() {
+		String comparar = System.getProperty("carga.comparar", "").trim();
+		return new ConfiguracionCarga(
+			System.getProperty("carga.etiqueta", "actual"),
+			Escenario.valueOf(System.getProperty("carga.escenario", "mixto").toUpperCase(Locale.ROOT)),
+			Modo.valueOf(System.getProperty("carga.modo", "cerrado").toUpperCase(Locale.ROOT)),
+			Integer.getInteger("carga.clientes", 16),
+			Double.parseDouble(System.getProperty("carga.tasa", "200")),
+			Integer.getInteger("carga.max-en-vuelo", 1000),
+			Duration.ofSeconds(Long.getLong("carga.segundos", 60)),
+			Duration.ofSeconds(Long.getLong("carga.calentamiento", 15)),
+			Integer.getInteger("carga.servicios", 50_000),
+			Long.getLong("carga.semilla", 20250101L),
+			System.getProperty("carga.perfiles", "datos").split(","),
+			Path.of(System.getProperty("carga.salida", "target/carga")),
+			comparar.isEmpty() ? List.of() : Arrays.stream(comparar.split(",")).map(String::trim).map(Path::of).toList());
+	}
+
+	String descripcion() {
+		return modo == Modo.CERRADO
+			? String.format(Locale.ROOT, "%s, lazo cerrado con %d clientes", escenario, clientes)
+			: String.format(Locale.ROOT, "%s, lazo abierto a %.0f peticiones/s", escenario, tasa);
+	}
+}
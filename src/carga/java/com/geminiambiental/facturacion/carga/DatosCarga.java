@@ -0,0 +1,96 @@
+package com.geminiambiental.facturacion.carga;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Identificadores sobre los que trabajan los escenarios. Cada servicio por facturar y cada factura pendiente
+ * se entrega una sola vez, así que una emisión o una transición nunca compite con otra de la misma corrida;
+ * las facturas emitidas durante la carga pasan a ser candidatas a pagar o anular.
+ */
+final class DatosCarga {
+
+	static final int TAMANO_PAGINA = 20;
+
+	private final Queue<String> serviciosPorFacturar;
+	private final Queue<String> facturasPendientes;
+	private final List<String> clientes;
+	private final int paginas;
+	// Posición del recorrido por cursor que comparten todos los clientes; null vuelve al principio
+	private final AtomicReference<String> cursor = new AtomicReference<>();
+
+	private DatosCarga(List<String> serviciosPorFacturar, List<String> facturasPendientes, List<String> clientes, int paginas) {
+		this.serviciosPorFacturar = new ConcurrentLinkedQueue<>(serviciosPorFacturar);
+		this.facturasPendientes = new ConcurrentLinkedQueue<>(facturasPendientes);
+		this.clientes = List.copyOf(clientes);
+		this.paginas = paginas;
+	}
+
+	static DatosCarga leer(JdbcTemplate jdbc, long semilla) {
+		Random azar = new Random(semilla);
+		List<String> servicios = jdbc.queryForList("SELECT ID_servicio FROM Servicio s WHERE estado = 'COMPLETADO' "
+			+ "AND ID_factura IS NULL AND NOT EXISTS (SELECT 1 FROM detalle_factura d WHERE d.ID_servicio = s.ID_servicio) "
+			+ "ORDER BY ID_servicio", String.class);
+		List<String> facturas = jdbc.queryForList(
+			"SELECT ID_factura FROM Factura WHERE estado = 'Pendiente' ORDER BY ID_factura", String.class);
+		List<String> clientes = jdbc.queryForList("SELECT DISTINCT DNI_cliente FROM Factura ORDER BY DNI_cliente", String.class);
+		long total = jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class);
+		return new DatosCarga(mezclar(servicios, azar), mezclar(facturas, azar), clientes,
+			(int) Math.max(1, total / TAMANO_PAGINA));
+	}
+
+	private static List<String> mezclar(List<String> ids, Random azar) {
+		List<String> mezclados = new ArrayList<>(ids);
+		Collections.shuffle(mezclados, azar);
+		return mezclados;
+	}
+
+	// Entre 1 y cantidad servicios, o una lista vacía si ya no quedan
+	List<String> tomarServicios(int cantidad) {
+		List<String> ids = new ArrayList<>(cantidad);
+		for (String id; ids.size() < cantidad && (id = serviciosPorFacturar.poll()) != null; ) {
+			ids.add(id);
+		}
+		return ids;
+	}
+
+	String tomarFacturaPendiente() {
+		return facturasPendientes.poll();
+	}
+
+	void agregarFacturaPendiente(String idFactura) {
+		facturasPendientes.add(idFactura);
+	}
+
+	String cliente(SplittableRandom azar) {
+		return clientes.isEmpty() ? null : clientes.get(azar.nextInt(clientes.size()));
+	}
+
+	int pagina(SplittableRandom azar) {
+		return azar.nextInt(paginas);
+	}
+
+	String cursor() {
+		return cursor.get();
+	}
+
+	void avanzarCursor(String siguiente) {
+		cursor.set(siguiente);
+	}
+
+	int serviciosPorFacturar() {
+		return serviciosPorFacturar.size();
+	}
+
+	int facturasPendientes() {
+		return facturasPendientes.size();
+	}
+}
@@ -0,0 +1,88 @@
+package com.geminiambiental.facturacion.carga;
+
+import com.geminiambiental.facturacion.FacturacionApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Punto de entrada del perfil carga. Levanta la aplicación en un puerto aleatorio sobre H2 en memoria,
+ * la llena con el generador de datos sintéticos (perfil datos), calienta y mide el escenario pedido, y
+ * deja el informe en carga.salida. Con carga.comparar=base.json,nuevo.json solo compara dos corridas.
+ * <p>
+ * El generador corre en la misma JVM que la aplicación: las cifras sirven para comparar versiones en la
+ * misma máquina, no como capacidad absoluta del servicio.
+ */
+public final class EjecutorCarga {
+
+	private EjecutorCarga() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		ConfiguracionCarga configuracion = ConfiguracionCarga.desdePropiedades();
+		if (!configuracion.comparar().isEmpty()) {
+			if (configuracion.comparar().size() != 2) {
+				throw new IllegalArgumentException("carga.comparar espera dos informes separados por coma: base.json,nuevo.json");
+			}
+			Path informe = Comparacion.escribir(configuracion.comparar().get(0), configuracion.comparar().get(1),
+				configuracion.salida());
+			System.out.println(Files.readString(informe));
+			System.out.println("Comparación escrita en " + informe);
+			return;
+		}
+
+		try (ConfigurableApplicationContext app = new SpringApplicationBuilder(FacturacionApplication.class)
+				.profiles(configuracion.perfiles())
+				.run(argumentos(configuracion))) {
+			DatosCarga datos = DatosCarga.leer(app.getBean(JdbcTemplate.class), configuracion.semilla());
+			int puerto = ((WebServerApplicationContext) app).getWebServer().getPort();
+			String base = "http://localhost:" + puerto + app.getEnvironment().getProperty("server.servlet.context-path")
+				+ "/api/facturacion";
+			System.out.printf("Carga %s sobre %s: %d servicios por facturar, %d facturas pendientes%n",
+				configuracion.descripcion(), base, datos.serviciosPorFacturar(), datos.facturasPendientes());
+
+			GeneradorCarga generador = new GeneradorCarga(configuracion, new Peticiones(base, datos));
+			if (!configuracion.calentamiento().isZero()) {
+				System.out.println("Calentamiento de " + configuracion.calentamiento().toSeconds() + " s");
+				generador.ejecutar(configuracion.calentamiento());
+			}
+			System.out.println("Medición de " + configuracion.duracion().toSeconds() + " s");
+			Registro registro = generador.ejecutar(configuracion.duracion());
+
+			Informe informe = Informe.de(configuracion, registro);
+			Path archivo = informe.escribir(configuracion.salida(), registro);
+			System.out.print(informe.resumen());
+			System.out.println("Informe escrito en " + archivo);
+		}
+	}
+
+	private static String[] argumentos(ConfiguracionCarga configuracion) {
+		return new String[]{
+			"--server.port=0",
+			"--spring.main.banner-mode=off",
+			"--spring.datasource.url=jdbc:h2:mem:carga;MODE=MySQL;DB_CLOSE_DELAY=-1",
+			"--spring.datasource.username=sa",
+			"--spring.datasource.password=",
+			"--spring.datasource.driver-class-name=org.h2.Driver",
+			"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+			"--spring.jpa.hibernate.ddl-auto=create-drop",
+			// El log de la aplicación va a archivo para no mezclarse con el informe ni costar escritura en consola
+			"--logging.file.name=" + configuracion.salida().resolve("facturacion-carga.log"),
+			"--logging.threshold.console=OFF",
+			"--facturacion.datos.semilla=" + configuracion.semilla(),
+			"--facturacion.datos.servicios=" + configuracion.servicios(),
+			"--facturacion.datos.clientes=" + Math.max(100, configuracion.servicios() / 20),
+			"--facturacion.datos.productos=200",
+			// Seis meses de facturas: el último mes queda pendiente y alimenta los pagos y anulaciones
+			"--facturacion.datos.desde=2025-07-01",
+			"--facturacion.datos.hasta=2025-12-31",
+			// La mitad de los servicios completados queda por facturar para la ráfaga de emisiones
+			"--facturacion.datos.proporcion-facturada=0.5",
+			"--facturacion.datos.reemplazar=true"
+		};
+	}
+}
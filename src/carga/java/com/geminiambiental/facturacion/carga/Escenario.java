@@ -0,0 +1,49 @@
+package com.geminiambiental.facturacion.carga;
+
+import java.util.SplittableRandom;
+
+/**
+ * Mezcla de operaciones de cada escenario. Devuelve null cuando la operación elegida ya no tiene datos
+ * (servicios por facturar o facturas pendientes agotados).
+ */
+enum Escenario {
+
+	// Ráfaga de emisiones de 1 a 3 servicios
+	EMISION {
+		@Override
+		Peticiones.Peticion siguiente(Peticiones peticiones, SplittableRandom azar) {
+			return peticiones.emitir(1 + azar.nextInt(3));
+		}
+	},
+	// Dashboard consultando las estadísticas; una de cada cinco filtra por cliente y va a la base
+	ESTADISTICAS {
+		@Override
+		Peticiones.Peticion siguiente(Peticiones peticiones, SplittableRandom azar) {
+			return azar.nextInt(5) == 0 ? peticiones.estadisticasCliente(azar) : peticiones.estadisticas();
+		}
+	},
+	// Páginas por offset en cualquier punto del listado y recorrido completo por cursor
+	PAGINACION {
+		@Override
+		Peticiones.Peticion siguiente(Peticiones peticiones, SplittableRandom azar) {
+			return azar.nextBoolean() ? peticiones.paginaProfunda(azar) : peticiones.paginaCursor();
+		}
+	},
+	// Pendiente -> Pagada y Pendiente -> Anulada
+	TRANSICIONES {
+		@Override
+		Peticiones.Peticion siguiente(Peticiones peticiones, SplittableRandom azar) {
+			return azar.nextInt(10) < 7 ? peticiones.marcarPagada() : peticiones.anular();
+		}
+	},
+	MIXTO {
+		@Override
+		Peticiones.Peticion siguiente(Peticiones peticiones, SplittableRandom azar) {
+			int tirada = azar.nextInt(10);
+			Escenario elegido = tirada < 2 ? EMISION : tirada < 5 ? ESTADISTICAS : tirada < 8 ? PAGINACION : TRANSICIONES;
+			return elegido.siguiente(peticiones, azar);
+		}
+	};
+
+	abstract Peticiones.Peticion siguiente(Peticiones peticiones, SplittableRandom azar);
+}
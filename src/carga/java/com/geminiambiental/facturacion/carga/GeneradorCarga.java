@@ -0,0 +1,130 @@
+package com.geminiambiental.facturacion.carga;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Envía las peticiones de un escenario durante una fase y deja las latencias en un Registro.
+ * <p>
+ * En lazo cerrado la latencia se mide desde el envío, así que un servidor lento frena a los clientes y las
+ * colas no aparecen en los percentiles (omisión coordinada). En lazo abierto cada llegada tiene su hora
+ * programada y la latencia se mide desde ella, incluida la espera si el generador o el servidor van atrasados.
+ */
+final class GeneradorCarga {
+
+	// Pausa cuando la operación elegida no tiene datos, para no girar en vacío sobre la misma CPU que el servidor
+	private static final long PAUSA_SIN_DATOS_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final ConfiguracionCarga configuracion;
+	private final Peticiones peticiones;
+	private final HttpClient http = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.connectTimeout(Duration.ofSeconds(5))
+		.build();
+	private final SplittableRandom azar;
+
+	GeneradorCarga(ConfiguracionCarga configuracion, Peticiones peticiones) {
+		this.configuracion = configuracion;
+		this.peticiones = peticiones;
+		this.azar = new SplittableRandom(configuracion.semilla());
+	}
+
+	Registro ejecutar(Duration duracion) throws Exception {
+		return configuracion.modo() == ConfiguracionCarga.Modo.CERRADO ? cerrado(duracion) : abierto(duracion);
+	}
+
+	private Registro cerrado(Duration duracion) throws Exception {
+		Registro registro = new Registro();
+		long fin = System.nanoTime() + duracion.toNanos();
+		ExecutorService hilos = Executors.newFixedThreadPool(configuracion.clientes());
+		List<Future<?>> tareas = new ArrayList<>();
+		for (int c = 0; c < configuracion.clientes(); c++) {
+			SplittableRandom propio = azar.split();
+			tareas.add(hilos.submit(() -> {
+				while (System.nanoTime() < fin) {
+					Peticiones.Peticion peticion = configuracion.escenario().siguiente(peticiones, propio);
+					if (peticion == null) {
+						registro.omitir();
+						LockSupport.parkNanos(PAUSA_SIN_DATOS_NANOS);
+						continue;
+					}
+					long inicio = System.nanoTime();
+					try {
+						completar(registro, peticion, http.send(peticion.solicitud(), HttpResponse.BodyHandlers.ofString()), inicio);
+					} catch (IOException e) {
+						registro.fallar(peticion.operacion(), System.nanoTime() - inicio);
+					}
+				}
+				return null;
+			}));
+		}
+		try {
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+		} finally {
+			hilos.shutdownNow();
+		}
+		registro.terminar();
+		return registro;
+	}
+
+	private Registro abierto(Duration duracion) throws InterruptedException {
+		Registro registro = new Registro();
+		long intervalo = (long) (1_000_000_000L / configuracion.tasa());
+		Semaphore enVuelo = new Semaphore(configuracion.maxEnVuelo());
+		long inicio = System.nanoTime();
+		long fin = inicio + duracion.toNanos();
+		for (long llegada = inicio; llegada < fin; llegada += intervalo) {
+			long espera = llegada - System.nanoTime();
+			if (espera > 0) {
+				LockSupport.parkNanos(espera);
+			}
+			Peticiones.Peticion peticion = configuracion.escenario().siguiente(peticiones, azar);
+			if (peticion == null) {
+				registro.omitir();
+				continue;
+			}
+			if (!enVuelo.tryAcquire()) {
+				registro.descartar(peticion.operacion());
+				continue;
+			}
+			long programada = llegada;
+			http.sendAsync(peticion.solicitud(), HttpResponse.BodyHandlers.ofString()).whenComplete((respuesta, error) -> {
+				try {
+					if (error != null) {
+						registro.fallar(peticion.operacion(), System.nanoTime() - programada);
+					} else {
+						completar(registro, peticion, respuesta, programada);
+					}
+				} finally {
+					enVuelo.release();
+				}
+			});
+		}
+		// Las respuestas que siguen en vuelo se esperan hasta el tiempo máximo de una petición
+		if (!enVuelo.tryAcquire(configuracion.maxEnVuelo(), 35, TimeUnit.SECONDS)) {
+			throw new IllegalStateException("Peticiones sin completar al final de la fase");
+		}
+		registro.terminar();
+		return registro;
+	}
+
+	private static void completar(Registro registro, Peticiones.Peticion peticion, HttpResponse<String> respuesta, long inicio) {
+		registro.registrar(peticion.operacion(), System.nanoTime() - inicio, respuesta.statusCode());
+		if (peticion.alResponder() != null && respuesta.statusCode() / 100 == 2) {
+			peticion.alResponder().accept(respuesta.body());
+		}
+	}
+}
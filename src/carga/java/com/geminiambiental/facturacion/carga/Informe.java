@@ -0,0 +1,114 @@
+package com.geminiambiental.facturacion.carga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resultado de una corrida con su etiqueta (la versión o rama medida). Se guarda como JSON para comparar
+ * dos corridas y los histogramas completos en formato de log HDR (.hlog), que leen HistogramLogProcessor y
+ * los graficadores de HdrHistogram.
+ */
+record Informe(
+	String etiqueta,
+	String fecha,
+	String escenario,
+	String modo,
+	int clientes,
+	double tasa,
+	double segundos,
+	int cpus,
+	String java,
+	long omitidas,
+	Map<String, Resumen> operaciones) {
+
+	static final String TOTAL = "total";
+
+	private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+	record Resumen(long peticiones, long errores, long descartadas, double porSegundo, double mediaMs, double p50Ms,
+				   double p90Ms, double p99Ms, double p999Ms, double maxMs, Map<Integer, Long> porEstado) {
+
+		static Resumen de(Histogram histograma, long errores, long descartadas, Map<Integer, Long> porEstado, double segundos) {
+			return new Resumen(histograma.getTotalCount(), errores, descartadas, histograma.getTotalCount() / segundos,
+				histograma.getMean() / 1000, ms(histograma, 50), ms(histograma, 90), ms(histograma, 99), ms(histograma, 99.9),
+				histograma.getMaxValue() / 1000.0, porEstado);
+		}
+
+		private static double ms(Histogram histograma, double percentil) {
+			return histograma.getValueAtPercentile(percentil) / 1000.0;
+		}
+	}
+
+	static Informe de(ConfiguracionCarga configuracion, Registro registro) {
+		double segundos = registro.segundos();
+		Map<String, Resumen> operaciones = new LinkedHashMap<>();
+		Histogram total = new Histogram(3);
+		long errores = 0;
+		long descartadas = 0;
+		Map<Integer, Long> porEstado = new LinkedHashMap<>();
+		for (Map.Entry<String, Registro.Medicion> entrada : registro.mediciones().entrySet()) {
+			Registro.Medicion medicion = entrada.getValue();
+			Map<Integer, Long> estados = new LinkedHashMap<>();
+			medicion.porEstado.forEach((estado, cuenta) -> {
+				estados.put(estado, cuenta.sum());
+				porEstado.merge(estado, cuenta.sum(), Long::sum);
+			});
+			operaciones.put(entrada.getKey(), Resumen.de(medicion.histograma, medicion.errores.sum(),
+				medicion.descartadas.sum(), estados, segundos));
+			total.add(medicion.histograma);
+			errores += medicion.errores.sum();
+			descartadas += medicion.descartadas.sum();
+		}
+		operaciones.put(TOTAL, Resumen.de(total, errores, descartadas, porEstado, segundos));
+		return new Informe(configuracion.etiqueta(), LocalDateTime.now().withNano(0).toString(),
+			configuracion.escenario().name().toLowerCase(Locale.ROOT), configuracion.modo().name().toLowerCase(Locale.ROOT),
+			configuracion.clientes(), configuracion.tasa(), segundos, Runtime.getRuntime().availableProcessors(),
+			Runtime.version().toString(), registro.omitidas(), operaciones);
+	}
+
+	static Informe leer(Path archivo) throws IOException {
+		return MAPPER.readValue(archivo.toFile(), Informe.class);
+	}
+
+	// Escribe <etiqueta>.json y <etiqueta>.hlog en el directorio de salida y devuelve la ruta del JSON
+	Path escribir(Path directorio, Registro registro) throws IOException {
+		Files.createDirectories(directorio);
+		Path json = directorio.resolve(etiqueta + ".json");
+		MAPPER.writeValue(json.toFile(), this);
+		try (PrintStream salida = new PrintStream(Files.newOutputStream(directorio.resolve(etiqueta + ".hlog")))) {
+			HistogramLogWriter log = new HistogramLogWriter(salida);
+			log.outputComment("Latencias en microsegundos de la corrida " + etiqueta + " (" + escenario + ", " + modo + ")");
+			log.outputLogFormatVersion();
+			log.outputLegend();
+			registro.mediciones().forEach((operacion, medicion) -> {
+				Histogram copia = medicion.histograma.copy();
+				copia.setTag(operacion);
+				log.outputIntervalHistogram(0, segundos, copia, 1000.0);
+			});
+		}
+		return json;
+	}
+
+	String resumen() {
+		StringBuilder texto = new StringBuilder(String.format(Locale.ROOT, "%-22s %10s %9s %8s %9s %9s %9s %9s %9s%n",
+			"operación", "peticiones", "errores", "desc.", "pet/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+		operaciones.forEach((operacion, r) -> texto.append(String.format(Locale.ROOT,
+			"%-22s %10d %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n", operacion, r.peticiones(), r.errores(), r.descartadas(),
+			r.porSegundo(), r.p50Ms(), r.p99Ms(), r.p999Ms(), r.maxMs())));
+		if (omitidas > 0) {
+			texto.append(omitidas).append(" peticiones omitidas por falta de servicios o facturas pendientes").append('\n');
+		}
+		return texto.toString();
+	}
+}
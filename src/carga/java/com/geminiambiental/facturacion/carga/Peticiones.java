@@ -0,0 +1,114 @@
+package com.geminiambiental.facturacion.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Construye las peticiones de cada operación contra /api/facturacion. Las respuestas de emisión y de
+ * cursor alimentan los datos de la corrida (factura nueva por pagar, cursor siguiente).
+ */
+final class Peticiones {
+
+	private static final Duration TIEMPO_MAXIMO = Duration.ofSeconds(30);
+
+	private final String base;
+	private final DatosCarga datos;
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	Peticiones(String base, DatosCarga datos) {
+		this.base = base;
+		this.datos = datos;
+	}
+
+	/**
+	 * Operación con la que se agrupa la latencia, la petición y lo que se hace con el cuerpo de una respuesta 2xx.
+	 */
+	record Peticion(String operacion, HttpRequest solicitud, Consumer<String> alResponder) {
+	}
+
+	Peticion emitir(int servicios) {
+		List<String> ids = datos.tomarServicios(servicios);
+		if (ids.isEmpty()) {
+			return null;
+		}
+		String cuerpo = "{\"idsServicios\":[\"" + String.join("\",\"", ids) + "\"]}";
+		return new Peticion("emision", post("/emitir", cuerpo),
+			respuesta -> datos.agregarFacturaPendiente(leer(respuesta).path("id_factura").asText()));
+	}
+
+	Peticion estadisticas() {
+		return new Peticion("estadisticas", get("/estadisticas"), null);
+	}
+
+	Peticion estadisticasCliente(SplittableRandom azar) {
+		String cliente = datos.cliente(azar);
+		return cliente == null ? estadisticas()
+			: new Peticion("estadisticas-cliente", get("/estadisticas?cliente=" + codificar(cliente)), null);
+	}
+
+	Peticion paginaProfunda(SplittableRandom azar) {
+		return new Peticion("pagina-offset", get("?size=" + DatosCarga.TAMANO_PAGINA + "&sortBy=fechaEmision&page="
+			+ datos.pagina(azar)), null);
+	}
+
+	Peticion paginaCursor() {
+		String cursor = datos.cursor();
+		String consulta = "/cursor?size=" + DatosCarga.TAMANO_PAGINA + "&sortBy=fechaEmision"
+			+ (cursor != null ? "&cursor=" + codificar(cursor) : "");
+		return new Peticion("pagina-cursor", get(consulta), respuesta -> {
+			JsonNode siguiente = leer(respuesta).path("siguiente_cursor");
+			datos.avanzarCursor(siguiente.isTextual() ? siguiente.asText() : null);
+		});
+	}
+
+	Peticion marcarPagada() {
+		String factura = datos.tomarFacturaPendiente();
+		return factura == null ? null
+			: new Peticion("marcar-pagada", put("/" + factura + "/marcar-pagada", ""), null);
+	}
+
+	Peticion anular() {
+		String factura = datos.tomarFacturaPendiente();
+		return factura == null ? null
+			: new Peticion("anular", put("/" + factura + "/anular", "{\"motivo\":\"Prueba de carga\"}"), null);
+	}
+
+	private HttpRequest get(String ruta) {
+		return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(TIEMPO_MAXIMO).GET().build();
+	}
+
+	private HttpRequest post(String ruta, String cuerpo) {
+		return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(TIEMPO_MAXIMO)
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+			.build();
+	}
+
+	private HttpRequest put(String ruta, String cuerpo) {
+		return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(TIEMPO_MAXIMO)
+			.header("Content-Type", "application/json")
+			.PUT(HttpRequest.BodyPublishers.ofString(cuerpo))
+			.build();
+	}
+
+	private JsonNode leer(String cuerpo) {
+		try {
+			return mapper.readTree(cuerpo);
+		} catch (Exception e) {
+			throw new IllegalStateException("Respuesta no es JSON: " + cuerpo, e);
+		}
+	}
+
+	private static String codificar(String valor) {
+		return URLEncoder.encode(valor, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,74 @@
+package com.geminiambiental.facturacion.carga;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias por operación en histogramas HDR (microsegundos, 3 dígitos significativos) y cuentas de
+ * errores. Lo comparten todos los hilos que envían o completan peticiones.
+ */
+final class Registro {
+
+	private final Map<String, Medicion> mediciones = new ConcurrentSkipListMap<>();
+	// Peticiones que no se enviaron porque su operación ya no tenía datos
+	private final LongAdder omitidas = new LongAdder();
+	private final long inicio = System.nanoTime();
+	private volatile long fin;
+
+	static final class Medicion {
+
+		final Histogram histograma = new ConcurrentHistogram(3);
+		final LongAdder errores = new LongAdder();
+		// Solo en lazo abierto: llegadas que no se enviaron por superar el máximo de peticiones en vuelo
+		final LongAdder descartadas = new LongAdder();
+		final Map<Integer, LongAdder> porEstado = new ConcurrentHashMap<>();
+	}
+
+	void registrar(String operacion, long nanos, int estado) {
+		Medicion medicion = medicion(operacion);
+		medicion.histograma.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+		medicion.porEstado.computeIfAbsent(estado, e -> new LongAdder()).increment();
+		if (estado < 200 || estado >= 300) {
+			medicion.errores.increment();
+		}
+	}
+
+	// Sin respuesta (tiempo agotado o conexión rechazada): cuenta como error con estado 0
+	void fallar(String operacion, long nanos) {
+		registrar(operacion, nanos, 0);
+	}
+
+	void descartar(String operacion) {
+		medicion(operacion).descartadas.increment();
+	}
+
+	void omitir() {
+		omitidas.increment();
+	}
+
+	void terminar() {
+		fin = System.nanoTime();
+	}
+
+	Map<String, Medicion> mediciones() {
+		return mediciones;
+	}
+
+	long omitidas() {
+		return omitidas.sum();
+	}
+
+	double segundos() {
+		return ((fin != 0 ? fin : System.nanoTime()) - inicio) / 1_000_000_000.0;
+	}
+
+	private Medicion medicion(String operacion) {
+		return mediciones.computeIfAbsent(operacion, o -> new Medicion());
+	}
+}
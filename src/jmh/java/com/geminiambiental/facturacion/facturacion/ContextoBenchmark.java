@@ -0,0 +1,39 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.FacturacionApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Contexto de Spring compartido por los benchmarks de un mismo fork: perfil test (H2 en memoria) pero con
+ * la caché de segundo nivel activa, como en producción.
+ */
+@State(Scope.Benchmark)
+public class ContextoBenchmark {
+
+	private ConfigurableApplicationContext contexto;
+
+	@Setup(Level.Trial)
+	public void iniciar() {
+		contexto = new SpringApplicationBuilder(FacturacionApplication.class)
+			.profiles("test")
+			.web(WebApplicationType.NONE)
+			// Como argumento y no con properties(): los valores por defecto no pisan application-test
+			.run("--spring.jpa.properties.hibernate.cache.use_second_level_cache=true");
+	}
+
+	@TearDown(Level.Trial)
+	public void cerrar() {
+		contexto.close();
+	}
+
+	public <T> T bean(Class<T> tipo) {
+		return contexto.getBean(tipo);
+	}
+}
@@ -0,0 +1,31 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada del perfil jmh. Recibe el archivo de resultados y una expresión regular opcional para
+ * elegir benchmarks; los resultados quedan en JSON para compararlos entre versiones, con las asignaciones por
+ * operación del perfilador de GC.
+ */
+public final class EjecutorBenchmarks {
+
+	private EjecutorBenchmarks() {
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		String resultado = args.length > 0 ? args[0] : "target/jmh-result.json";
+		String filtro = args.length > 1 ? args[1] : ".*";
+		Options opciones = new OptionsBuilder()
+			.include(filtro)
+			.addProfiler(GCProfiler.class)
+			.resultFormat(ResultFormatType.JSON)
+			.result(resultado)
+			.build();
+		new Runner(opciones).run();
+	}
+}
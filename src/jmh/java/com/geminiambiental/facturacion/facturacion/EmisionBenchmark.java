@@ -0,0 +1,67 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emisión completa contra H2: numeración, carga de servicios, cálculo, INSERT y commit. Cada iteración
+ * emite un lote fijo de facturas sobre servicios recién creados, así ningún servicio se factura dos veces;
+ * el resultado es el tiempo de todo el lote.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, batchSize = EmisionBenchmark.FACTURAS_POR_ITERACION)
+@Measurement(iterations = 5, batchSize = EmisionBenchmark.FACTURAS_POR_ITERACION)
+public class EmisionBenchmark {
+
+	static final int FACTURAS_POR_ITERACION = 200;
+
+	@Param({"1", "5"})
+	private int serviciosPorFactura;
+
+	private FacturacionService facturacionService;
+	private JdbcTemplate jdbc;
+	private List<String> servicios;
+	private int iteracion;
+	private int siguiente;
+
+	@Setup(Level.Trial)
+	public void preparar(ContextoBenchmark contexto) {
+		facturacionService = contexto.bean(FacturacionService.class);
+		jdbc = contexto.bean(JdbcTemplate.class);
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+	}
+
+	@Setup(Level.Iteration)
+	public void crearServicios() {
+		servicios = DatosPrueba.crearServicios(jdbc, "SERV-B" + iteracion++, FACTURAS_POR_ITERACION * serviciosPorFactura,
+			"COMPLETADO");
+		siguiente = 0;
+	}
+
+	@Benchmark
+	public FacturaDTO emitirFactura() {
+		List<String> ids = servicios.subList(siguiente, siguiente + serviciosPorFactura);
+		siguiente += serviciosPorFactura;
+		return facturacionService.emitirFactura(ids, null);
+	}
+}
@@ -0,0 +1,91 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import com.geminiambiental.facturacion.config.AppenderAsincrono;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de emisión según los logs: apagados, escritos desde las colas de logback-spring.xml o escritos
+ * por el hilo que emite, como antes de AppenderAsincrono. Cada emisión deja su INFO en la consola y en el
+ * archivo; SampleTime reporta los percentiles. Cada valor de logs corre en su propio fork, así que los
+ * cambios a la raíz de logback no se deshacen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LogsBenchmark {
+
+	// Más de las que H2 alcanza a emitir en una iteración de un segundo
+	static final int SERVICIOS_POR_ITERACION = 5_000;
+
+	private static final List<String> ASINCRONOS = List.of("CONSOLA_ASINCRONA", "ARCHIVO_ASINCRONO");
+
+	@Param({"apagados", "asincronos", "sincronos"})
+	private String logs;
+
+	private FacturacionService facturacionService;
+	private JdbcTemplate jdbc;
+	private List<String> servicios;
+	private int iteracion;
+	private int siguiente;
+
+	@Setup(Level.Trial)
+	public void preparar(ContextoBenchmark contexto) {
+		facturacionService = contexto.bean(FacturacionService.class);
+		jdbc = contexto.bean(JdbcTemplate.class);
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+
+		Logger raiz = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		switch (logs) {
+			case "apagados" -> contexto.bean(LoggingSystem.class).setLogLevel("com.geminiambiental.facturacion", LogLevel.OFF);
+			case "sincronos" -> {
+				for (String nombre : ASINCRONOS) {
+					AppenderAsincrono asincrono = (AppenderAsincrono) raiz.getAppender(nombre);
+					List<Appender<ILoggingEvent>> destinos = new ArrayList<>();
+					asincrono.iteratorForAppenders().forEachRemaining(destinos::add);
+					raiz.detachAppender(asincrono);
+					destinos.forEach(raiz::addAppender);
+				}
+			}
+			default -> { }
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void crearServicios() {
+		servicios = DatosPrueba.crearServicios(jdbc, "SERV-L" + iteracion++, SERVICIOS_POR_ITERACION, "COMPLETADO");
+		siguiente = 0;
+	}
+
+	@Benchmark
+	public FacturaDTO emitirFactura() {
+		return facturacionService.emitirFactura(List.of(servicios.get(siguiente++)), null);
+	}
+}
@@ -0,0 +1,86 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geminiambiental.facturacion.dto.DetalleFacturaDTO;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.entity.Factura;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización de las respuestas del listado con el ObjectMapper de la aplicación (SNAKE_CASE, fechas
+ * como texto).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializacionBenchmark {
+
+	@Param({"20", "100"})
+	private int tamanoPagina;
+
+	private ObjectMapper objectMapper;
+	private FacturaDTO factura;
+	private Page<FacturaDTO> pagina;
+
+	@Setup
+	public void preparar(ContextoBenchmark contexto) {
+		objectMapper = contexto.bean(ObjectMapper.class);
+		List<FacturaDTO> facturas = new ArrayList<>(tamanoPagina);
+		for (int i = 0; i < tamanoPagina; i++) {
+			facturas.add(factura(i));
+		}
+		factura = facturas.get(0);
+		pagina = new PageImpl<>(facturas, PageRequest.of(0, tamanoPagina), 10_000);
+	}
+
+	@Benchmark
+	public byte[] serializarFactura() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(factura);
+	}
+
+	@Benchmark
+	public byte[] serializarPagina() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(pagina);
+	}
+
+	private static FacturaDTO factura(int numero) {
+		LocalDate emision = LocalDate.of(2025, 1, 1).plusDays(numero % 365);
+		FacturaDTO dto = new FacturaDTO(String.format("FAC-2025-%06d", numero), "12345678", emision,
+			emision.plusDays(30), null, new BigDecimal("230000.00"), Factura.EstadoFactura.Pendiente,
+			"Factura de prueba");
+		List<DetalleFacturaDTO> detalles = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			DetalleFacturaDTO detalle = new DetalleFacturaDTO();
+			detalle.setIdServicio(String.format("SERV-%06d", numero * 2 + i));
+			detalle.setPrecioUnitario(new BigDecimal("115000.00"));
+			detalle.setCantidad(1);
+			detalle.setSubtotal(new BigDecimal("115000.00"));
+			detalles.add(detalle);
+		}
+		dto.setDetalles(detalles);
+		return dto;
+	}
+}
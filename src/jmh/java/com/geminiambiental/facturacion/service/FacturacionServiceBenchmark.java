@@ -0,0 +1,134 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.dto.DetalleFacturaDTO;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.dto.FilaServicioParaFacturarDTO;
+import com.geminiambiental.facturacion.dto.ServicioParaFacturarDTO;
+import com.geminiambiental.facturacion.entity.DetalleFactura;
+import com.geminiambiental.facturacion.entity.DetalleFacturaId;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.entity.Servicio;
+import com.geminiambiental.facturacion.entity.ServicioProducto;
+import com.geminiambiental.facturacion.entity.ServicioProductoId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculos y conversiones en memoria de FacturacionService (CalculosFacturacion), sin base de datos ni
+ * contexto de Spring. El parámetro es la cantidad de elementos de cada caso: productos por servicio,
+ * detalles por factura, filas por servicio e IDs solicitados en la validación (con uno que no existe para
+ * forzar el cálculo de idsNoEncontrados).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FacturacionServiceBenchmark {
+
+	@Param({"2", "20", "500"})
+	private int cantidad;
+
+	private Servicio servicio;
+	private Factura factura;
+	private List<FilaServicioParaFacturarDTO> filas;
+	private List<String> idsSolicitados;
+	private List<Servicio> serviciosEncontrados;
+
+	@Setup
+	public void preparar() {
+		servicio = servicio("SERV-000000");
+		servicio.setProductos(new ArrayList<>());
+		factura = new Factura();
+		factura.setIdFactura("FAC-2025-000001");
+		factura.setDniCliente("12345678");
+		factura.setFechaEmision(LocalDate.of(2025, 1, 15));
+		factura.setFechaVencimiento(LocalDate.of(2025, 2, 14));
+		factura.setEstado(Factura.EstadoFactura.Pendiente);
+		factura.setMontoTotal(new BigDecimal("115000.00").multiply(BigDecimal.valueOf(cantidad)));
+		factura.setDetalles(new ArrayList<>());
+		filas = new ArrayList<>(cantidad);
+		idsSolicitados = new ArrayList<>(cantidad);
+		serviciosEncontrados = new ArrayList<>(cantidad);
+
+		for (int i = 0; i < cantidad; i++) {
+			String idProducto = String.format("PROD-%03d", i);
+			String idServicio = String.format("SERV-%06d", i);
+			servicio.getProductos().add(new ServicioProducto(new ServicioProductoId(servicio.getIdServicio(), idProducto),
+				servicio, null, 2, new BigDecimal("45000.00")));
+
+			DetalleFactura detalle = new DetalleFactura();
+			detalle.setId(new DetalleFacturaId(factura.getIdFactura(), idServicio));
+			detalle.setFactura(factura);
+			detalle.setPrecioUnitario(new BigDecimal("115000.00"));
+			detalle.setCantidad(1);
+			detalle.setSubtotal(new BigDecimal("115000.00"));
+			factura.getDetalles().add(detalle);
+
+			filas.add(new FilaServicioParaFacturarDTO(servicio.getIdServicio(), "COT-1", "EMP-001", LocalDate.of(2025, 1, 15),
+				LocalTime.of(8, 0), "4 horas", "Servicio de prueba", "Alta", Servicio.EstadoServicio.COMPLETADO,
+				idProducto, "Insecticida Premium", "Litro", 2, new BigDecimal("45000.00")));
+
+			idsSolicitados.add(idServicio);
+			if (i > 0) {
+				serviciosEncontrados.add(servicio(idServicio));
+			}
+		}
+	}
+
+	@Benchmark
+	public BigDecimal calcularPrecioServicio() {
+		return CalculosFacturacion.calcularPrecioServicio(servicio);
+	}
+
+	@Benchmark
+	public FacturaDTO convertirADTO() {
+		return CalculosFacturacion.convertirADTO(factura);
+	}
+
+	@Benchmark
+	public DetalleFacturaDTO convertirDetalleADTO() {
+		return CalculosFacturacion.convertirDetalleADTO(factura.getDetalles().get(0));
+	}
+
+	@Benchmark
+	public ServicioParaFacturarDTO convertirServicioAFacturarDTO() {
+		return CalculosFacturacion.convertirServicioAFacturarDTO(filas);
+	}
+
+	@Benchmark
+	public String calcularIdsNoEncontrados() {
+		try {
+			CalculosFacturacion.validarServiciosParaFacturar(idsSolicitados, serviciosEncontrados);
+			throw new IllegalStateException("Se esperaba un servicio no encontrado");
+		} catch (IllegalArgumentException e) {
+			return e.getMessage();
+		}
+	}
+
+	private static Servicio servicio(String idServicio) {
+		Servicio servicio = new Servicio();
+		servicio.setIdServicio(idServicio);
+		servicio.setFecha(LocalDate.of(2025, 1, 15));
+		servicio.setHora(LocalTime.of(8, 0));
+		servicio.setEstado(Servicio.EstadoServicio.COMPLETADO);
+		return servicio;
+	}
+}
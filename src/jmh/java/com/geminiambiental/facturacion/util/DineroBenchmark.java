@@ -0,0 +1,63 @@
+package com.geminiambiental.facturacion.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Precio de un servicio con la cadena de BigDecimal que se usaba antes y con Dinero. Las asignaciones por
+ * operación se ven en gc.alloc.rate.norm (EjecutorBenchmarks activa el perfilador de GC).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DineroBenchmark {
+
+	@Param({"2", "20", "500"})
+	private int lineas;
+
+	private BigDecimal[] precios;
+	private int[] cantidades;
+
+	@Setup
+	public void preparar() {
+		precios = new BigDecimal[lineas];
+		cantidades = new int[lineas];
+		for (int i = 0; i < lineas; i++) {
+			precios[i] = BigDecimal.valueOf(4_500_000L + i * 137L, Dinero.ESCALA);
+			cantidades[i] = 1 + i % 7;
+		}
+	}
+
+	@Benchmark
+	public BigDecimal bigDecimal() {
+		BigDecimal total = BigDecimal.ZERO;
+		for (int i = 0; i < lineas; i++) {
+			total = total.add(precios[i].multiply(BigDecimal.valueOf(cantidades[i])));
+		}
+		return total;
+	}
+
+	@Benchmark
+	public BigDecimal dinero() {
+		Dinero total = Dinero.cero();
+		for (int i = 0; i < lineas; i++) {
+			total.sumarProducto(precios[i], cantidades[i]);
+		}
+		return total.aBigDecimal();
+	}
+}
@@ -2,12 +2,21 @@ package com.geminiambiental.facturacion;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 @SpringBootApplication
 @EnableTransactionManagement
+@EnableScheduling
 public class FacturacionApplication {
+
+    // Pasos del arranque que se conservan (fases, beans) para InformeArranque y /actuator/startup
+    private static final int PASOS_ARRANQUE = 10_000;
+
     public static void main(String[] args) {
-        SpringApplication.run(FacturacionApplication.class, args);
+        SpringApplication aplicacion = new SpringApplication(FacturacionApplication.class);
+        aplicacion.setApplicationStartup(new BufferingApplicationStartup(PASOS_ARRANQUE));
+        aplicacion.run(args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package com.geminiambiental.facturacion.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Endpoints de cada compartimento del control de admisión. /emitir y las transiciones no tienen
+ * compartimento: son las peticiones que los límites protegen.
+ */
+@Configuration
+@ConditionalOnProperty(name = "facturacion.admision.habilitada", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class AdmisionConfig implements WebMvcConfigurer {
+
+    private final ControlAdmision controlAdmision;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(controlAdmision.interceptor("estadisticas"))
+            .addPathPatterns("/api/facturacion/estadisticas", "/api/facturacion/estadisticas/por-cliente");
+        registry.addInterceptor(controlAdmision.interceptor("servicios-para-facturar"))
+            .addPathPatterns("/api/facturacion/servicios-para-facturar");
+        registry.addInterceptor(controlAdmision.interceptor("busqueda"))
+            .addPathPatterns("/api/facturacion", "/api/facturacion/cursor");
+    }
+}
@@ -0,0 +1,176 @@
+package com.geminiambiental.facturacion.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appender de logback que escribe en los appenders adjuntos desde un único hilo, a través de un arreglo
+ * circular acotado (ArrayBlockingQueue). El hilo que loguea solo fija los datos diferidos del evento (mensaje
+ * formateado, MDC, hilo) y lo encola con offer: si la cola está llena el evento se descarta y se cuenta, así
+ * una ráfaga o un disco lento nunca bloquean una petición. A diferencia del AsyncAppender de logback no
+ * descarta INFO al acercarse al límite y los descartes no son silenciosos: el hilo escritor deja un WARN con
+ * la cantidad y MetricasLogs los publica como facturacion.logs.descartados.
+ */
+public class AppenderAsincrono extends UnsynchronizedAppenderBase<ILoggingEvent>
+        implements AppenderAttachable<ILoggingEvent> {
+
+    private final AppenderAttachableImpl<ILoggingEvent> adjuntos = new AppenderAttachableImpl<>();
+    private final LongAdder descartados = new LongAdder();
+
+    private int capacidad = 8192;
+    private int tamanoTanda = 256;
+    private int esperaCierreMs = 2000;
+
+    private volatile ArrayBlockingQueue<ILoggingEvent> cola;
+    private Thread escritor;
+
+    @Override
+    public void start() {
+        if (isStarted()) {
+            return;
+        }
+        if (!adjuntos.iteratorForAppenders().hasNext()) {
+            addError("El appender " + getName() + " no tiene appenders adjuntos");
+            return;
+        }
+        if (capacidad < 1 || tamanoTanda < 1) {
+            addError("capacidad y tamanoTanda deben ser mayores que cero");
+            return;
+        }
+        cola = new ArrayBlockingQueue<>(capacidad);
+        super.start();
+        escritor = new Thread(this::escribir, "logs-" + getName());
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent evento) {
+        evento.prepareForDeferredProcessing();
+        if (!cola.offer(evento)) {
+            descartados.increment();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        // El escritor vacía lo que quede en la cola y termina; no se espera más de esperaCierreMs
+        super.stop();
+        try {
+            escritor.join(esperaCierreMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (escritor.isAlive()) {
+            addWarn("Quedaron " + cola.size() + " eventos sin escribir al detener " + getName());
+            escritor.interrupt();
+        }
+        adjuntos.detachAndStopAllAppenders();
+    }
+
+    private void escribir() {
+        List<ILoggingEvent> tanda = new ArrayList<>(tamanoTanda);
+        long reportados = 0;
+        while (isStarted() || !cola.isEmpty()) {
+            try {
+                ILoggingEvent primero = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                tanda.add(primero);
+                cola.drainTo(tanda, tamanoTanda - 1);
+                for (ILoggingEvent evento : tanda) {
+                    adjuntos.appendLoopOnAppenders(evento);
+                }
+                tanda.clear();
+                long total = descartados.sum();
+                if (total > reportados) {
+                    adjuntos.appendLoopOnAppenders(avisoDescartes(total - reportados));
+                    reportados = total;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                tanda.clear();
+                addError("Error escribiendo eventos de log", e);
+            }
+        }
+    }
+
+    private ILoggingEvent avisoDescartes(long cantidad) {
+        LoggerContext contexto = (LoggerContext) getContext();
+        return new LoggingEvent(AppenderAsincrono.class.getName(), contexto.getLogger(AppenderAsincrono.class), Level.WARN,
+            "Se descartaron {} eventos de log con la cola llena", null, new Object[]{cantidad});
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    public int getPendientes() {
+        ArrayBlockingQueue<ILoggingEvent> actual = cola;
+        return actual == null ? 0 : actual.size();
+    }
+
+    public void setCapacidad(int capacidad) {
+        this.capacidad = capacidad;
+    }
+
+    public void setTamanoTanda(int tamanoTanda) {
+        this.tamanoTanda = tamanoTanda;
+    }
+
+    public void setEsperaCierreMs(int esperaCierreMs) {
+        this.esperaCierreMs = esperaCierreMs;
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        adjuntos.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return adjuntos.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String nombre) {
+        return adjuntos.getAppender(nombre);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return adjuntos.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        adjuntos.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return adjuntos.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String nombre) {
+        return adjuntos.detachAppender(nombre);
+    }
+}
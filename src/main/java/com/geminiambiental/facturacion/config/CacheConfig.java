@@ -0,0 +1,45 @@
+package com.geminiambiental.facturacion.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+
+/**
+ * Caché de segundo nivel de Hibernate sobre JCache (Ehcache en el mismo proceso). El CacheManager se
+ * crea aquí y se entrega a Hibernate para poder publicar las estadísticas de cada región en actuator
+ * (cache.gets con result=hit/miss, cache.puts, cache.evictions con la etiqueta cache=región).
+ * <p>
+ * JCache entrega el mismo CacheManager a todos los contextos de la JVM que piden el mismo URI, y Hibernate
+ * cierra sus regiones al cerrar la SessionFactory: un contexto sin caché de segundo nivel no lo toca.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class CacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager cacheManagerSegundoNivel(@Value("classpath:ehcache.xml") Resource configuracion) throws IOException {
+        return Caching.getCachingProvider(EhcacheCachingProvider.class.getName())
+            .getCacheManager(configuracion.getURI(), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer cacheSegundoNivelHibernate(CacheManager cacheManagerSegundoNivel) {
+        return propiedades -> propiedades.put(ConfigSettings.CACHE_MANAGER, cacheManagerSegundoNivel);
+    }
+
+    @Bean
+    public MeterBinder metricasCacheSegundoNivel(CacheManager cacheManagerSegundoNivel) {
+        return registro -> cacheManagerSegundoNivel.getCacheNames().forEach(region ->
+            JCacheMetrics.monitor(registro, cacheManagerSegundoNivel.getCache(region)));
+    }
+}
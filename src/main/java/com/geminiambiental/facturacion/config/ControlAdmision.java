@@ -0,0 +1,234 @@
+package com.geminiambiental.facturacion.config;
+
+import com.geminiambiental.facturacion.exception.SobrecargaException;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compartimentos (bulkheads) para los endpoints que retienen una conexión por segundos. Cada compartimento
+ * admite hasta su límite de peticiones a la vez y rechaza las demás al instante con SobrecargaException
+ * (503 con Retry-After), así una ráfaga del dashboard no deja a /emitir sin conexiones del pool.
+ * <p>
+ * El límite se adapta en cada pasada de ajustar(), entre 1 y facturacion.admision.{compartimento}.maximo:
+ * se reduce a la mitad si la espera media por una conexión del pool o la latencia media del compartimento
+ * superaron su objetivo, y sube de a uno si el compartimento se llenó sin congestión. Las pasadas corren cada
+ * facturacion.admision.intervalo-ms en un hilo propio y no en el planificador de @Scheduled: un proceso de
+ * vencidas o una recarga del índice no deben dejar los límites reducidos después de la sobrecarga.
+ */
+@Component
+@Slf4j
+public class ControlAdmision {
+
+    private final Environment entorno;
+    private final MeterRegistry registro;
+    private final DataSource dataSource;
+    private final int reintentarEnSegundos;
+    private final double objetivoEsperaPoolMs;
+    private final Map<String, Compartimento> compartimentos = new ConcurrentHashMap<>();
+
+    // Acumulados del timer de Hikari en la pasada anterior, para medir solo la última ventana
+    private long adquisicionesPrevias;
+    private double esperaPreviaMs;
+    private volatile double esperaPoolMs;
+    private ScheduledExecutorService ajustes;
+
+    public ControlAdmision(Environment entorno, MeterRegistry registro, DataSource dataSource,
+            @Value("${facturacion.admision.reintentar-en-segundos:1}") int reintentarEnSegundos,
+            @Value("${facturacion.admision.objetivo-espera-pool-ms:50}") double objetivoEsperaPoolMs) {
+        this.entorno = entorno;
+        this.registro = registro;
+        this.dataSource = dataSource;
+        this.reintentarEnSegundos = reintentarEnSegundos;
+        this.objetivoEsperaPoolMs = objetivoEsperaPoolMs;
+        Gauge.builder("facturacion.admision.pool.espera", this, control -> control.esperaPoolMs)
+            .description("Espera media por una conexión del pool en la última ventana de ajuste")
+            .baseUnit("milliseconds")
+            .register(registro);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        long intervaloMs = entorno.getProperty("facturacion.admision.intervalo-ms", Long.class, 1000L);
+        ajustes = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "admision-ajuste");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        ajustes.scheduleWithFixedDelay(() -> {
+            // Una excepción cancelaría las pasadas siguientes
+            try {
+                ajustar();
+            } catch (Exception e) {
+                log.error("Error ajustando los límites de admisión", e);
+            }
+        }, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (ajustes != null) {
+            ajustes.shutdownNow();
+        }
+    }
+
+    public HandlerInterceptor interceptor(String nombre) {
+        Compartimento compartimento = compartimentos.computeIfAbsent(nombre, this::crear);
+        String atributoInicio = ControlAdmision.class.getName() + "." + nombre;
+        return new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (!compartimento.entrar()) {
+                    throw new SobrecargaException(nombre, reintentarEnSegundos);
+                }
+                request.setAttribute(atributoInicio, System.nanoTime());
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                    Exception ex) {
+                compartimento.salir(System.nanoTime() - (long) request.getAttribute(atributoInicio));
+            }
+        };
+    }
+
+    private Compartimento crear(String nombre) {
+        String prefijo = "facturacion.admision." + nombre;
+        Compartimento compartimento = new Compartimento(
+            entorno.getProperty(prefijo + ".maximo", Integer.class, 4),
+            entorno.getProperty(prefijo + ".objetivo-latencia-ms", Long.class, 1000L),
+            Counter.builder("facturacion.admision.rechazadas")
+                .description("Peticiones rechazadas con 503 por compartimento lleno")
+                .tag("compartimento", nombre)
+                .register(registro));
+        Gauge.builder("facturacion.admision.limite", compartimento, c -> c.limite)
+            .description("Peticiones simultáneas admitidas por el compartimento")
+            .tag("compartimento", nombre)
+            .register(registro);
+        Gauge.builder("facturacion.admision.activas", compartimento, c -> c.enCurso.get())
+            .description("Peticiones en curso en el compartimento")
+            .tag("compartimento", nombre)
+            .register(registro);
+        return compartimento;
+    }
+
+    public void ajustar() {
+        esperaPoolMs = medirEsperaPool();
+        boolean poolCongestionado = esperaPoolMs > objetivoEsperaPoolMs;
+        compartimentos.forEach((nombre, compartimento) -> {
+            int anterior = compartimento.limite;
+            int nuevo = compartimento.ajustar(poolCongestionado);
+            if (nuevo != anterior) {
+                log.info("Límite de admisión de {}: {} -> {} (espera del pool {} ms)", nombre, anterior, nuevo,
+                    Math.round(esperaPoolMs));
+            }
+        });
+    }
+
+    public int getLimite(String nombre) {
+        Compartimento compartimento = compartimentos.get(nombre);
+        return compartimento == null ? 0 : compartimento.limite;
+    }
+
+    private double medirEsperaPool() {
+        Timer adquisicion = timerAdquisicion();
+        if (adquisicion == null) {
+            return 0;
+        }
+        long adquisiciones = adquisicion.count();
+        double esperaMs = adquisicion.totalTime(TimeUnit.MILLISECONDS);
+        double media = adquisiciones > adquisicionesPrevias
+            ? (esperaMs - esperaPreviaMs) / (adquisiciones - adquisicionesPrevias) : 0;
+        adquisicionesPrevias = adquisiciones;
+        esperaPreviaMs = esperaMs;
+        return media;
+    }
+
+    private Timer timerAdquisicion() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return null;
+            }
+            String pool = dataSource.unwrap(HikariDataSource.class).getPoolName();
+            return pool == null ? null : registro.find("hikaricp.connections.acquire").tag("pool", pool).timer();
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private static final class Compartimento {
+        private final int maximo;
+        private final long objetivoLatenciaNanos;
+        private final Counter rechazadas;
+        private final AtomicInteger enCurso = new AtomicInteger();
+        private volatile int limite;
+
+        // Ventana desde la última pasada de ajuste
+        private final AtomicInteger pico = new AtomicInteger();
+        private final LongAdder rechazosVentana = new LongAdder();
+        private final LongAdder completadas = new LongAdder();
+        private final LongAdder latenciaNanos = new LongAdder();
+
+        private Compartimento(int maximo, long objetivoLatenciaMs, Counter rechazadas) {
+            this.maximo = Math.max(1, maximo);
+            this.objetivoLatenciaNanos = TimeUnit.MILLISECONDS.toNanos(objetivoLatenciaMs);
+            this.rechazadas = rechazadas;
+            this.limite = this.maximo;
+        }
+
+        private boolean entrar() {
+            int actual;
+            do {
+                actual = enCurso.get();
+                if (actual >= limite) {
+                    rechazadas.increment();
+                    rechazosVentana.increment();
+                    return false;
+                }
+            } while (!enCurso.compareAndSet(actual, actual + 1));
+            pico.accumulateAndGet(actual + 1, Math::max);
+            return true;
+        }
+
+        private void salir(long nanos) {
+            enCurso.decrementAndGet();
+            completadas.increment();
+            latenciaNanos.add(nanos);
+        }
+
+        private int ajustar(boolean poolCongestionado) {
+            long cantidad = completadas.sumThenReset();
+            long latencia = latenciaNanos.sumThenReset();
+            long rechazos = rechazosVentana.sumThenReset();
+            boolean lleno = pico.getAndSet(enCurso.get()) >= limite || rechazos > 0;
+            boolean lento = cantidad > 0 && latencia / cantidad > objetivoLatenciaNanos;
+            if (poolCongestionado || lento) {
+                limite = Math.max(1, limite / 2);
+            } else if (lleno) {
+                limite = Math.min(maximo, limite + 1);
+            }
+            return limite;
+        }
+    }
+}
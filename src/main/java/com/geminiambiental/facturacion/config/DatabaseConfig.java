@@ -1,5 +1,12 @@
 package com.geminiambiental.facturacion.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -8,4 +15,23 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 @EnableJpaRepositories(basePackages = "com.geminiambiental.facturacion.repository")
 @EnableTransactionManagement
 public class DatabaseConfig {
+
+    /**
+     * Pool propio para reservar bloques de numeración. El hilo que recarga un bloque ya retiene una
+     * conexión del pool principal para su emisión y los demás emisores lo esperan reteniendo la suya:
+     * si la reserva también usara el pool principal, con el pool agotado nadie podría avanzar.
+     * No es candidato por defecto, así que el DataSource autoconfigurado (JPA, JdbcTemplate) sigue siendo
+     * el único inyectado por tipo; por eso las métricas hikaricp.* del pool se registran aquí.
+     */
+    @Bean(defaultCandidate = false, destroyMethod = "close")
+    @Qualifier("numeracion")
+    public HikariDataSource dataSourceNumeracion(DataSourceProperties propiedades, MeterRegistry registro,
+            @Value("${facturacion.numeracion.pool.maximo:2}") int maximo) {
+        HikariDataSource dataSource = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("numeracion");
+        dataSource.setMaximumPoolSize(maximo);
+        dataSource.setMinimumIdle(1);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registro));
+        return dataSource;
+    }
 }
\ No newline at end of file
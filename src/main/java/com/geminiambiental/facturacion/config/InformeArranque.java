@@ -0,0 +1,102 @@
+package com.geminiambiental.facturacion.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Resume, al quedar lista la aplicación, cuánto tomó cada fase del arranque a partir de los pasos que
+ * registra BufferingApplicationStartup: la JVM hasta que arranca Spring, cada paso de primer nivel
+ * (contexto, servidor web, listeners) y el total. Las fases se publican como facturacion.arranque.fase
+ * para comparar entre versiones y el log agrega los beans más lentos; el detalle completo queda en
+ * /actuator/startup. Sin BufferingApplicationStartup (pruebas) no hace nada.
+ */
+@Component
+@Slf4j
+public class InformeArranque {
+
+    private static final int BEANS_MAS_LENTOS = 10;
+    private static final String REFRESCO = "spring.context.refresh";
+
+    private final ConfigurableApplicationContext contexto;
+    private final MeterRegistry registro;
+
+    public InformeArranque(ConfigurableApplicationContext contexto, MeterRegistry registro) {
+        this.contexto = contexto;
+        this.registro = registro;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void informar() {
+        if (!(contexto.getApplicationStartup() instanceof BufferingApplicationStartup pasos)) {
+            return;
+        }
+        StartupTimeline linea = pasos.getBufferedTimeline();
+        Instant inicioJvm = Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime());
+
+        Map<String, Duration> fases = new LinkedHashMap<>();
+        fases.put("jvm", Duration.between(inicioJvm, linea.getStartTime()));
+        Set<Long> refrescos = new HashSet<>();
+        for (StartupTimeline.TimelineEvent evento : linea.getEvents()) {
+            StartupStep paso = evento.getStartupStep();
+            if (paso.getParentId() == null) {
+                fases.merge(paso.getName(), evento.getDuration(), Duration::plus);
+                if (paso.getName().equals(REFRESCO)) {
+                    refrescos.add(paso.getId());
+                }
+            }
+        }
+        // El refresco del contexto es casi todo el arranque: se abre en sus pasos directos (post-procesadores,
+        // beans, servidor web), que terminan antes que él y por eso ya están en la línea
+        for (StartupTimeline.TimelineEvent evento : linea.getEvents()) {
+            StartupStep paso = evento.getStartupStep();
+            if (paso.getParentId() != null && refrescos.contains(paso.getParentId())) {
+                fases.merge(REFRESCO + "/" + paso.getName(), evento.getDuration(), Duration::plus);
+            }
+        }
+        fases.put("total", Duration.between(inicioJvm, Instant.now()));
+        fases.forEach((fase, duracion) -> TimeGauge.builder("facturacion.arranque.fase", duracion, TimeUnit.MILLISECONDS,
+                valor -> valor.toNanos() / 1e6)
+            .description("Duración de cada fase del último arranque")
+            .tag("fase", fase)
+            .strongReference(true)
+            .register(registro));
+
+        String beans = linea.getEvents().stream()
+            .filter(evento -> evento.getStartupStep().getName().equals("spring.beans.instantiate"))
+            .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+            .limit(BEANS_MAS_LENTOS)
+            .map(evento -> nombreBean(evento.getStartupStep()) + "=" + evento.getDuration().toMillis() + "ms")
+            .collect(Collectors.joining(", "));
+        log.info("Arranque por fase (ms): {}", fases.entrySet().stream()
+            .map(fase -> fase.getKey() + "=" + fase.getValue().toMillis())
+            .collect(Collectors.joining(", ")));
+        log.info("Beans más lentos de instanciar (incluye sus dependencias): {}", beans);
+    }
+
+    private static String nombreBean(StartupStep paso) {
+        for (StartupStep.Tag etiqueta : paso.getTags()) {
+            if (etiqueta.getKey().equals("beanName")) {
+                return etiqueta.getValue();
+            }
+        }
+        return "?";
+    }
+}
@@ -0,0 +1,50 @@
+package com.geminiambiental.facturacion.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Publica las colas de los AppenderAsincrono de logback-spring.xml, una por destino (consola y archivo):
+ * eventos descartados con la cola llena y eventos pendientes de escribir. El appender se busca en cada
+ * lectura porque logback puede reconfigurarse después de registrar las métricas; si no está (otra
+ * configuración de logs) las métricas quedan en cero.
+ */
+@Component
+public class MetricasLogs implements MeterBinder {
+
+    static final Map<String, String> APPENDERS = Map.of(
+        "consola", "CONSOLA_ASINCRONA",
+        "archivo", "ARCHIVO_ASINCRONO");
+
+    @Override
+    public void bindTo(MeterRegistry registro) {
+        APPENDERS.forEach((destino, nombre) -> {
+            FunctionCounter.builder("facturacion.logs.descartados", this,
+                    metricas -> appender(nombre) != null ? appender(nombre).getDescartados() : 0)
+                .description("Eventos de log descartados porque la cola del destino estaba llena")
+                .tag("destino", destino)
+                .register(registro);
+            Gauge.builder("facturacion.logs.pendientes", this,
+                    metricas -> appender(nombre) != null ? appender(nombre).getPendientes() : 0)
+                .description("Eventos de log en cola esperando al hilo que escribe el destino")
+                .tag("destino", destino)
+                .register(registro);
+        });
+    }
+
+    static AppenderAsincrono appender(String nombre) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext contexto)) {
+            return null;
+        }
+        return contexto.getLogger(Logger.ROOT_LOGGER_NAME).getAppender(nombre) instanceof AppenderAsincrono asincrono
+            ? asincrono : null;
+    }
+}
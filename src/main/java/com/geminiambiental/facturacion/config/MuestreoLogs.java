@@ -0,0 +1,48 @@
+package com.geminiambiental.facturacion.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decide qué peticiones escriben sus logs detallados: una de cada facturacion.logs.muestreo.{endpoint}
+ * (o facturacion.logs.muestreo.por-defecto si el endpoint no tiene la suya); 1 las registra todas y 0
+ * ninguna. Se usa un contador por endpoint y no un aleatorio, así que una ráfaga siempre deja muestras
+ * y decidir no asigna memoria.
+ */
+@Component
+public class MuestreoLogs {
+
+    private final Environment entorno;
+    private final int porDefecto;
+    private final ConcurrentHashMap<String, Muestreo> porEndpoint = new ConcurrentHashMap<>();
+
+    public MuestreoLogs(Environment entorno, @Value("${facturacion.logs.muestreo.por-defecto:100}") int porDefecto) {
+        this.entorno = entorno;
+        this.porDefecto = porDefecto;
+    }
+
+    public boolean registrar(String endpoint) {
+        Muestreo muestreo = porEndpoint.get(endpoint);
+        if (muestreo == null) {
+            muestreo = porEndpoint.computeIfAbsent(endpoint, nombre -> new Muestreo(
+                entorno.getProperty("facturacion.logs.muestreo." + nombre, Integer.class, porDefecto)));
+        }
+        return muestreo.siguiente();
+    }
+
+    private static final class Muestreo {
+        private final int cada;
+        private final AtomicLong peticiones = new AtomicLong();
+
+        private Muestreo(int cada) {
+            this.cada = cada;
+        }
+
+        private boolean siguiente() {
+            return cada > 0 && peticiones.getAndIncrement() % cada == 0;
+        }
+    }
+}
@@ -3,13 +3,22 @@ package com.geminiambiental.facturacion.config;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.info.Contact;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.type.MethodMetadata;
 
 @Configuration
 public class SwaggerConfig {
     
+    private static final String PAQUETE_SPRINGDOC = "org.springdoc.";
+    
     @Bean
+    @Lazy
     public OpenAPI customOpenAPI() {
         return new OpenAPI()
             .info(new Info()
@@ -20,4 +29,30 @@ public class SwaggerConfig {
                     .name("Equipo de Desarrollo")
                     .email("dev@geminiambiental.com")));
     }
+    
+    /**
+     * Marca como lazy los beans de springdoc: la documentación no hace falta para atender la API, así que
+     * se arma con la primera petición a /api-docs o /swagger-ui.html y no durante el arranque.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "facturacion.arranque.documentacion-diferida", havingValue = "true")
+    public static BeanFactoryPostProcessor documentacionDiferida() {
+        return beanFactory -> {
+            for (String nombre : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definicion = beanFactory.getBeanDefinition(nombre);
+                if (deSpringdoc(definicion)) {
+                    definicion.setLazyInit(true);
+                }
+            }
+        };
+    }
+    
+    private static boolean deSpringdoc(BeanDefinition definicion) {
+        if (definicion.getBeanClassName() != null && definicion.getBeanClassName().startsWith(PAQUETE_SPRINGDOC)) {
+            return true;
+        }
+        // Beans declarados con @Bean en las configuraciones de springdoc
+        MethodMetadata metodo = definicion instanceof AnnotatedBeanDefinition anotada ? anotada.getFactoryMethodMetadata() : null;
+        return metodo != null && metodo.getDeclaringClassName().startsWith(PAQUETE_SPRINGDOC);
+    }
 }
\ No newline at end of file
@@ -1,8 +1,14 @@
 package com.geminiambiental.facturacion.controller;
 
+import com.geminiambiental.facturacion.config.MuestreoLogs;
 import com.geminiambiental.facturacion.dto.*;
 import com.geminiambiental.facturacion.entity.Servicio;
+import com.geminiambiental.facturacion.exception.ServiciosEnConflictoException;
+import com.geminiambiental.facturacion.service.ConciliacionBancaria;
+import com.geminiambiental.facturacion.service.EmisionIdempotente;
+import com.geminiambiental.facturacion.service.ExportacionFacturasService;
 import com.geminiambiental.facturacion.service.FacturacionService;
+import com.geminiambiental.facturacion.service.TransicionesFacturaLote;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
@@ -11,9 +17,16 @@ import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -24,13 +37,16 @@ import java.util.List;
 public class FacturacionController {
     
     private final FacturacionService facturacionService;
+    private final ExportacionFacturasService exportacionFacturasService;
+    private final EmisionIdempotente emisionIdempotente;
+    private final TransicionesFacturaLote transicionesLote;
+    private final ConciliacionBancaria conciliacionBancaria;
+    private final MuestreoLogs muestreoLogs;
     
     @PostMapping("/emitir")
-    public ResponseEntity<FacturaDTO> emitirFactura(@Valid @RequestBody EmitirFacturaRequest request) {
+    public ResponseEntity<FacturaDTO> emitirFactura(@Valid @RequestBody EmitirFacturaRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia) {
         try {
-            log.info("Request object: {}", request);
-            log.info("IdsServicios field: {}", request != null ? request.getIdsServicios() : "REQUEST IS NULL");
-            
             // Validación adicional de entrada
             if (request == null) {
                 log.warn("Request nulo recibido para emitir factura");
@@ -42,8 +58,18 @@ public class FacturacionController {
                 return ResponseEntity.badRequest().build();
             }
             
-            log.info("Recibida petición para emitir factura con servicios: {} y observaciones: {}", 
-                    request.getIdsServicios(), request.getObservaciones());
+            if (muestreoLogs.registrar("emitir")) {
+                log.info("Recibida petición para emitir factura con servicios: {}, observaciones: {} e Idempotency-Key: {}",
+                        request.getIdsServicios(), request.getObservaciones(), claveIdempotencia);
+            }
+            
+            if (claveIdempotencia != null) {
+                EmisionIdempotente.Resultado resultado = emisionIdempotente.emitir(
+                    claveIdempotencia, request.getIdsServicios(), request.getObservaciones());
+                return ResponseEntity.status(HttpStatus.CREATED)
+                    .header("Idempotent-Replayed", String.valueOf(resultado.repetida()))
+                    .body(resultado.factura());
+            }
             
             FacturaDTO factura = facturacionService.emitirFactura(
                 request.getIdsServicios(), 
@@ -55,12 +81,34 @@ public class FacturacionController {
         } catch (IllegalArgumentException e) {
             log.warn("Error de validación al emitir factura: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
+        } catch (ServiciosEnConflictoException e) {
+            // GlobalExceptionHandler responde 409 con los servicios en conflicto
+            log.warn("Servicios en conflicto al emitir factura: {}", e.getIdsServicios());
+            throw e;
+        } catch (IllegalStateException e) {
+            log.warn("Conflicto al emitir factura: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             log.error("Error al emitir factura", e);
             return ResponseEntity.internalServerError().build();
         }
     }
     
+    @PostMapping("/emitir-lote")
+    public ResponseEntity<List<ResultadoEmisionDTO>> emitirFacturasLote(@Valid @RequestBody EmitirFacturasLoteRequest request) {
+        try {
+            if (muestreoLogs.registrar("emitir-lote")) {
+                log.info("Recibida petición para emitir {} facturas en lote", request.getFacturas().size());
+            }
+            
+            List<ResultadoEmisionDTO> resultados = facturacionService.emitirFacturasLote(request.getFacturas());
+            return ResponseEntity.ok(resultados);
+        } catch (Exception e) {
+            log.error("Error al emitir facturas en lote", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     @PutMapping("/{idFactura}/marcar-pagada")
     public ResponseEntity<FacturaDTO> marcarComoPagada(@PathVariable String idFactura) {
         try {
@@ -97,6 +145,51 @@ public class FacturacionController {
         }
     }
     
+    @PutMapping("/marcar-pagada-lote")
+    public ResponseEntity<List<ResultadoTransicionDTO>> marcarComoPagadasLote(
+            @Valid @RequestBody TransicionFacturasLoteRequest request) {
+        try {
+            if (muestreoLogs.registrar("marcar-pagada-lote")) {
+                log.info("Recibida petición para marcar como pagadas {} facturas", request.getIdsFacturas().size());
+            }
+            return ResponseEntity.ok(transicionesLote.marcarComoPagadas(request.getIdsFacturas(), request.getFechasPago()));
+        } catch (Exception e) {
+            log.error("Error al marcar facturas como pagadas en lote", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @PutMapping("/anular-lote")
+    public ResponseEntity<List<ResultadoTransicionDTO>> anularFacturasLote(
+            @Valid @RequestBody TransicionFacturasLoteRequest request) {
+        try {
+            if (muestreoLogs.registrar("anular-lote")) {
+                log.info("Recibida petición para anular {} facturas", request.getIdsFacturas().size());
+            }
+            return ResponseEntity.ok(transicionesLote.anular(request.getIdsFacturas(), request.getMotivo(), request.getMotivos()));
+        } catch (Exception e) {
+            log.error("Error al anular facturas en lote", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @PostMapping(value = "/conciliar-extracto", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<ResultadoConciliacionDTO> conciliarExtracto(InputStream extracto) {
+        try {
+            // El cuerpo se lee a medida que se concilia, sin guardarlo completo
+            return ResponseEntity.ok(conciliacionBancaria.conciliar(Channels.newChannel(extracto)));
+        } catch (IllegalArgumentException e) {
+            log.warn("Extracto bancario inválido: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (UncheckedIOException e) {
+            log.warn("Error leyendo el extracto bancario: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error al conciliar el extracto bancario", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     @GetMapping
     public ResponseEntity<Page<FacturaDTO>> buscarFacturas(
             @RequestParam(required = false) String cliente,
@@ -107,7 +200,8 @@ public class FacturacionController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "fechaEmision") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(defaultValue = "true") boolean incluirDetalles) {
         
         try {
             FiltrosFacturaDTO filtros = new FiltrosFacturaDTO();
@@ -118,6 +212,7 @@ public class FacturacionController {
             filtros.setSize(size);
             filtros.setSortBy(sortBy);
             filtros.setSortDir(sortDir);
+            filtros.setIncluirDetalles(incluirDetalles);
             
             if (fechaInicio != null) {
                 filtros.setFechaInicio(java.time.LocalDate.parse(fechaInicio));
@@ -134,6 +229,86 @@ public class FacturacionController {
         }
     }
     
+    @GetMapping("/cursor")
+    public ResponseEntity<PaginaCursorDTO<FacturaDTO>> buscarFacturasPorCursor(
+            @RequestParam(required = false) String cliente,
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) String fechaInicio,
+            @RequestParam(required = false) String fechaFin,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "fechaEmision") String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(defaultValue = "false") boolean incluirTotal,
+            @RequestParam(defaultValue = "true") boolean incluirDetalles) {
+        
+        try {
+            FiltrosFacturaDTO filtros = new FiltrosFacturaDTO();
+            filtros.setCliente(cliente);
+            filtros.setEstado(estado);
+            filtros.setCursor(cursor);
+            filtros.setSize(size);
+            filtros.setSortBy(sortBy);
+            filtros.setSortDir(sortDir);
+            filtros.setIncluirTotal(incluirTotal);
+            filtros.setIncluirDetalles(incluirDetalles);
+            
+            if (fechaInicio != null) {
+                filtros.setFechaInicio(java.time.LocalDate.parse(fechaInicio));
+            }
+            if (fechaFin != null) {
+                filtros.setFechaFin(java.time.LocalDate.parse(fechaFin));
+            }
+            
+            return ResponseEntity.ok(facturacionService.buscarFacturasPorCursor(filtros));
+        } catch (IllegalArgumentException e) {
+            log.warn("Parámetros inválidos en búsqueda por cursor: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error al buscar facturas por cursor", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarFacturas(
+            @RequestParam(required = false) String cliente,
+            @RequestParam(required = false) String estado,
+            @RequestParam(required = false) String fechaInicio,
+            @RequestParam(required = false) String fechaFin,
+            @RequestParam(defaultValue = "ndjson") String formato) {
+        
+        try {
+            FiltrosFacturaDTO filtros = new FiltrosFacturaDTO();
+            filtros.setCliente(cliente);
+            filtros.setEstado(estado);
+            
+            if (fechaInicio != null) {
+                filtros.setFechaInicio(java.time.LocalDate.parse(fechaInicio));
+            }
+            if (fechaFin != null) {
+                filtros.setFechaFin(java.time.LocalDate.parse(fechaFin));
+            }
+            
+            ExportacionFacturasService.Formato formatoExportacion =
+                ExportacionFacturasService.Formato.valueOf(formato.toUpperCase());
+            MediaType tipo = formatoExportacion == ExportacionFacturasService.Formato.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+            
+            // Se escribe en un hilo asíncrono directamente sobre la respuesta, sin armar la lista en memoria
+            StreamingResponseBody cuerpo = salida -> exportacionFacturasService.exportar(filtros, formatoExportacion, salida);
+            return ResponseEntity.ok()
+                .contentType(tipo)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                    "attachment; filename=facturas." + formatoExportacion.name().toLowerCase())
+                .body(cuerpo);
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            log.warn("Parámetros inválidos para exportar facturas: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{idFactura}")
     public ResponseEntity<FacturaDTO> obtenerFactura(@PathVariable String idFactura) {
         try {
@@ -146,16 +321,45 @@ public class FacturacionController {
     }
     
     @GetMapping("/estadisticas")
-    public ResponseEntity<EstadisticasFacturacionDTO> obtenerEstadisticas() {
+    public ResponseEntity<EstadisticasFacturacionDTO> obtenerEstadisticas(
+            @RequestParam(required = false) String cliente,
+            @RequestParam(required = false) String fechaInicio,
+            @RequestParam(required = false) String fechaFin,
+            @RequestParam(defaultValue = "false") boolean refrescar) {
         try {
-            EstadisticasFacturacionDTO estadisticas = facturacionService.obtenerEstadisticas();
+            EstadisticasFacturacionDTO estadisticas = facturacionService.obtenerEstadisticas(
+                cliente,
+                fechaInicio != null ? java.time.LocalDate.parse(fechaInicio) : null,
+                fechaFin != null ? java.time.LocalDate.parse(fechaFin) : null,
+                refrescar);
             return ResponseEntity.ok(estadisticas);
+        } catch (java.time.format.DateTimeParseException e) {
+            log.warn("Rango de fechas inválido para estadísticas: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error al obtener estadísticas", e);
             return ResponseEntity.internalServerError().build();
         }
     }
     
+    @GetMapping("/estadisticas/por-cliente")
+    public ResponseEntity<List<EstadisticasClienteDTO>> obtenerEstadisticasPorCliente(
+            @RequestParam(required = false) String fechaInicio,
+            @RequestParam(required = false) String fechaFin) {
+        try {
+            List<EstadisticasClienteDTO> estadisticas = facturacionService.obtenerEstadisticasPorCliente(
+                fechaInicio != null ? java.time.LocalDate.parse(fechaInicio) : null,
+                fechaFin != null ? java.time.LocalDate.parse(fechaFin) : null);
+            return ResponseEntity.ok(estadisticas);
+        } catch (java.time.format.DateTimeParseException e) {
+            log.warn("Rango de fechas inválido para estadísticas: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error al obtener estadísticas por cliente", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     @GetMapping("/servicios-para-facturar")
     public ResponseEntity<List<ServicioParaFacturarDTO>> obtenerServiciosParaFacturar() {
         try {
@@ -168,10 +372,10 @@ public class FacturacionController {
     }
     
     @PostMapping("/procesar-vencidas")
-    public ResponseEntity<Void> procesarFacturasVencidas() {
+    public ResponseEntity<ResultadoProcesoVencidasDTO> procesarFacturasVencidas() {
         try {
-            facturacionService.procesarFacturasVencidas();
-            return ResponseEntity.ok().build();
+            ResultadoProcesoVencidasDTO resultado = facturacionService.procesarFacturasVencidas();
+            return ResponseEntity.ok(resultado);
         } catch (Exception e) {
             log.error("Error al procesar facturas vencidas", e);
             return ResponseEntity.internalServerError().build();
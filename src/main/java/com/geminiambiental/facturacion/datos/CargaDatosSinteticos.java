@@ -0,0 +1,73 @@
+package com.geminiambiental.facturacion.datos;
+
+import com.geminiambiental.facturacion.service.ContadoresFacturacion;
+import com.geminiambiental.facturacion.service.IndiceTrigramasClientes;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+
+/**
+ * Con el perfil datos, carga el volumen de facturacion.datos.* al arrancar. Si ya hay servicios no hace
+ * nada, salvo con facturacion.datos.reemplazar=true, que borra todo antes; así la misma semilla siempre
+ * deja la misma base.
+ */
+@Component
+@Profile("datos")
+@Slf4j
+public class CargaDatosSinteticos implements CommandLineRunner {
+
+    private final JdbcTemplate jdbc;
+    private final ContadoresFacturacion contadoresFacturacion;
+    private final IndiceTrigramasClientes indiceClientes;
+    private final EntityManagerFactory entityManagerFactory;
+    private final GeneradorDatosSinteticos generador;
+    private final GeneradorDatosSinteticos.Volumen volumen;
+    private final boolean reemplazar;
+
+    public CargaDatosSinteticos(JdbcTemplate jdbc, ContadoresFacturacion contadoresFacturacion,
+                                IndiceTrigramasClientes indiceClientes, EntityManagerFactory entityManagerFactory,
+                                @Value("${facturacion.datos.semilla:20250101}") long semilla,
+                                @Value("${facturacion.datos.productos:500}") int productos,
+                                @Value("${facturacion.datos.clientes:50000}") int clientes,
+                                @Value("${facturacion.datos.servicios:1000000}") int servicios,
+                                @Value("${facturacion.datos.proporcion-facturada:0.9}") double proporcionFacturada,
+                                @Value("${facturacion.datos.desde:2021-01-01}") String desde,
+                                @Value("${facturacion.datos.hasta:2025-12-31}") String hasta,
+                                @Value("${facturacion.datos.tamano-lote:5000}") int tamanoLote,
+                                @Value("${facturacion.datos.reemplazar:false}") boolean reemplazar) {
+        this.jdbc = jdbc;
+        this.contadoresFacturacion = contadoresFacturacion;
+        this.indiceClientes = indiceClientes;
+        this.entityManagerFactory = entityManagerFactory;
+        this.generador = new GeneradorDatosSinteticos(jdbc, semilla);
+        this.volumen = new GeneradorDatosSinteticos.Volumen(productos, clientes, servicios, proporcionFacturada,
+            LocalDate.parse(desde), LocalDate.parse(hasta), tamanoLote);
+        this.reemplazar = reemplazar;
+    }
+
+    @Override
+    public void run(String... args) {
+        Long existentes = jdbc.queryForObject("SELECT COUNT(*) FROM Servicio", Long.class);
+        if (existentes != null && existentes > 0) {
+            if (!reemplazar) {
+                log.info("La base ya tiene {} servicios; no se generan datos sintéticos (facturacion.datos.reemplazar=true los reemplaza)",
+                    existentes);
+                return;
+            }
+            log.info("Borrando los datos existentes antes de generar");
+            generador.limpiar();
+        }
+        log.info("Generando datos sintéticos: {}", volumen);
+        generador.generar(volumen);
+
+        // Lo que se cargó al arrancar ya no corresponde a la base
+        entityManagerFactory.getCache().evictAll();
+        contadoresFacturacion.recargar();
+        indiceClientes.cargar();
+    }
+}
@@ -0,0 +1,303 @@
+package com.geminiambiental.facturacion.datos;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Genera productos, servicios con sus productos, facturas y detalles con distribuciones parecidas a las
+ * reales: pocos clientes concentran la mayoría de las facturas, los productos más usados se repiten, los
+ * servicios recientes aún no están completados y las facturas antiguas ya se pagaron, vencieron o se
+ * anularon. Con la misma semilla y el mismo volumen produce exactamente las mismas filas.
+ * Las filas se insertan por JDBC en lotes a medida que se generan; en memoria solo quedan los precios
+ * de los productos y la factura en curso.
+ */
+@Slf4j
+public class GeneradorDatosSinteticos {
+
+    private static final String[] UNIDADES = {"Litro", "Kilogramo", "Unidad", "Galón", "Metro"};
+    private static final String[] PRIORIDADES = {"Alta", "Media", "Baja"};
+    private static final int EMPLEADOS = 60;
+    // Servicios con fecha en los últimos días antes del corte que todavía pueden estar sin completar
+    private static final int DIAS_EN_CURSO = 14;
+    private static final int DIAS_VENCIMIENTO = 30;
+    // Con los tipos declarados, los null no obligan al driver a consultar los metadatos de cada parámetro
+    private static final int[] TIPOS_SERVICIO = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DATE, Types.TIME,
+        Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+    private static final int[] TIPOS_FACTURA = {Types.VARCHAR, Types.VARCHAR, Types.DATE, Types.DECIMAL, Types.VARCHAR,
+        Types.VARCHAR, Types.DATE, Types.TIMESTAMP};
+
+    public record Volumen(int productos, int clientes, int servicios, double proporcionFacturada,
+                          LocalDate desde, LocalDate hasta, int tamanoLote) {
+    }
+
+    public record Resumen(long productos, long servicios, long serviciosProducto, long facturas, long detalles,
+                          BigDecimal montoFacturado, long duracionMs) {
+    }
+
+    private final JdbcTemplate jdbc;
+    private final long semilla;
+
+    public GeneradorDatosSinteticos(JdbcTemplate jdbc, long semilla) {
+        this.jdbc = jdbc;
+        this.semilla = semilla;
+    }
+
+    public Resumen generar(Volumen volumen) {
+        if (volumen.productos() < 1 || volumen.clientes() < 1 || volumen.servicios() < 0 || volumen.tamanoLote() < 1
+                || volumen.hasta().isBefore(volumen.desde())) {
+            throw new IllegalArgumentException("Volumen de datos sintéticos inválido: " + volumen);
+        }
+        long inicio = System.nanoTime();
+        Generacion generacion = new Generacion(volumen, new SplittableRandom(semilla));
+        generacion.productos();
+        generacion.servicios();
+        Resumen resumen = new Resumen(volumen.productos(), volumen.servicios(), generacion.serviciosProducto,
+            generacion.facturas, generacion.detalles, BigDecimal.valueOf(generacion.montoCentavos, 2),
+            (System.nanoTime() - inicio) / 1_000_000);
+        log.info("Datos sintéticos generados con semilla {}: {}", semilla, resumen);
+        return resumen;
+    }
+
+    // Borra todas las filas que genera, de los hijos a los padres
+    public void limpiar() {
+        for (String tabla : List.of("detalle_factura", "Factura", "servicio_producto", "Servicio", "Producto",
+                "secuencia_factura", "clave_idempotencia")) {
+            jdbc.update("DELETE FROM " + tabla);
+        }
+    }
+
+    // Estado de una generación: el azar y los lotes pendientes de insertar
+    private final class Generacion {
+
+        private final Volumen volumen;
+        private final SplittableRandom azar;
+        private final long dias;
+        private final LocalDate inicioEnCurso;
+        private final Map<Integer, Integer> consecutivoPorAnio = new HashMap<>();
+        private long[] preciosCentavos;
+
+        private final List<Object[]> filasServicios = new ArrayList<>();
+        private final List<Object[]> filasServiciosProducto = new ArrayList<>();
+        private final List<Object[]> filasFacturas = new ArrayList<>();
+        private final List<Object[]> filasDetalles = new ArrayList<>();
+
+        private FacturaEnCurso enCurso;
+        private long serviciosProducto;
+        private long facturas;
+        private long detalles;
+        private long montoCentavos;
+
+        private Generacion(Volumen volumen, SplittableRandom azar) {
+            this.volumen = volumen;
+            this.azar = azar;
+            this.dias = ChronoUnit.DAYS.between(volumen.desde(), volumen.hasta()) + 1;
+            this.inicioEnCurso = volumen.hasta().minusDays(DIAS_EN_CURSO);
+        }
+
+        private void productos() {
+            preciosCentavos = new long[volumen.productos()];
+            List<Object[]> filas = new ArrayList<>(Math.min(volumen.productos(), volumen.tamanoLote()));
+            for (int i = 0; i < volumen.productos(); i++) {
+                // Log-uniforme entre 5.000 y 800.000 pesos, redondeado a la centena
+                double pesos = 5_000 * Math.pow(160, azar.nextDouble());
+                preciosCentavos[i] = Math.round(pesos / 100) * 100 * 100;
+                filas.add(new Object[]{idProducto(i), "Producto " + (i + 1), BigDecimal.valueOf(preciosCentavos[i], 2),
+                    azar.nextInt(500), UNIDADES[azar.nextInt(UNIDADES.length)]});
+                if (filas.size() == volumen.tamanoLote()) {
+                    insertarProductos(filas);
+                }
+            }
+            insertarProductos(filas);
+        }
+
+        private void servicios() {
+            for (int i = 0; i < volumen.servicios(); i++) {
+                // Fechas crecientes a lo largo del rango, así la numeración de facturas sigue el calendario
+                LocalDate fecha = volumen.desde().plusDays(i * dias / volumen.servicios());
+                String estado = estadoServicio(fecha);
+                String idServicio = String.format("SRV-%08d", i);
+                long precioCentavos = productosDelServicio(idServicio);
+
+                String idFactura = null;
+                if (estado.equals("COMPLETADO") && azar.nextDouble() < volumen.proporcionFacturada()) {
+                    idFactura = facturar(idServicio, fecha, precioCentavos);
+                }
+                filasServicios.add(new Object[]{idServicio, String.format("COT-%08d", i),
+                    String.format("EMP-%03d", 1 + azar.nextInt(EMPLEADOS)), Date.valueOf(fecha),
+                    Time.valueOf(LocalTime.of(7 + azar.nextInt(11), azar.nextInt(4) * 15)), (1 + azar.nextInt(8)) + " horas",
+                    null, PRIORIDADES[azar.nextInt(PRIORIDADES.length)], estado, idFactura});
+
+                if (enCurso == null && filasServicios.size() >= volumen.tamanoLote()) {
+                    insertarLotes();
+                }
+            }
+            cerrarFactura();
+            insertarLotes();
+        }
+
+        private String estadoServicio(LocalDate fecha) {
+            double p = azar.nextDouble();
+            if (!fecha.isBefore(inicioEnCurso)) {
+                return p < 0.3 ? "COMPLETADO" : p < 0.8 ? "PROGRAMADO" : "EN_PROGRESO";
+            }
+            return p < 0.9 ? "COMPLETADO" : p < 0.96 ? "CANCELADO" : p < 0.98 ? "PROGRAMADO" : "EN_PROGRESO";
+        }
+
+        // De 1 a 6 productos distintos, con preferencia por los de índice bajo; devuelve el precio del servicio
+        private long productosDelServicio(String idServicio) {
+            int cantidadProductos = 1;
+            while (cantidadProductos < Math.min(6, volumen.productos()) && azar.nextDouble() < 0.45) {
+                cantidadProductos++;
+            }
+            int[] elegidos = new int[cantidadProductos];
+            long precio = 0;
+            for (int j = 0; j < cantidadProductos; j++) {
+                int producto = sesgado(volumen.productos(), 2);
+                while (contiene(elegidos, j, producto)) {
+                    producto = (producto + 1) % volumen.productos();
+                }
+                elegidos[j] = producto;
+                int cantidad = 1 + (int) (4 * Math.pow(azar.nextDouble(), 2));
+                precio += preciosCentavos[producto] * cantidad;
+                filasServiciosProducto.add(new Object[]{idServicio, idProducto(producto), cantidad,
+                    BigDecimal.valueOf(preciosCentavos[producto], 2)});
+            }
+            serviciosProducto += cantidadProductos;
+            return precio;
+        }
+
+        // Agrupa de 1 a 3 servicios consecutivos por factura
+        private String facturar(String idServicio, LocalDate fecha, long precioCentavos) {
+            if (enCurso == null) {
+                double p = azar.nextDouble();
+                int servicios = p < 0.7 ? 1 : p < 0.9 ? 2 : 3;
+                LocalDate emision = fecha.plusDays(azar.nextInt(8));
+                if (emision.isAfter(volumen.hasta())) {
+                    emision = volumen.hasta();
+                }
+                int numero = consecutivoPorAnio.merge(emision.getYear(), 1, Integer::sum);
+                String idFactura = String.format("F-%d-%03d", emision.getYear(), numero);
+                enCurso = new FacturaEnCurso(idFactura, cliente(), emision, servicios, estadoFactura(emision));
+            }
+            FacturaEnCurso factura = enCurso;
+            factura.montoCentavos += precioCentavos;
+            BigDecimal precio = BigDecimal.valueOf(precioCentavos, 2);
+            factura.detalles.add(new Object[]{factura.idFactura, idServicio, precio, 1, precio});
+            if (factura.detalles.size() == factura.servicios) {
+                cerrarFactura();
+            }
+            // Las facturas anuladas liberan sus servicios
+            return factura.estado.equals("Anulada") ? null : factura.idFactura;
+        }
+
+        private void cerrarFactura() {
+            if (enCurso == null) {
+                return;
+            }
+            FacturaEnCurso factura = enCurso;
+            LocalDate vencimiento = factura.emision.plusDays(DIAS_VENCIMIENTO);
+            Timestamp fechaPago = null;
+            if (factura.estado.equals("Pagada")) {
+                LocalDate pago = factura.emision.plusDays(azar.nextInt(DIAS_VENCIMIENTO + 1));
+                if (pago.isAfter(volumen.hasta())) {
+                    pago = volumen.hasta();
+                }
+                fechaPago = Timestamp.valueOf(pago.atTime(8 + azar.nextInt(10), azar.nextInt(60)));
+            }
+            String observaciones = factura.estado.equals("Anulada") ? "\nANULADA: Datos sintéticos" : null;
+            filasFacturas.add(new Object[]{factura.idFactura, factura.dniCliente, Date.valueOf(factura.emision),
+                BigDecimal.valueOf(factura.montoCentavos, 2), factura.estado, observaciones, Date.valueOf(vencimiento),
+                fechaPago});
+            filasDetalles.addAll(factura.detalles);
+            facturas++;
+            detalles += factura.detalles.size();
+            montoCentavos += factura.montoCentavos;
+            enCurso = null;
+        }
+
+        private String estadoFactura(LocalDate emision) {
+            double p = azar.nextDouble();
+            if (emision.plusDays(DIAS_VENCIMIENTO).isBefore(volumen.hasta())) {
+                return p < 0.75 ? "Pagada" : p < 0.92 ? "Vencida" : "Anulada";
+            }
+            return p < 0.85 ? "Pendiente" : p < 0.95 ? "Pagada" : "Anulada";
+        }
+
+        // Potencia de un uniforme: con exponente 3 el 10% de los clientes concentra cerca de la mitad de las facturas
+        private String cliente() {
+            int indice = sesgado(volumen.clientes(), 3);
+            return String.format("%08d", 10_000_000 + (indice * 7_919L) % 90_000_000);
+        }
+
+        private int sesgado(int cantidad, int exponente) {
+            return Math.min(cantidad - 1, (int) (cantidad * Math.pow(azar.nextDouble(), exponente)));
+        }
+
+        private void insertarProductos(List<Object[]> filas) {
+            jdbc.batchUpdate("INSERT INTO Producto (ID_producto, nombre, precio_actual, stock, unidad_medida) "
+                + "VALUES (?, ?, ?, ?, ?)", filas);
+            filas.clear();
+        }
+
+        // En orden de dependencias; la factura en curso todavía no tiene filas en los lotes
+        private void insertarLotes() {
+            jdbc.batchUpdate("INSERT INTO Servicio (ID_servicio, ID_cotizacion, DNI_empleado_asignado, fecha, hora, "
+                + "duracion_estimada, observaciones, prioridad, estado, ID_factura) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                filasServicios, TIPOS_SERVICIO);
+            jdbc.batchUpdate("INSERT INTO servicio_producto (ID_servicio, ID_producto, cantidad, precio_actual) "
+                + "VALUES (?, ?, ?, ?)", filasServiciosProducto);
+            jdbc.batchUpdate("INSERT INTO Factura (ID_factura, DNI_cliente, fecha_emision, monto_total, estado, "
+                + "observaciones, fecha_vencimiento, fecha_pago) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", filasFacturas, TIPOS_FACTURA);
+            jdbc.batchUpdate("INSERT INTO detalle_factura (ID_factura, ID_servicio, precio_unitario, cantidad, subtotal) "
+                + "VALUES (?, ?, ?, ?, ?)", filasDetalles);
+            filasServicios.clear();
+            filasServiciosProducto.clear();
+            filasFacturas.clear();
+            filasDetalles.clear();
+        }
+    }
+
+    private static final class FacturaEnCurso {
+        private final String idFactura;
+        private final String dniCliente;
+        private final LocalDate emision;
+        private final int servicios;
+        private final String estado;
+        private final List<Object[]> detalles = new ArrayList<>(3);
+        private long montoCentavos;
+
+        private FacturaEnCurso(String idFactura, String dniCliente, LocalDate emision, int servicios, String estado) {
+            this.idFactura = idFactura;
+            this.dniCliente = dniCliente;
+            this.emision = emision;
+            this.servicios = servicios;
+            this.estado = estado;
+        }
+    }
+
+    private static boolean contiene(int[] elegidos, int cantidad, int producto) {
+        for (int i = 0; i < cantidad; i++) {
+            if (elegidos[i] == producto) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String idProducto(int indice) {
+        return String.format("PRD-%05d", indice);
+    }
+}
@@ -0,0 +1,24 @@
+package com.geminiambiental.facturacion.dto;
+
+import com.geminiambiental.facturacion.entity.Factura;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Una fila del agregado de facturas: cantidad y monto por estado, separando las pendientes ya
+ * vencidas. dniCliente solo viene informado en el desglose por cliente.
+ */
+@Data
+@AllArgsConstructor
+public class AgregadoFacturasDTO {
+    private String dniCliente;
+    private Factura.EstadoFactura estado;
+    private boolean vencida;
+    private long cantidad;
+    private BigDecimal monto;
+    
+    public AgregadoFacturasDTO(Factura.EstadoFactura estado, boolean vencida, long cantidad, BigDecimal monto) {
+        this(null, estado, vencida, cantidad, monto);
+    }
+}
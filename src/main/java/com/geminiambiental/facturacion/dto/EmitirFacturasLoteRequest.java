@@ -0,0 +1,22 @@
+package com.geminiambiental.facturacion.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmitirFacturasLoteRequest {
+    
+    // Cada grupo se valida por separado para poder reportar el resultado por factura
+    @JsonProperty("facturas")
+    @NotNull(message = "La lista de facturas es requerida")
+    @NotEmpty(message = "Debe incluir al menos una factura")
+    private List<EmitirFacturaRequest> facturas;
+}
@@ -0,0 +1,13 @@
+package com.geminiambiental.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasClienteDTO {
+    private String dniCliente;
+    private EstadisticasFacturacionDTO estadisticas;
+}
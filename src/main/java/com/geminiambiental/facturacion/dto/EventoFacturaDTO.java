@@ -0,0 +1,25 @@
+package com.geminiambiental.facturacion.dto;
+
+import com.geminiambiental.facturacion.entity.EventoFactura;
+import com.geminiambiental.facturacion.entity.Factura;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoFacturaDTO {
+    private Long idEvento;
+    private String idFactura;
+    private EventoFactura.TipoEvento tipo;
+    private Factura.EstadoFactura estadoAnterior;
+    private Factura.EstadoFactura estadoNuevo;
+    private String dniCliente;
+    private BigDecimal montoTotal;
+    private LocalDate fechaVencimiento;
+    private LocalDateTime fechaEvento;
+}
@@ -1,12 +1,15 @@
 package com.geminiambiental.facturacion.dto;
 
+import com.geminiambiental.facturacion.entity.Factura;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class FacturaDTO {
     private String idFactura;
     private String dniCliente;
@@ -19,4 +22,17 @@ public class FacturaDTO {
     private String observaciones;
     private String tipoServicio;
     private List<DetalleFacturaDTO> detalles;
+    
+    // Proyección del encabezado en consultas de listado (sin detalles)
+    public FacturaDTO(String idFactura, String dniCliente, LocalDate fechaEmision, LocalDate fechaVencimiento,
+                      LocalDateTime fechaPago, BigDecimal montoTotal, Factura.EstadoFactura estado, String observaciones) {
+        this.idFactura = idFactura;
+        this.dniCliente = dniCliente;
+        this.fechaEmision = fechaEmision;
+        this.fechaVencimiento = fechaVencimiento;
+        this.fechaPago = fechaPago;
+        this.montoTotal = montoTotal;
+        this.estado = estado.name();
+        this.observaciones = observaciones;
+    }
 }
\ No newline at end of file
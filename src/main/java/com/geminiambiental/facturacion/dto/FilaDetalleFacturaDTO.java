@@ -0,0 +1,18 @@
+package com.geminiambiental.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+
+/**
+ * Fila de detalle_factura con su factura, para repartir los detalles de una página entre sus facturas.
+ */
+@Data
+@AllArgsConstructor
+public class FilaDetalleFacturaDTO {
+    private String idFactura;
+    private String idServicio;
+    private BigDecimal precioUnitario;
+    private Integer cantidad;
+    private BigDecimal subtotal;
+}
@@ -0,0 +1,31 @@
+package com.geminiambiental.facturacion.dto;
+
+import com.geminiambiental.facturacion.entity.Servicio;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Fila plana servicio + servicio_producto + producto. Un servicio con N productos llega como N filas
+ * (o una fila con los campos de producto en null si no tiene productos).
+ */
+@Data
+@AllArgsConstructor
+public class FilaServicioParaFacturarDTO {
+    private String idServicio;
+    private String idCotizacion;
+    private String dniEmpleadoAsignado;
+    private LocalDate fecha;
+    private LocalTime hora;
+    private String duracionEstimada;
+    private String observaciones;
+    private String prioridad;
+    private Servicio.EstadoServicio estado;
+    private String idProducto;
+    private String nombreProducto;
+    private String unidadMedida;
+    private Integer cantidad;
+    private BigDecimal precioUnitario;
+}
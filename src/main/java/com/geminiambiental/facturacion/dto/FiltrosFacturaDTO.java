@@ -14,4 +14,9 @@ public class FiltrosFacturaDTO {
     private int size = 10;
     private String sortBy = "fechaEmision";
     private String sortDir = "DESC";
+    // false para listados que no muestran los detalles
+    private boolean incluirDetalles = true;
+    // Solo para paginación por cursor
+    private String cursor;
+    private boolean incluirTotal = false;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.geminiambiental.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCursorDTO<T> {
+    private List<T> content;
+    private int size;
+    // Token opaco para pedir la página siguiente; null cuando no hay más resultados
+    private String siguienteCursor;
+    // Solo se calcula si se pide incluirTotal=true
+    private Long totalElements;
+}
@@ -0,0 +1,61 @@
+package com.geminiambiental.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ResultadoConciliacionDTO {
+    private long lineas;
+    private long conciliadas;
+    private long conciliadasPorId;
+    private long conciliadasPorMonto;
+    private BigDecimal montoConciliado = BigDecimal.ZERO;
+    // Débitos y montos en cero, que no son pagos
+    private long ignoradas;
+    private long sinCoincidencia;
+    private long ambiguas;
+    private long montoDistinto;
+    private long duplicadas;
+    private long rechazadas;
+    private long invalidas;
+    private long duracionMs;
+    // Solo las primeras facturacion.conciliacion.max-incidencias; el resto se cuenta en incidenciasOmitidas
+    private List<IncidenciaDTO> incidencias = new ArrayList<>();
+    private long incidenciasOmitidas;
+
+    public enum Motivo {
+        // Ninguna factura pendiente coincide con la referencia o con cliente y monto
+        SIN_COINCIDENCIA,
+        // Varias facturas pendientes del cliente por el mismo monto
+        AMBIGUA,
+        // La referencia coincide pero el monto no
+        MONTO_DISTINTO,
+        // La factura ya se concilió con una línea anterior del extracto
+        DUPLICADA,
+        // La factura dejó de estar pendiente o la fecha es futura al momento de pagarla
+        RECHAZADA,
+        // La línea no se pudo leer
+        INVALIDA
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IncidenciaDTO {
+        private long linea;
+        private Motivo motivo;
+        private LocalDate fecha;
+        private String referencia;
+        private String dniCliente;
+        private BigDecimal monto;
+        // Facturas que coinciden, para las ambiguas y las rechazadas
+        private List<String> facturas;
+        private String detalle;
+    }
+}
@@ -0,0 +1,25 @@
+package com.geminiambiental.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoEmisionDTO {
+    private int indice;
+    private List<String> idsServicios;
+    private boolean exitosa;
+    private FacturaDTO factura;
+    private String error;
+    
+    public static ResultadoEmisionDTO exitosa(int indice, List<String> idsServicios, FacturaDTO factura) {
+        return new ResultadoEmisionDTO(indice, idsServicios, true, factura, null);
+    }
+    
+    public static ResultadoEmisionDTO fallida(int indice, List<String> idsServicios, String error) {
+        return new ResultadoEmisionDTO(indice, idsServicios, false, null, error);
+    }
+}
@@ -0,0 +1,33 @@
+package com.geminiambiental.facturacion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ResultadoProcesoVencidasDTO {
+    // Se marcan las pendientes con fecha de vencimiento anterior a esta fecha
+    private LocalDate fechaCorte;
+    private long facturasProcesadas;
+    private BigDecimal montoProcesado = BigDecimal.ZERO;
+    private long duracionMs;
+    private List<ChunkProcesadoDTO> chunks = new ArrayList<>();
+    
+    public ResultadoProcesoVencidasDTO(LocalDate fechaCorte) {
+        this.fechaCorte = fechaCorte;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChunkProcesadoDTO {
+        private int numero;
+        private int facturas;
+        private long duracionMs;
+    }
+}
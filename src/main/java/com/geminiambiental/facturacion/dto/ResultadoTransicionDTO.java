@@ -0,0 +1,28 @@
+package com.geminiambiental.facturacion.dto;
+
+import com.geminiambiental.facturacion.entity.Factura;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoTransicionDTO {
+    private int indice;
+    private String idFactura;
+    private boolean exitosa;
+    // Estado en que estaba la factura; null si no existe
+    private Factura.EstadoFactura estadoAnterior;
+    private Factura.EstadoFactura estadoNuevo;
+    private String error;
+    
+    public static ResultadoTransicionDTO exitosa(int indice, String idFactura, Factura.EstadoFactura estadoAnterior,
+                                                 Factura.EstadoFactura estadoNuevo) {
+        return new ResultadoTransicionDTO(indice, idFactura, true, estadoAnterior, estadoNuevo, null);
+    }
+    
+    public static ResultadoTransicionDTO fallida(int indice, String idFactura, Factura.EstadoFactura estado, String error) {
+        return new ResultadoTransicionDTO(indice, idFactura, false, estado, estado, error);
+    }
+}
@@ -0,0 +1,35 @@
+package com.geminiambiental.facturacion.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransicionFacturasLoteRequest {
+    
+    @JsonProperty("idsFacturas")
+    @NotNull(message = "La lista de facturas es requerida")
+    @NotEmpty(message = "Debe incluir al menos una factura")
+    // Un ID vacío no rechaza la petición: se reporta como fallido en su posición, como los demás errores por factura
+    private List<String> idsFacturas;
+    
+    // Solo al pagar: fecha de pago por factura; las que no aparecen se pagan con la fecha actual
+    @JsonProperty("fechasPago")
+    private Map<String, LocalDateTime> fechasPago;
+    
+    // Solo al anular: motivo común y motivos por factura, que tienen prioridad
+    @JsonProperty("motivo")
+    private String motivo;
+    
+    @JsonProperty("motivos")
+    private Map<String, String> motivos;
+}
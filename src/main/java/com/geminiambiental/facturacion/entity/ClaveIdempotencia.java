@@ -0,0 +1,56 @@
+package com.geminiambiental.facturacion.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+import java.time.LocalDateTime;
+
+/**
+ * Clave Idempotency-Key de una emisión ya confirmada, con la respuesta original serializada. Se inserta en
+ * la misma transacción que la factura: si la clave ya existe, la emisión duplicada hace rollback.
+ */
+@Entity
+@Table(name = "clave_idempotencia", indexes = {
+    @Index(name = "idx_clave_idempotencia_fecha", columnList = "fecha_creacion")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaveIdempotencia implements Persistable<String> {
+    
+    @Id
+    @Column(name = "clave", length = 100)
+    private String clave;
+    
+    // SHA-256 de los servicios y las observaciones, para rechazar la misma clave con otro cuerpo
+    @Column(name = "hash_solicitud", nullable = false, length = 64)
+    private String hashSolicitud;
+    
+    @Column(name = "ID_factura", nullable = false, length = 36)
+    private String idFactura;
+    
+    @Column(name = "respuesta", nullable = false, columnDefinition = "TEXT")
+    private String respuesta;
+    
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+    
+    @Override
+    public String getId() {
+        return clave;
+    }
+    
+    // Nunca se actualiza: save() siempre inserta y una clave repetida falla en lugar de hacer merge
+    @Override
+    @Transient
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.geminiambiental.facturacion.util.Dinero;
 import java.math.BigDecimal;
 
 @Entity
@@ -39,7 +40,7 @@ public class DetalleFactura {
     @PreUpdate
     public void calcularSubtotal() {
         if (this.precioUnitario != null && this.cantidad != null) {
-            this.subtotal = this.precioUnitario.multiply(BigDecimal.valueOf(this.cantidad));
+            this.subtotal = Dinero.multiplicar(this.precioUnitario, this.cantidad);
         }
     }
 }
\ No newline at end of file
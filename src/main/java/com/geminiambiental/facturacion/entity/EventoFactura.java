@@ -0,0 +1,83 @@
+package com.geminiambiental.facturacion.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cambio de estado de una factura pendiente de avisar a los demás microservicios (outbox). Se inserta en la
+ * misma transacción que la transición y el relevo lo marca con fecha_publicacion al entregarlo.
+ * ID_evento da el orden de entrega y sirve a los consumidores para descartar repetidos.
+ */
+@Entity
+@Table(name = "evento_factura", indexes = {
+    // Recorrido de los pendientes en orden y purga de los publicados
+    @Index(name = "idx_evento_factura_publicacion", columnList = "fecha_publicacion, ID_evento")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoFactura {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ID_evento")
+    private Long idEvento;
+
+    @Column(name = "ID_factura", nullable = false, length = 36)
+    private String idFactura;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, columnDefinition = "VARCHAR(20)")
+    private TipoEvento tipo;
+
+    // null cuando la factura se acaba de emitir
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_anterior", columnDefinition = "VARCHAR(20)")
+    private Factura.EstadoFactura estadoAnterior;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_nuevo", nullable = false, columnDefinition = "VARCHAR(20)")
+    private Factura.EstadoFactura estadoNuevo;
+
+    @Column(name = "DNI_cliente", nullable = false, length = 20)
+    private String dniCliente;
+
+    @Column(name = "monto_total", nullable = false, precision = 12, scale = 2)
+    private BigDecimal montoTotal;
+
+    @Column(name = "fecha_vencimiento")
+    private LocalDate fechaVencimiento;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    // null mientras el relevo no lo haya entregado
+    @Column(name = "fecha_publicacion")
+    private LocalDateTime fechaPublicacion;
+
+    public enum TipoEvento {
+        EMITIDA, PAGADA, ANULADA, VENCIDA;
+
+        public static TipoEvento de(Factura.EstadoFactura estadoNuevo) {
+            return switch (estadoNuevo) {
+                case Pendiente -> EMITIDA;
+                case Pagada -> PAGADA;
+                case Anulada -> ANULADA;
+                case Vencida -> VENCIDA;
+            };
+        }
+    }
+}
@@ -13,6 +13,7 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
@@ -22,7 +23,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "Factura")
+@Table(name = "Factura", indexes = {
+    // Soporta la paginación por keyset (fecha_emision, ID_factura)
+    @Index(name = "idx_factura_fecha_emision", columnList = "fecha_emision, ID_factura"),
+    // Soporta el recorrido por chunks del proceso de facturas vencidas
+    @Index(name = "idx_factura_estado_vencimiento", columnList = "estado, fecha_vencimiento, ID_factura"),
+    // Búsqueda por los clientes que resuelve el índice de trigramas
+    @Index(name = "idx_factura_dni_cliente", columnList = "DNI_cliente")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
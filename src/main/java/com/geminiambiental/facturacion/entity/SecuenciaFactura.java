@@ -0,0 +1,25 @@
+package com.geminiambiental.facturacion.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "secuencia_factura")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SecuenciaFactura {
+    
+    @Id
+    @Column(name = "anio")
+    private Integer anio;
+    
+    // Último número reservado por algún nodo (no necesariamente emitido)
+    @Column(name = "ultimo_numero", nullable = false)
+    private Long ultimoNumero;
+}
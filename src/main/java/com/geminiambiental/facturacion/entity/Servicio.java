@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
@@ -11,7 +13,12 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 @Entity
-@Table(name = "Servicio")
+@Table(name = "Servicio", indexes = {
+    // Liberación de los servicios al anular una o muchas facturas
+    @Index(name = "idx_servicio_factura", columnList = "ID_factura")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "servicio")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -46,7 +53,12 @@ public class Servicio {
     @Column(name = "estado", nullable = false)
     private EstadoServicio estado = EstadoServicio.PROGRAMADO;
     
+    // Factura activa del servicio. Solo la escribe ReservaServicios por JDBC, así que en la caché puede estar desactualizada
+    @Column(name = "ID_factura", length = 36, insertable = false, updatable = false)
+    private String idFactura;
+    
     @OneToMany(mappedBy = "servicio", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "servicio-productos")
     @JsonManagedReference
     private List<ServicioProducto> productos;
     
@@ -0,0 +1,9 @@
+package com.geminiambiental.facturacion.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Fin del proceso masivo que pasa a Vencida las facturas pendientes con fecha de vencimiento pasada.
+ */
+public record FacturasVencidasProcesadasEvent(long facturasProcesadas, BigDecimal montoProcesado) {
+}
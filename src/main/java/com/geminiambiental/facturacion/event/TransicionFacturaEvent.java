@@ -0,0 +1,17 @@
+package com.geminiambiental.facturacion.event;
+
+import com.geminiambiental.facturacion.entity.Factura;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Cambio de estado de una factura. estadoAnterior es null cuando la factura se acaba de emitir.
+ */
+public record TransicionFacturaEvent(
+    String idFactura,
+    String dniCliente,
+    Factura.EstadoFactura estadoAnterior,
+    Factura.EstadoFactura estadoNuevo,
+    BigDecimal montoTotal,
+    LocalDate fechaVencimiento) {
+}
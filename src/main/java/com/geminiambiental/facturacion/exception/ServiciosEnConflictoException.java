@@ -0,0 +1,19 @@
+package com.geminiambiental.facturacion.exception;
+
+import lombok.Getter;
+import java.util.List;
+
+/**
+ * Servicios que ya tienen una factura activa o que otra emisión está facturando en este momento.
+ * Es un IllegalStateException para que los manejadores existentes respondan 409.
+ */
+@Getter
+public class ServiciosEnConflictoException extends IllegalStateException {
+
+    private final List<String> idsServicios;
+
+    public ServiciosEnConflictoException(String mensaje, List<String> idsServicios) {
+        super(mensaje + ": " + idsServicios);
+        this.idsServicios = List.copyOf(idsServicios);
+    }
+}
@@ -0,0 +1,20 @@
+package com.geminiambiental.facturacion.exception;
+
+import lombok.Getter;
+
+/**
+ * Petición rechazada por el control de admisión porque su compartimento está lleno.
+ * Se responde 503 con Retry-After en lugar de esperar una conexión del pool.
+ */
+@Getter
+public class SobrecargaException extends RuntimeException {
+
+    private final String compartimento;
+    private final int reintentarEnSegundos;
+
+    public SobrecargaException(String compartimento, int reintentarEnSegundos) {
+        super("Servicio sobrecargado (" + compartimento + "), reintente en " + reintentarEnSegundos + " s");
+        this.compartimento = compartimento;
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+}
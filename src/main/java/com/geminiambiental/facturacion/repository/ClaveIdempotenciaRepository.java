@@ -0,0 +1,17 @@
+package com.geminiambiental.facturacion.repository;
+
+import com.geminiambiental.facturacion.entity.ClaveIdempotencia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ClaveIdempotenciaRepository extends JpaRepository<ClaveIdempotencia, String> {
+    
+    @Modifying
+    @Query("DELETE FROM ClaveIdempotencia c WHERE c.fechaCreacion < :limite")
+    int eliminarAnterioresA(@Param("limite") LocalDateTime limite);
+}
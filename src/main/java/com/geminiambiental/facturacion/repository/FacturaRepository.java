@@ -1,17 +1,27 @@
 package com.geminiambiental.facturacion.repository;
 
+import com.geminiambiental.facturacion.dto.AgregadoFacturasDTO;
+import com.geminiambiental.facturacion.dto.FilaDetalleFacturaDTO;
 import com.geminiambiental.facturacion.entity.Factura;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface FacturaRepository extends JpaRepository<Factura, String> {
+public interface FacturaRepository extends JpaRepository<Factura, String>, JpaSpecificationExecutor<Factura> {
     
     @Query("""
         SELECT f FROM Factura f 
@@ -29,6 +39,19 @@ public interface FacturaRepository extends JpaRepository<Factura, String> {
     
     List<Factura> findByEstado(Factura.EstadoFactura estado);
     
+    // Detalles de toda una página de facturas en una sola consulta
+    @Query("""
+        SELECT new com.geminiambiental.facturacion.dto.FilaDetalleFacturaDTO(
+            d.id.idFactura, d.id.idServicio, d.precioUnitario, d.cantidad, d.subtotal) 
+        FROM DetalleFactura d 
+        WHERE d.id.idFactura IN :idsFacturas 
+        ORDER BY d.id.idFactura, d.id.idServicio
+        """)
+    List<FilaDetalleFacturaDTO> findFilasDetalle(@Param("idsFacturas") Collection<String> idsFacturas);
+    
+    @Query("SELECT DISTINCT f.dniCliente FROM Factura f")
+    List<String> findDniClientes();
+    
     List<Factura> findByDniCliente(String dniCliente);
     
     @Query("SELECT COUNT(f) FROM Factura f WHERE f.estado = :estado")
@@ -37,10 +60,78 @@ public interface FacturaRepository extends JpaRepository<Factura, String> {
     @Query("SELECT SUM(f.montoTotal) FROM Factura f WHERE f.estado = :estado")
     java.math.BigDecimal sumMontoByEstado(@Param("estado") Factura.EstadoFactura estado);
     
+    // Estadísticas en una sola pasada: cantidad y monto por estado, con las pendientes vencidas aparte
+    @Query("""
+        SELECT new com.geminiambiental.facturacion.dto.AgregadoFacturasDTO(
+            f.estado,
+            CASE WHEN f.estado = 'Pendiente' AND f.fechaVencimiento < CURRENT_DATE THEN true ELSE false END,
+            COUNT(f), COALESCE(SUM(f.montoTotal), 0))
+        FROM Factura f 
+        WHERE (:dniCliente IS NULL OR f.dniCliente = :dniCliente)
+        AND (:fechaInicio IS NULL OR f.fechaEmision >= :fechaInicio)
+        AND (:fechaFin IS NULL OR f.fechaEmision <= :fechaFin)
+        GROUP BY f.estado, CASE WHEN f.estado = 'Pendiente' AND f.fechaVencimiento < CURRENT_DATE THEN true ELSE false END
+        """)
+    List<AgregadoFacturasDTO> agregarPorEstado(
+        @Param("dniCliente") String dniCliente,
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin);
+    
+    @Query("""
+        SELECT new com.geminiambiental.facturacion.dto.AgregadoFacturasDTO(
+            f.dniCliente, f.estado,
+            CASE WHEN f.estado = 'Pendiente' AND f.fechaVencimiento < CURRENT_DATE THEN true ELSE false END,
+            COUNT(f), COALESCE(SUM(f.montoTotal), 0))
+        FROM Factura f 
+        WHERE (:fechaInicio IS NULL OR f.fechaEmision >= :fechaInicio)
+        AND (:fechaFin IS NULL OR f.fechaEmision <= :fechaFin)
+        GROUP BY f.dniCliente, f.estado, CASE WHEN f.estado = 'Pendiente' AND f.fechaVencimiento < CURRENT_DATE THEN true ELSE false END
+        ORDER BY f.dniCliente
+        """)
+    List<AgregadoFacturasDTO> agregarPorClienteYEstado(
+        @Param("fechaInicio") LocalDate fechaInicio,
+        @Param("fechaFin") LocalDate fechaFin);
+    
+    // Base para reconstruir los contadores en memoria del dashboard
+    @Query("""
+        SELECT f.estado AS estado, f.fechaVencimiento AS fechaVencimiento, 
+               COUNT(f) AS cantidad, SUM(f.montoTotal) AS monto 
+        FROM Factura f 
+        GROUP BY f.estado, f.fechaVencimiento
+        """)
+    List<TotalPorVencimiento> totalizarPorEstadoYVencimiento();
+    
+    interface TotalPorVencimiento {
+        Factura.EstadoFactura getEstado();
+        LocalDate getFechaVencimiento();
+        long getCantidad();
+        java.math.BigDecimal getMonto();
+    }
+    
+    // Siguiente chunk del proceso de vencidas, recorrido por ID para que cada consulta avance
+    @Query("""
+        SELECT f.idFactura FROM Factura f 
+        WHERE f.estado = 'Pendiente' AND f.fechaVencimiento < :fechaCorte AND f.idFactura > :ultimoId 
+        ORDER BY f.idFactura
+        """)
+    List<String> findIdsPendientesVencidas(@Param("fechaCorte") LocalDate fechaCorte,
+                                           @Param("ultimoId") String ultimoId,
+                                           Limit limite);
+    
+    // Se vuelve a exigir Pendiente: una factura pagada entre la consulta y el UPDATE no se toca
+    @Modifying
+    @Query("UPDATE Factura f SET f.estado = 'Vencida' WHERE f.idFactura IN :ids AND f.estado = 'Pendiente'")
+    int marcarVencidas(@Param("ids") Collection<String> ids);
+    
+    @Query("SELECT COALESCE(SUM(f.montoTotal), 0) FROM Factura f WHERE f.idFactura IN :ids AND f.estado = 'Vencida'")
+    BigDecimal sumarMontoVencidas(@Param("ids") Collection<String> ids);
+    
     @Query("SELECT f FROM Factura f WHERE f.fechaVencimiento < CURRENT_DATE AND f.estado = 'Pendiente'")
     List<Factura> findFacturasVencidas();
     
-    // Generar número consecutivo de factura
-    @Query("SELECT COALESCE(MAX(CAST(SUBSTRING(f.idFactura, LOCATE('-', f.idFactura, LOCATE('-', f.idFactura) + 1) + 1) AS int)), 0) FROM Factura f WHERE f.idFactura LIKE CONCAT('F-', YEAR(CURRENT_DATE), '-%')")
-    Integer getMaxNumeroFacturaDelAno();
+    // SELECT ... FOR UPDATE, el mismo lock de fila que toman los lotes y la conciliación: el estado se
+    // valida después de que la otra transición confirmó y no se pisa
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM Factura f WHERE f.idFactura = :idFactura")
+    Optional<Factura> findByIdParaActualizar(@Param("idFactura") String idFactura);
 }
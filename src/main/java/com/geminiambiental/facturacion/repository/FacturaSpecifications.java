@@ -0,0 +1,60 @@
+package com.geminiambiental.facturacion.repository;
+
+import com.geminiambiental.facturacion.entity.Factura;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Mismos filtros que FacturaRepository.findWithFilters, como Specification para poder usar
+ * el scroll por keyset de Spring Data (que no aplica a consultas @Query).
+ */
+public final class FacturaSpecifications {
+    
+    private FacturaSpecifications() {
+    }
+    
+    public static Specification<Factura> conFiltros(String cliente, Factura.EstadoFactura estado,
+                                                    LocalDate fechaInicio, LocalDate fechaFin) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+            if (cliente != null) {
+                predicados.add(cb.like(cb.lower(root.get("dniCliente")), "%" + cliente.toLowerCase() + "%"));
+            }
+            agregarFiltros(predicados, root, cb, estado, fechaInicio, fechaFin);
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+    
+    /**
+     * Igual que conFiltros, pero con los clientes ya resueltos (por el índice de trigramas): el LIKE
+     * con comodín inicial se reemplaza por un IN sobre DNI_cliente, que usa su índice.
+     */
+    public static Specification<Factura> conClientes(Collection<String> dnisClientes, Factura.EstadoFactura estado,
+                                                     LocalDate fechaInicio, LocalDate fechaFin) {
+        return (root, query, cb) -> {
+            List<Predicate> predicados = new ArrayList<>();
+            predicados.add(root.get("dniCliente").in(dnisClientes));
+            agregarFiltros(predicados, root, cb, estado, fechaInicio, fechaFin);
+            return cb.and(predicados.toArray(new Predicate[0]));
+        };
+    }
+    
+    private static void agregarFiltros(List<Predicate> predicados, Root<Factura> root, CriteriaBuilder cb,
+                                       Factura.EstadoFactura estado, LocalDate fechaInicio, LocalDate fechaFin) {
+        if (estado != null) {
+            predicados.add(cb.equal(root.get("estado"), estado));
+        }
+        if (fechaInicio != null) {
+            predicados.add(cb.greaterThanOrEqualTo(root.get("fechaEmision"), fechaInicio));
+        }
+        if (fechaFin != null) {
+            predicados.add(cb.lessThanOrEqualTo(root.get("fechaEmision"), fechaFin));
+        }
+    }
+}
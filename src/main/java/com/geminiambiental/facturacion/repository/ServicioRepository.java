@@ -1,10 +1,12 @@
 package com.geminiambiental.facturacion.repository;
 
+import com.geminiambiental.facturacion.dto.FilaServicioParaFacturarDTO;
 import com.geminiambiental.facturacion.entity.Servicio;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,14 +14,39 @@ public interface ServicioRepository extends JpaRepository<Servicio, String> {
     
     List<Servicio> findByEstado(Servicio.EstadoServicio estado);
     
+    // Facturado = Servicio.ID_factura asignado; al anular la factura se libera (ver ReservaServicios)
     @Query("""
         SELECT s FROM Servicio s 
-        LEFT JOIN DetalleFactura df ON s.idServicio = df.id.idServicio 
-        WHERE df.id.idServicio IS NULL 
+        WHERE s.idFactura IS NULL 
         AND s.estado = 'COMPLETADO'
         """)
     List<Servicio> findServiciosCompletadosSinFacturar();
     
+    // Proyección plana en una sola consulta: evita cargar Servicio.productos y Producto por cada servicio
+    @Query("""
+        SELECT new com.geminiambiental.facturacion.dto.FilaServicioParaFacturarDTO(
+            s.idServicio, s.idCotizacion, s.dniEmpleadoAsignado, s.fecha, s.hora, s.duracionEstimada,
+            s.observaciones, s.prioridad, s.estado, p.idProducto, p.nombre, p.unidadMedida,
+            sp.cantidad, sp.precioActual)
+        FROM Servicio s 
+        LEFT JOIN s.productos sp 
+        LEFT JOIN sp.producto p 
+        WHERE s.estado = 'COMPLETADO' 
+        AND s.idFactura IS NULL
+        """)
+    List<FilaServicioParaFacturarDTO> findFilasServiciosCompletadosSinFacturar();
+    
+    // Proyección escalar: va siempre a la base, la caché de Servicio no ve los UPDATE de ID_factura
+    @Query("SELECT s.idServicio FROM Servicio s WHERE s.idServicio IN :ids AND s.idFactura IS NOT NULL")
+    List<String> findIdsFacturados(@Param("ids") Collection<String> ids);
+    
+    @Query("""
+        SELECT DISTINCT s FROM Servicio s 
+        LEFT JOIN FETCH s.productos 
+        WHERE s.idServicio IN :ids
+        """)
+    List<Servicio> findAllConProductosByIdIn(@Param("ids") Collection<String> ids);
+    
     @Query("""
         SELECT s FROM Servicio s 
         WHERE s.idCotizacion = :idCotizacion 
@@ -1,6 +1,11 @@
 package com.geminiambiental.facturacion.scheduler;
 
+import com.geminiambiental.facturacion.dto.ResultadoProcesoVencidasDTO;
+import com.geminiambiental.facturacion.service.ContadoresFacturacion;
+import com.geminiambiental.facturacion.service.EmisionIdempotente;
 import com.geminiambiental.facturacion.service.FacturacionService;
+import com.geminiambiental.facturacion.service.IndiceTrigramasClientes;
+import com.geminiambiental.facturacion.service.RelevoEventosFactura;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -12,16 +17,79 @@ import org.springframework.stereotype.Component;
 public class ScheduledTasks {
     
     private final FacturacionService facturacionService;
+    private final ContadoresFacturacion contadoresFacturacion;
+    private final IndiceTrigramasClientes indiceClientes;
+    private final EmisionIdempotente emisionIdempotente;
+    private final RelevoEventosFactura relevoEventos;
     
     // Ejecutar todos los días a las 2:00 AM para procesar facturas vencidas
     @Scheduled(cron = "0 0 2 * * ?")
     public void procesarFacturasVencidas() {
         log.info("Iniciando proceso automático de facturas vencidas");
         try {
-            facturacionService.procesarFacturasVencidas();
-            log.info("Proceso de facturas vencidas completado");
+            ResultadoProcesoVencidasDTO resultado = facturacionService.procesarFacturasVencidas();
+            log.info("Proceso de facturas vencidas completado: {} facturas en {} ms",
+                resultado.getFacturasProcesadas(), resultado.getDuracionMs());
         } catch (Exception e) {
             log.error("Error en proceso automático de facturas vencidas", e);
         }
     }
+    
+    // Corrige la deriva de los contadores del dashboard (transiciones hechas por otros nodos, carreras con la recarga)
+    @Scheduled(fixedDelayString = "${facturacion.estadisticas.reconciliacion-ms:300000}",
+               initialDelayString = "${facturacion.estadisticas.reconciliacion-ms:300000}")
+    public void reconciliarContadores() {
+        try {
+            contadoresFacturacion.recargar();
+        } catch (Exception e) {
+            log.error("Error reconciliando los contadores de facturación", e);
+        }
+    }
+    
+    // Recoge clientes de facturas escritas fuera de esta aplicación (cargas directas en la base)
+    @Scheduled(fixedDelayString = "${facturacion.busqueda.indice-clientes.recarga-ms:3600000}",
+               initialDelayString = "${facturacion.busqueda.indice-clientes.recarga-ms:3600000}")
+    public void recargarIndiceClientes() {
+        try {
+            indiceClientes.cargar();
+        } catch (Exception e) {
+            log.error("Error recargando el índice de clientes", e);
+        }
+    }
+    
+    // Las claves de idempotencia solo protegen reintentos durante facturacion.idempotencia.retencion-horas
+    @Scheduled(fixedDelayString = "${facturacion.idempotencia.purga-ms:3600000}",
+               initialDelayString = "${facturacion.idempotencia.purga-ms:3600000}")
+    public void purgarClavesIdempotencia() {
+        try {
+            int eliminadas = emisionIdempotente.purgar();
+            log.info("Claves de idempotencia vencidas eliminadas: {}", eliminadas);
+        } catch (Exception e) {
+            log.error("Error purgando las claves de idempotencia", e);
+        }
+    }
+    
+    // Entrega a los demás microservicios los cambios de estado confirmados desde la última pasada
+    @Scheduled(fixedDelayString = "${facturacion.eventos.relevo.intervalo-ms:1000}")
+    public void relevarEventosFactura() {
+        if (!relevoEventos.isHabilitado()) {
+            return;
+        }
+        try {
+            relevoEventos.drenar();
+        } catch (Exception e) {
+            log.error("Error entregando los eventos de factura", e);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${facturacion.eventos.purga-ms:3600000}",
+               initialDelayString = "${facturacion.eventos.purga-ms:3600000}")
+    public void purgarEventosFactura() {
+        try {
+            int eliminados = relevoEventos.purgar();
+            log.info("Eventos de factura entregados eliminados: {}", eliminados);
+        } catch (Exception e) {
+            log.error("Error purgando los eventos de factura", e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.entity.EventoFactura;
+import com.geminiambiental.facturacion.event.TransicionFacturaEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escribe en evento_factura (outbox) los cambios de estado de las facturas, dentro de la misma transacción
+ * que los produce: si la transacción hace rollback no queda evento, y si confirma el relevo lo entregará.
+ * Los eventos de una transacción se insertan juntos en un batch JDBC justo antes del commit, así la emisión
+ * en lote no paga un INSERT por factura; las vencidas se insertan con un INSERT ... SELECT por chunk.
+ */
+@Component
+public class BandejaEventosFactura {
+
+    private static final String INSERTAR = "INSERT INTO evento_factura (ID_factura, tipo, estado_anterior, estado_nuevo, "
+        + "DNI_cliente, monto_total, fecha_vencimiento, fecha_creacion) VALUES (:idFactura, :tipo, :estadoAnterior, "
+        + ":estadoNuevo, :dniCliente, :montoTotal, :fechaVencimiento, :fechaCreacion)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public BandejaEventosFactura(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    // Síncrono, en el hilo y la transacción de quien publica la transición
+    @EventListener
+    public void alTransicionar(TransicionFacturaEvent evento) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Los eventos de factura solo se registran dentro de una transacción");
+        }
+        pendientesDeLaTransaccion().add(new MapSqlParameterSource()
+            .addValue("idFactura", evento.idFactura())
+            .addValue("tipo", EventoFactura.TipoEvento.de(evento.estadoNuevo()).name())
+            .addValue("estadoAnterior", evento.estadoAnterior() != null ? evento.estadoAnterior().name() : null)
+            .addValue("estadoNuevo", evento.estadoNuevo().name())
+            .addValue("dniCliente", evento.dniCliente())
+            .addValue("montoTotal", evento.montoTotal())
+            .addValue("fechaVencimiento", evento.fechaVencimiento())
+            .addValue("fechaCreacion", LocalDateTime.now()));
+    }
+
+    /**
+     * Un evento VENCIDA por cada factura de la lista que ya quedó en Vencida. Se llama en la transacción
+     * del chunk que las marca.
+     */
+    public int registrarVencidas(List<String> idsFacturas) {
+        return jdbc.update("INSERT INTO evento_factura (ID_factura, tipo, estado_anterior, estado_nuevo, DNI_cliente, "
+            + "monto_total, fecha_vencimiento, fecha_creacion) SELECT ID_factura, 'VENCIDA', 'Pendiente', 'Vencida', "
+            + "DNI_cliente, monto_total, fecha_vencimiento, :ahora FROM Factura WHERE ID_factura IN (:ids) "
+            + "AND estado = 'Vencida' ORDER BY ID_factura", new MapSqlParameterSource()
+                .addValue("ids", idsFacturas)
+                .addValue("ahora", LocalDateTime.now()));
+    }
+
+    // Las sincronizaciones se suspenden con la transacción, así que una REQUIRES_NEW no mezcla sus eventos
+    private List<MapSqlParameterSource> pendientesDeLaTransaccion() {
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof EventosDeLaTransaccion eventos) {
+                return eventos.pendientes;
+            }
+        }
+        EventosDeLaTransaccion eventos = new EventosDeLaTransaccion();
+        TransactionSynchronizationManager.registerSynchronization(eventos);
+        return eventos.pendientes;
+    }
+
+    private class EventosDeLaTransaccion implements TransactionSynchronization {
+
+        private final List<MapSqlParameterSource> pendientes = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // En orden de publicación: los ID_evento siguen el orden de las transiciones
+            jdbc.batchUpdate(INSERTAR, pendientes.toArray(MapSqlParameterSource[]::new));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.geminiambiental.facturacion.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Cachea por unos segundos el total de facturas de cada combinación de filtros, para que recorrer
+ * una búsqueda por cursor no repita el COUNT completo en cada página.
+ */
+@Component
+public class CacheConteoFacturas {
+    
+    private static final int MAX_ENTRADAS = 1000;
+    
+    private final Map<String, Conteo> conteos = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    
+    public CacheConteoFacturas(@Value("${facturacion.busqueda.ttl-conteo-segundos:30}") long ttlSegundos) {
+        this.ttlNanos = ttlSegundos * 1_000_000_000L;
+    }
+    
+    public long obtener(String clave, LongSupplier contar) {
+        long ahora = System.nanoTime();
+        Conteo conteo = conteos.get(clave);
+        if (conteo != null && ahora - conteo.calculadoEn < ttlNanos) {
+            return conteo.total;
+        }
+        if (conteos.size() >= MAX_ENTRADAS) {
+            conteos.clear();
+        }
+        long total = contar.getAsLong();
+        conteos.put(clave, new Conteo(total, ahora));
+        return total;
+    }
+    
+    private record Conteo(long total, long calculadoEn) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.dto.DetalleFacturaDTO;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.dto.FilaServicioParaFacturarDTO;
+import com.geminiambiental.facturacion.dto.ServicioParaFacturarDTO;
+import com.geminiambiental.facturacion.entity.DetalleFactura;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.entity.Servicio;
+import com.geminiambiental.facturacion.entity.ServicioProducto;
+import com.geminiambiental.facturacion.util.Dinero;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Validaciones, precios y conversiones a DTO de FacturacionService que trabajan solo en memoria, sin base
+ * ni estado del servicio. Se miden con JMH en FacturacionServiceBenchmark (perfil jmh).
+ */
+final class CalculosFacturacion {
+
+    private CalculosFacturacion() {
+    }
+
+    static ServicioParaFacturarDTO convertirServicioAFacturarDTO(List<FilaServicioParaFacturarDTO> filas) {
+        FilaServicioParaFacturarDTO servicio = filas.get(0);
+        ServicioParaFacturarDTO dto = new ServicioParaFacturarDTO();
+        dto.setIdServicio(servicio.getIdServicio());
+        dto.setIdCotizacion(servicio.getIdCotizacion());
+        dto.setDniEmpleadoAsignado(servicio.getDniEmpleadoAsignado());
+        dto.setFecha(servicio.getFecha());
+        dto.setHora(servicio.getHora());
+        dto.setDuracionEstimada(servicio.getDuracionEstimada());
+        dto.setObservaciones(servicio.getObservaciones());
+        dto.setPrioridad(servicio.getPrioridad());
+        dto.setEstado(servicio.getEstado().name());
+        
+        // Calcular monto total y productos
+        Dinero montoTotal = Dinero.cero();
+        List<ServicioParaFacturarDTO.ProductoUtilizadoDTO> productosDto = new ArrayList<>(filas.size());
+        
+        for (FilaServicioParaFacturarDTO fila : filas) {
+            // Servicio sin productos: una sola fila con el producto en null
+            if (fila.getIdProducto() != null) {
+                ServicioParaFacturarDTO.ProductoUtilizadoDTO productoDto = 
+                    new ServicioParaFacturarDTO.ProductoUtilizadoDTO();
+                
+                productoDto.setIdProducto(fila.getIdProducto());
+                productoDto.setNombreProducto(fila.getNombreProducto());
+                productoDto.setCantidad(fila.getCantidad());
+                productoDto.setPrecioUnitario(fila.getPrecioUnitario());
+                productoDto.setUnidadMedida(fila.getUnidadMedida());
+                
+                BigDecimal subtotal = Dinero.multiplicar(fila.getPrecioUnitario(), fila.getCantidad());
+                productoDto.setSubtotal(subtotal);
+                
+                productosDto.add(productoDto);
+                montoTotal.sumar(subtotal);
+            }
+        }
+        
+        dto.setProductosUtilizados(productosDto);
+        dto.setMontoTotal(montoTotal.aBigDecimal());
+        
+        return dto;
+    }
+
+    static void validarServiciosParaFacturar(List<String> idsValidos, List<Servicio> servicios) {
+        if (servicios.isEmpty()) {
+            throw new IllegalArgumentException("No se encontraron servicios válidos con los IDs proporcionados: " + idsValidos);
+        }
+        
+        if (servicios.size() != idsValidos.size()) {
+            List<String> idsEncontrados = servicios.stream()
+                .map(Servicio::getIdServicio)
+                .collect(Collectors.toList());
+            List<String> idsNoEncontrados = idsValidos.stream()
+                .filter(id -> !idsEncontrados.contains(id))
+                .collect(Collectors.toList());
+            throw new IllegalArgumentException("No se encontraron los siguientes servicios: " + idsNoEncontrados);
+        }
+        
+        // Verificar que todos los servicios estén completados
+        List<Servicio> serviciosNoCompletados = servicios.stream()
+            .filter(s -> s.getEstado() != Servicio.EstadoServicio.COMPLETADO)
+            .collect(Collectors.toList());
+        
+        if (!serviciosNoCompletados.isEmpty()) {
+            List<String> idsNoCompletados = serviciosNoCompletados.stream()
+                .map(Servicio::getIdServicio)
+                .collect(Collectors.toList());
+            throw new IllegalArgumentException("Los siguientes servicios deben estar completados para facturar: " + idsNoCompletados);
+        }
+    }
+
+    static BigDecimal calcularPrecioServicio(Servicio servicio) {
+        // Calcular precio basado en productos utilizados, en centavos mientras quepa en un long
+        Dinero precio = Dinero.cero();
+        for (ServicioProducto sp : servicio.getProductos()) {
+            precio.sumarProducto(sp.getPrecioActual(), sp.getCantidad());
+        }
+        return precio.aBigDecimal();
+    }
+
+    static FacturaDTO convertirADTO(Factura factura) {
+        FacturaDTO dto = new FacturaDTO();
+        dto.setIdFactura(factura.getIdFactura());
+        dto.setDniCliente(factura.getDniCliente());
+        dto.setNombreCliente(factura.getNombreCliente()); // Campo transient
+        dto.setFechaEmision(factura.getFechaEmision());
+        dto.setFechaVencimiento(factura.getFechaVencimiento());
+        dto.setFechaPago(factura.getFechaPago());
+        dto.setMontoTotal(factura.getMontoTotal());
+        dto.setEstado(factura.getEstado().name());
+        dto.setObservaciones(factura.getObservaciones());
+        dto.setTipoServicio(factura.getTipoServicio()); // Campo transient
+        
+        if (factura.getDetalles() != null) {
+            dto.setDetalles(factura.getDetalles().stream()
+                .map(CalculosFacturacion::convertirDetalleADTO)
+                .collect(Collectors.toList()));
+        }
+        
+        return dto;
+    }
+
+    static DetalleFacturaDTO convertirDetalleADTO(DetalleFactura detalle) {
+        DetalleFacturaDTO dto = new DetalleFacturaDTO();
+        dto.setIdServicio(detalle.getId().getIdServicio());
+        dto.setPrecioUnitario(detalle.getPrecioUnitario());
+        dto.setCantidad(detalle.getCantidad());
+        dto.setSubtotal(detalle.getSubtotal());
+        // dto.setDescripcionServicio() - Se puede agregar consultando el servicio
+        return dto;
+    }
+}
@@ -0,0 +1,407 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.dto.ResultadoConciliacionDTO;
+import com.geminiambiental.facturacion.dto.ResultadoConciliacionDTO.IncidenciaDTO;
+import com.geminiambiental.facturacion.dto.ResultadoConciliacionDTO.Motivo;
+import com.geminiambiental.facturacion.dto.ResultadoTransicionDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Concilia extractos bancarios en CSV contra las facturas pendientes. El extracto se lee línea a línea desde
+ * un canal, sin cargarlo completo; lo único que crece con los datos es el índice en memoria de las facturas
+ * pendientes (por ID y por cliente y monto), que se arma al inicio con una sola consulta. Cada línea se
+ * concilia por el ID de factura que aparezca en la referencia o, si no trae ninguno, por cliente y monto
+ * exacto. Los pagos se aplican cada tamano-lote líneas con TransicionesFacturaLote, que vuelve a validar el
+ * estado bajo lock, así que una factura pagada por otro camino durante la importación se reporta y no se
+ * paga dos veces.
+ */
+@Service
+@Slf4j
+public class ConciliacionBancaria {
+
+    // Formato de GeneradorNumeroFactura
+    private static final Pattern ID_FACTURA = Pattern.compile("\\bF-\\d{4}-\\d+\\b");
+    private static final DateTimeFormatter FECHA_DIA_MES = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final int MAX_CANDIDATAS = 10;
+
+    private final JdbcTemplate lectorPendientes;
+    private final TransicionesFacturaLote transicionesLote;
+    private final int tamanoLote;
+    private final int maxIncidencias;
+
+    public ConciliacionBancaria(DataSource dataSource, TransicionesFacturaLote transicionesLote,
+                                @Value("${facturacion.conciliacion.tamano-lote:500}") int tamanoLote,
+                                @Value("${facturacion.conciliacion.max-incidencias:1000}") int maxIncidencias) {
+        // Propio para leer las pendientes por cursor sin cambiar el fetch size del JdbcTemplate compartido
+        this.lectorPendientes = new JdbcTemplate(dataSource);
+        this.lectorPendientes.setFetchSize(tamanoLote);
+        this.transicionesLote = transicionesLote;
+        this.tamanoLote = tamanoLote;
+        this.maxIncidencias = maxIncidencias;
+    }
+
+    public ResultadoConciliacionDTO conciliar(Path extracto) {
+        try (FileChannel canal = FileChannel.open(extracto, StandardOpenOption.READ)) {
+            return conciliar(canal);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error leyendo el extracto " + extracto, e);
+        }
+    }
+
+    /**
+     * Concilia un extracto con encabezado. Columnas requeridas: fecha (yyyy-MM-dd o dd/MM/yyyy) y monto;
+     * opcionales: referencia y dni_cliente. Separador coma o punto y coma, UTF-8. El canal no se cierra.
+     */
+    public ResultadoConciliacionDTO conciliar(ReadableByteChannel extracto) {
+        long inicio = System.nanoTime();
+        ResultadoConciliacionDTO resultado = new ResultadoConciliacionDTO();
+        IndicePendientes indice = cargarPendientes();
+        Lote lote = new Lote();
+
+        BufferedReader lector = new BufferedReader(Channels.newReader(extracto, StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE), -1), 64 * 1024);
+        try {
+            Columnas columnas = Columnas.de(lector.readLine());
+            String[] campos = new String[columnas.cantidad];
+            long numero = 1;
+            String texto;
+            while ((texto = lector.readLine()) != null) {
+                numero++;
+                if (texto.isBlank()) {
+                    continue;
+                }
+                resultado.setLineas(resultado.getLineas() + 1);
+                conciliarLinea(numero, columnas.leer(texto, campos), indice, lote, resultado);
+                if (lote.ids.size() >= tamanoLote) {
+                    pagar(lote, resultado);
+                }
+            }
+            pagar(lote, resultado);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error leyendo el extracto bancario", e);
+        }
+
+        resultado.setDuracionMs((System.nanoTime() - inicio) / 1_000_000);
+        log.info("Extracto conciliado: {} líneas, {} pagadas, {} sin coincidencia, {} ambiguas, {} rechazadas, {} inválidas en {} ms",
+            resultado.getLineas(), resultado.getConciliadas(), resultado.getSinCoincidencia(), resultado.getAmbiguas(),
+            resultado.getRechazadas(), resultado.getInvalidas(), resultado.getDuracionMs());
+        return resultado;
+    }
+
+    private void conciliarLinea(long numero, Linea linea, IndicePendientes indice, Lote lote,
+                                ResultadoConciliacionDTO resultado) {
+        if (linea.error() != null) {
+            registrar(resultado, new IncidenciaDTO(numero, Motivo.INVALIDA, linea.fecha(), linea.referencia(),
+                linea.dniCliente(), linea.monto(), null, linea.error()));
+            return;
+        }
+        if (linea.monto().signum() <= 0) {
+            resultado.setIgnoradas(resultado.getIgnoradas() + 1);
+            return;
+        }
+        long centavos = linea.centavos();
+
+        if (linea.referencia() != null) {
+            Matcher ids = ID_FACTURA.matcher(linea.referencia());
+            boolean referenciaFactura = false;
+            while (ids.find()) {
+                referenciaFactura = true;
+                Pendiente factura = indice.porId.get(ids.group());
+                if (factura == null) {
+                    continue;
+                }
+                if (factura.conciliada) {
+                    registrar(resultado, incidencia(numero, Motivo.DUPLICADA, linea, List.of(factura.idFactura),
+                        "La factura ya se concilió con la línea " + factura.linea));
+                } else if (factura.centavos != centavos) {
+                    registrar(resultado, incidencia(numero, Motivo.MONTO_DISTINTO, linea, List.of(factura.idFactura),
+                        "Monto de la factura: " + BigDecimal.valueOf(factura.centavos, 2)));
+                } else {
+                    lote.agregar(factura, numero, linea);
+                    resultado.setConciliadasPorId(resultado.getConciliadasPorId() + 1);
+                }
+                return;
+            }
+            // Una referencia a una factura que no está pendiente no se reasigna a otra por monto
+            if (referenciaFactura) {
+                registrar(resultado, incidencia(numero, Motivo.SIN_COINCIDENCIA, linea, null,
+                    "La factura referenciada no está pendiente"));
+                return;
+            }
+        }
+
+        if (linea.dniCliente() == null) {
+            registrar(resultado, incidencia(numero, Motivo.SIN_COINCIDENCIA, linea, null,
+                "Sin referencia a una factura ni cliente"));
+            return;
+        }
+        List<Pendiente> candidatas = new ArrayList<>(2);
+        for (Pendiente factura : indice.porClienteYMonto.getOrDefault(IndicePendientes.clave(linea.dniCliente(), centavos), List.of())) {
+            if (!factura.conciliada) {
+                candidatas.add(factura);
+            }
+        }
+        if (candidatas.size() == 1) {
+            lote.agregar(candidatas.get(0), numero, linea);
+            resultado.setConciliadasPorMonto(resultado.getConciliadasPorMonto() + 1);
+        } else if (candidatas.isEmpty()) {
+            registrar(resultado, incidencia(numero, Motivo.SIN_COINCIDENCIA, linea, null,
+                "Ninguna factura pendiente del cliente por ese monto"));
+        } else {
+            registrar(resultado, incidencia(numero, Motivo.AMBIGUA, linea,
+                candidatas.stream().limit(MAX_CANDIDATAS).map(factura -> factura.idFactura).toList(),
+                candidatas.size() + " facturas pendientes del cliente por ese monto"));
+        }
+    }
+
+    private void pagar(Lote lote, ResultadoConciliacionDTO resultado) {
+        if (lote.ids.isEmpty()) {
+            return;
+        }
+        List<ResultadoTransicionDTO> pagos = transicionesLote.marcarComoPagadas(lote.ids, lote.fechasPago);
+        for (int i = 0; i < pagos.size(); i++) {
+            ResultadoTransicionDTO pago = pagos.get(i);
+            Linea linea = lote.lineas.get(i);
+            if (pago.isExitosa()) {
+                resultado.setConciliadas(resultado.getConciliadas() + 1);
+                resultado.setMontoConciliado(resultado.getMontoConciliado().add(linea.monto()));
+            } else {
+                registrar(resultado, incidencia(lote.numeros.get(i), Motivo.RECHAZADA, linea, List.of(pago.getIdFactura()),
+                    pago.getError()));
+            }
+        }
+        lote.limpiar();
+    }
+
+    private void registrar(ResultadoConciliacionDTO resultado, IncidenciaDTO incidencia) {
+        switch (incidencia.getMotivo()) {
+            case SIN_COINCIDENCIA -> resultado.setSinCoincidencia(resultado.getSinCoincidencia() + 1);
+            case AMBIGUA -> resultado.setAmbiguas(resultado.getAmbiguas() + 1);
+            case RECHAZADA -> resultado.setRechazadas(resultado.getRechazadas() + 1);
+            case MONTO_DISTINTO -> resultado.setMontoDistinto(resultado.getMontoDistinto() + 1);
+            case DUPLICADA -> resultado.setDuplicadas(resultado.getDuplicadas() + 1);
+            case INVALIDA -> resultado.setInvalidas(resultado.getInvalidas() + 1);
+        }
+        if (resultado.getIncidencias().size() < maxIncidencias) {
+            resultado.getIncidencias().add(incidencia);
+        } else {
+            resultado.setIncidenciasOmitidas(resultado.getIncidenciasOmitidas() + 1);
+        }
+    }
+
+    private static IncidenciaDTO incidencia(long numero, Motivo motivo, Linea linea, List<String> facturas, String detalle) {
+        return new IncidenciaDTO(numero, motivo, linea.fecha(), linea.referencia(), linea.dniCliente(), linea.monto(),
+            facturas, detalle);
+    }
+
+    private IndicePendientes cargarPendientes() {
+        long inicio = System.nanoTime();
+        IndicePendientes indice = new IndicePendientes();
+        lectorPendientes.query("SELECT ID_factura, DNI_cliente, monto_total FROM Factura WHERE estado = 'Pendiente'", rs -> {
+            indice.agregar(new Pendiente(rs.getString("ID_factura"), rs.getString("DNI_cliente"),
+                rs.getBigDecimal("monto_total").movePointRight(2).longValueExact()));
+        });
+        log.info("Índice de conciliación cargado con {} facturas pendientes en {} ms", indice.porId.size(),
+            (System.nanoTime() - inicio) / 1_000_000);
+        return indice;
+    }
+
+    private static final class Pendiente {
+        private final String idFactura;
+        private final String dniCliente;
+        private final long centavos;
+        // Línea del extracto con la que se concilió, 0 mientras sigue disponible
+        private long linea;
+        private boolean conciliada;
+
+        private Pendiente(String idFactura, String dniCliente, long centavos) {
+            this.idFactura = idFactura;
+            this.dniCliente = dniCliente;
+            this.centavos = centavos;
+        }
+    }
+
+    private static final class IndicePendientes {
+        private final Map<String, Pendiente> porId = new HashMap<>();
+        private final Map<String, List<Pendiente>> porClienteYMonto = new HashMap<>();
+
+        private static String clave(String dniCliente, long centavos) {
+            return dniCliente + '|' + centavos;
+        }
+
+        private void agregar(Pendiente factura) {
+            porId.put(factura.idFactura, factura);
+            porClienteYMonto.computeIfAbsent(clave(factura.dniCliente, factura.centavos), c -> new ArrayList<>(1)).add(factura);
+        }
+    }
+
+    // Pagos acumulados hasta el siguiente llamado a TransicionesFacturaLote
+    private final class Lote {
+        private final List<String> ids = new ArrayList<>(tamanoLote);
+        private final List<Long> numeros = new ArrayList<>(tamanoLote);
+        private final List<Linea> lineas = new ArrayList<>(tamanoLote);
+        private final Map<String, LocalDateTime> fechasPago = new HashMap<>();
+
+        private void agregar(Pendiente factura, long numero, Linea linea) {
+            factura.conciliada = true;
+            factura.linea = numero;
+            ids.add(factura.idFactura);
+            numeros.add(numero);
+            lineas.add(linea);
+            fechasPago.put(factura.idFactura, linea.fecha().atStartOfDay());
+        }
+
+        private void limpiar() {
+            ids.clear();
+            numeros.clear();
+            lineas.clear();
+            fechasPago.clear();
+        }
+    }
+
+    private record Linea(LocalDate fecha, String referencia, String dniCliente, BigDecimal monto, long centavos,
+                         String error) {
+    }
+
+    private record Columnas(char separador, int cantidad, int fecha, int monto, int referencia, int dniCliente) {
+
+        static Columnas de(String encabezado) {
+            if (encabezado == null) {
+                throw new IllegalArgumentException("El extracto está vacío");
+            }
+            if (encabezado.startsWith("\uFEFF")) {
+                encabezado = encabezado.substring(1);
+            }
+            char separador = encabezado.indexOf(';') >= 0 && encabezado.indexOf(',') < 0 ? ';' : ',';
+            String[] nombres = new String[contar(encabezado, separador)];
+            dividir(encabezado, separador, nombres);
+            int fecha = -1, monto = -1, referencia = -1, dniCliente = -1;
+            for (int i = 0; i < nombres.length; i++) {
+                switch (nombres[i] == null ? "" : nombres[i].toLowerCase(Locale.ROOT)) {
+                    case "fecha" -> fecha = i;
+                    case "monto" -> monto = i;
+                    case "referencia" -> referencia = i;
+                    case "dni_cliente", "dni" -> dniCliente = i;
+                    default -> { }
+                }
+            }
+            if (fecha < 0 || monto < 0) {
+                throw new IllegalArgumentException("El extracto debe tener las columnas fecha y monto");
+            }
+            return new Columnas(separador, nombres.length, fecha, monto, referencia, dniCliente);
+        }
+
+        Linea leer(String texto, String[] campos) {
+            if (dividir(texto, separador, campos) < cantidad) {
+                return new Linea(null, null, null, null, 0, "Se esperaban " + cantidad + " columnas");
+            }
+            String valorReferencia = referencia >= 0 ? campos[referencia] : null;
+            String valorDni = dniCliente >= 0 ? campos[dniCliente] : null;
+            LocalDate valorFecha;
+            BigDecimal valorMonto;
+            long valorCentavos;
+            try {
+                valorFecha = leerFecha(campos[fecha]);
+            } catch (DateTimeParseException | NullPointerException e) {
+                return new Linea(null, valorReferencia, valorDni, null, 0, "Fecha inválida: " + campos[fecha]);
+            }
+            try {
+                valorMonto = leerMonto(campos[monto]);
+                // Un monto que no cabe en un long de centavos también lanza ArithmeticException
+                valorCentavos = valorMonto.movePointRight(2).longValueExact();
+            } catch (ArithmeticException | NumberFormatException | NullPointerException e) {
+                return new Linea(valorFecha, valorReferencia, valorDni, null, 0, "Monto inválido: " + campos[monto]);
+            }
+            return new Linea(valorFecha, valorReferencia, valorDni, valorMonto, valorCentavos, null);
+        }
+
+        private static LocalDate leerFecha(String texto) {
+            return texto.indexOf('/') >= 0 ? LocalDate.parse(texto, FECHA_DIA_MES) : LocalDate.parse(texto);
+        }
+
+        // Punto decimal, o coma decimal si no hay punto (extractos con separador punto y coma)
+        private static BigDecimal leerMonto(String texto) {
+            String normalizado = texto.replace(" ", "");
+            if (normalizado.indexOf('.') < 0) {
+                normalizado = normalizado.replace(',', '.');
+            } else {
+                normalizado = normalizado.replace(",", "");
+            }
+            BigDecimal monto = new BigDecimal(normalizado);
+            // Más de dos decimales no es un monto en pesos; setScale lanza ArithmeticException
+            return monto.setScale(2);
+        }
+
+        private static int contar(String texto, char separador) {
+            String[] campos = new String[texto.length() + 1];
+            return dividir(texto, separador, campos);
+        }
+
+        /**
+         * Separa una línea CSV con comillas dobles opcionales ("" dentro de comillas es una comilla) en campos,
+         * sin espacios al borde y null si están vacíos. Devuelve cuántos campos tenía la línea; los que no caben
+         * en el arreglo se descartan.
+         */
+        private static int dividir(String texto, char separador, String[] campos) {
+            StringBuilder campo = new StringBuilder();
+            int cantidad = 0;
+            boolean entreComillas = false;
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                if (entreComillas) {
+                    if (c == '"' && i + 1 < texto.length() && texto.charAt(i + 1) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        entreComillas = false;
+                    } else {
+                        campo.append(c);
+                    }
+                } else if (c == '"') {
+                    entreComillas = true;
+                } else if (c == separador) {
+                    cantidad = guardar(campos, cantidad, campo);
+                } else {
+                    campo.append(c);
+                }
+            }
+            return guardar(campos, cantidad, campo);
+        }
+
+        private static int guardar(String[] campos, int cantidad, StringBuilder campo) {
+            if (cantidad < campos.length) {
+                String valor = campo.toString().trim();
+                campos[cantidad] = valor.isEmpty() ? null : valor;
+            }
+            campo.setLength(0);
+            return cantidad + 1;
+        }
+    }
+}
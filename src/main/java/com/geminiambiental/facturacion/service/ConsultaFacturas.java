@@ -0,0 +1,94 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.dto.DetalleFacturaDTO;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.dto.FilaDetalleFacturaDTO;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.repository.FacturaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo de lectura de los listados de facturas. Los encabezados se proyectan directamente a FacturaDTO
+ * (sin entidades ni colecciones lazy) y los detalles de toda la página se traen con un solo IN, así que
+ * una página cuesta un número fijo de consultas sin importar cuántas facturas tenga.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConsultaFacturas {
+
+    // Límite de parámetros por consulta IN
+    private static final int TAMANO_CONSULTA_IN = 1000;
+
+    private final EntityManager entityManager;
+    private final FacturaRepository facturaRepository;
+
+    public Page<FacturaDTO> buscar(Specification<Factura> especificacion, Pageable pageable, boolean incluirDetalles) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FacturaDTO> consulta = cb.createQuery(FacturaDTO.class);
+        Root<Factura> root = consulta.from(Factura.class);
+        consulta.select(cb.construct(FacturaDTO.class,
+                root.get("idFactura"), root.get("dniCliente"), root.get("fechaEmision"), root.get("fechaVencimiento"),
+                root.get("fechaPago"), root.get("montoTotal"), root.get("estado"), root.get("observaciones")))
+            .where(especificacion.toPredicate(root, consulta, cb))
+            .orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        List<FacturaDTO> facturas = entityManager.createQuery(consulta)
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(pageable.getPageSize())
+            .getResultList();
+        if (incluirDetalles) {
+            agregarDetalles(facturas);
+        }
+        // El COUNT se omite cuando la página ya permite deducir el total
+        return PageableExecutionUtils.getPage(facturas, pageable, () -> facturaRepository.count(especificacion));
+    }
+
+    /**
+     * Convierte facturas ya cargadas sin tocar su colección de detalles.
+     */
+    public List<FacturaDTO> convertir(List<Factura> facturas, boolean incluirDetalles) {
+        List<FacturaDTO> dtos = new ArrayList<>(facturas.size());
+        for (Factura factura : facturas) {
+            dtos.add(new FacturaDTO(factura.getIdFactura(), factura.getDniCliente(), factura.getFechaEmision(),
+                factura.getFechaVencimiento(), factura.getFechaPago(), factura.getMontoTotal(), factura.getEstado(),
+                factura.getObservaciones()));
+        }
+        if (incluirDetalles) {
+            agregarDetalles(dtos);
+        }
+        return dtos;
+    }
+
+    private void agregarDetalles(List<FacturaDTO> facturas) {
+        Map<String, FacturaDTO> porId = new HashMap<>();
+        for (FacturaDTO factura : facturas) {
+            factura.setDetalles(new ArrayList<>());
+            porId.put(factura.getIdFactura(), factura);
+        }
+        List<String> ids = new ArrayList<>(porId.keySet());
+        for (int i = 0; i < ids.size(); i += TAMANO_CONSULTA_IN) {
+            for (FilaDetalleFacturaDTO fila : facturaRepository.findFilasDetalle(ids.subList(i, Math.min(i + TAMANO_CONSULTA_IN, ids.size())))) {
+                DetalleFacturaDTO detalle = new DetalleFacturaDTO();
+                detalle.setIdServicio(fila.getIdServicio());
+                detalle.setPrecioUnitario(fila.getPrecioUnitario());
+                detalle.setCantidad(fila.getCantidad());
+                detalle.setSubtotal(fila.getSubtotal());
+                porId.get(fila.getIdFactura()).getDetalles().add(detalle);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.dto.EstadisticasFacturacionDTO;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.event.FacturasVencidasProcesadasEvent;
+import com.geminiambiental.facturacion.event.TransicionFacturaEvent;
+import com.geminiambiental.facturacion.repository.FacturaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores del dashboard mantenidos en memoria. Se reconstruyen desde la base al arrancar y en cada
+ * reconciliación periódica, y entre tanto se ajustan con las transiciones de facturas ya confirmadas.
+ * Los montos se acumulan en centavos sobre LongAdder para no serializar a los hilos que emiten o pagan.
+ * Las pendientes se agrupan por fecha de vencimiento, así "vencidas" se calcula contra la fecha del
+ * día sin esperar a que alguna factura cambie de estado.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContadoresFacturacion {
+
+    // Pendientes sin fecha de vencimiento: nunca cuentan como vencidas
+    private static final LocalDate SIN_VENCIMIENTO = LocalDate.MAX;
+
+    private final FacturaRepository facturaRepository;
+
+    private volatile Contadores contadores;
+
+    public boolean estaInicializado() {
+        return contadores != null;
+    }
+
+    public EstadisticasFacturacionDTO instantanea() {
+        Contadores actuales = contadores;
+        if (actuales == null) {
+            throw new IllegalStateException("Los contadores de facturación aún no se han cargado");
+        }
+        return actuales.aEstadisticas(LocalDate.now());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        recargar();
+    }
+
+    /**
+     * Reconstruye los contadores desde la base y reemplaza los actuales. Una transición que confirme
+     * mientras corre la consulta puede quedar contada dos veces o ninguna; la siguiente reconciliación
+     * lo corrige.
+     */
+    public void recargar() {
+        long inicio = System.nanoTime();
+        Contadores nuevos = new Contadores();
+        for (FacturaRepository.TotalPorVencimiento total : facturaRepository.totalizarPorEstadoYVencimiento()) {
+            nuevos.sumar(total.getEstado(), total.getFechaVencimiento(), total.getCantidad(), centavos(total.getMonto()));
+        }
+
+        Contadores anteriores = contadores;
+        contadores = nuevos;
+        if (anteriores != null && log.isDebugEnabled()) {
+            LocalDate hoy = LocalDate.now();
+            EstadisticasFacturacionDTO antes = anteriores.aEstadisticas(hoy);
+            EstadisticasFacturacionDTO despues = nuevos.aEstadisticas(hoy);
+            if (!antes.equals(despues)) {
+                log.debug("Contadores de facturación corregidos en la reconciliación: {} -> {}", antes, despues);
+            }
+        }
+        log.info("Contadores de facturación cargados en {} ms", (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @TransactionalEventListener
+    public void alConfirmarTransicion(TransicionFacturaEvent evento) {
+        Contadores actuales = contadores;
+        if (actuales == null) {
+            // La carga inicial todavía no corre y ya incluirá esta factura
+            return;
+        }
+        long centavos = centavos(evento.montoTotal());
+        if (evento.estadoAnterior() != null) {
+            actuales.sumar(evento.estadoAnterior(), evento.fechaVencimiento(), -1, -centavos);
+        }
+        actuales.sumar(evento.estadoNuevo(), evento.fechaVencimiento(), 1, centavos);
+    }
+
+    // El proceso confirma por chunks y publica al terminar, fuera de transacción
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alConfirmarVencidas(FacturasVencidasProcesadasEvent evento) {
+        // Un cambio masivo de estado: más simple y exacto volver a leer los totales
+        if (evento.facturasProcesadas() > 0) {
+            recargar();
+        }
+    }
+
+    private static long centavos(BigDecimal monto) {
+        return monto == null ? 0 : monto.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static final class Acumulado {
+        private final LongAdder cantidad = new LongAdder();
+        private final LongAdder centavos = new LongAdder();
+
+        private void sumar(long cantidad, long centavos) {
+            this.cantidad.add(cantidad);
+            this.centavos.add(centavos);
+        }
+    }
+
+    private static final class Contadores {
+        private final ConcurrentSkipListMap<LocalDate, Acumulado> pendientesPorVencimiento = new ConcurrentSkipListMap<>();
+        private final Acumulado pagadas = new Acumulado();
+        private final Acumulado anuladas = new Acumulado();
+
+        private void sumar(Factura.EstadoFactura estado, LocalDate fechaVencimiento, long cantidad, long centavos) {
+            switch (estado) {
+                case Pendiente -> pendientesPorVencimiento
+                    .computeIfAbsent(fechaVencimiento != null ? fechaVencimiento : SIN_VENCIMIENTO, fecha -> new Acumulado())
+                    .sumar(cantidad, centavos);
+                case Pagada -> pagadas.sumar(cantidad, centavos);
+                case Anulada -> anuladas.sumar(cantidad, centavos);
+                default -> {
+                    // Las facturas en estado Vencida no forman parte del dashboard
+                }
+            }
+        }
+
+        private EstadisticasFacturacionDTO aEstadisticas(LocalDate hoy) {
+            EstadisticasFacturacionDTO stats = new EstadisticasFacturacionDTO();
+            long pendientes = 0;
+            long centavosPendientes = 0;
+            long vencidas = 0;
+            long centavosVencidos = 0;
+            for (Map.Entry<LocalDate, Acumulado> entrada : pendientesPorVencimiento.entrySet()) {
+                long cantidad = entrada.getValue().cantidad.sum();
+                long centavos = entrada.getValue().centavos.sum();
+                pendientes += cantidad;
+                centavosPendientes += centavos;
+                if (entrada.getKey().isBefore(hoy)) {
+                    vencidas += cantidad;
+                    centavosVencidos += centavos;
+                }
+            }
+            stats.setFacturasPendientes(pendientes);
+            stats.setMontoTotalPendiente(BigDecimal.valueOf(centavosPendientes, 2));
+            stats.setFacturasVencidas(vencidas);
+            stats.setMontoTotalVencido(BigDecimal.valueOf(centavosVencidos, 2));
+            stats.setFacturasPagadas(pagadas.cantidad.sum());
+            stats.setMontoTotalPagado(BigDecimal.valueOf(pagadas.centavos.sum(), 2));
+            stats.setFacturasAnuladas(anuladas.cantidad.sum());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.geminiambiental.facturacion.service;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Posición de continuación para la búsqueda de facturas por keyset. Se serializa como un token
+ * opaco (Base64 URL) con la clave de orden, la dirección y los valores de la última fila entregada.
+ */
+public final class CursorFactura {
+
+    // Solo columnas NOT NULL: el keyset no puede comparar contra valores nulos
+    public static final Set<String> CLAVES_ORDEN = Set.of("fechaEmision", "montoTotal", "idFactura");
+
+    private static final String ID = "idFactura";
+    private static final String SEPARADOR = "|";
+
+    private final String sortBy;
+    private final Sort.Direction direccion;
+    private final Object valor;
+    private final String idFactura;
+
+    private CursorFactura(String sortBy, Sort.Direction direccion, Object valor, String idFactura) {
+        this.sortBy = sortBy;
+        this.direccion = direccion;
+        this.valor = valor;
+        this.idFactura = idFactura;
+    }
+
+    public static Sort orden(String sortBy, Sort.Direction direccion) {
+        validarClave(sortBy);
+        // idFactura desempata filas con la misma clave para que el keyset sea único
+        return ID.equals(sortBy)
+            ? Sort.by(direccion, ID)
+            : Sort.by(direccion, sortBy).and(Sort.by(direccion, ID));
+    }
+
+    public static CursorFactura desde(KeysetScrollPosition posicion, String sortBy, Sort.Direction direccion) {
+        Map<String, ?> claves = posicion.getKeys();
+        return new CursorFactura(sortBy, direccion, claves.get(sortBy), (String) claves.get(ID));
+    }
+
+    public static CursorFactura decodificar(String token) {
+        String[] partes;
+        try {
+            partes = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+        if (partes.length != 4) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+        String sortBy = partes[0];
+        validarClave(sortBy);
+        try {
+            return new CursorFactura(sortBy, Sort.Direction.fromString(partes[1]),
+                convertirValor(sortBy, partes[2]), partes[3]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+
+    public String codificar() {
+        String contenido = String.join(SEPARADOR, sortBy, direccion.name(), String.valueOf(valor), idFactura);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ScrollPosition aPosicion() {
+        Map<String, Object> claves = new LinkedHashMap<>();
+        if (!ID.equals(sortBy)) {
+            claves.put(sortBy, valor);
+        }
+        claves.put(ID, idFactura);
+        return ScrollPosition.forward(claves);
+    }
+
+    public boolean coincideCon(String sortBy, Sort.Direction direccion) {
+        return this.sortBy.equals(sortBy) && this.direccion == direccion;
+    }
+
+    private static void validarClave(String sortBy) {
+        if (!CLAVES_ORDEN.contains(sortBy)) {
+            throw new IllegalArgumentException("Ordenamiento no soportado para paginación por cursor: " + sortBy
+                + ". Valores permitidos: " + CLAVES_ORDEN);
+        }
+    }
+
+    private static Object convertirValor(String sortBy, String valor) {
+        return switch (sortBy) {
+            case "fechaEmision" -> LocalDate.parse(valor);
+            case "montoTotal" -> new BigDecimal(valor);
+            default -> valor;
+        };
+    }
+}
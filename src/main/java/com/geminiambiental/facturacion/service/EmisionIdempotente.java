@@ -0,0 +1,217 @@
+package com.geminiambiental.facturacion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.entity.ClaveIdempotencia;
+import com.geminiambiental.facturacion.exception.ServiciosEnConflictoException;
+import com.geminiambiental.facturacion.repository.ClaveIdempotenciaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emisión con cabecera Idempotency-Key. Un reintento con la misma clave devuelve la factura original
+ * sin volver a validar ni emitir: primero desde memoria y, si otro nodo la emitió o la entrada ya salió,
+ * desde la tabla clave_idempotencia. Las peticiones simultáneas con la misma clave esperan a la primera.
+ */
+@Component
+@Slf4j
+public class EmisionIdempotente {
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 100;
+
+    private final FacturacionService facturacionService;
+    private final ClaveIdempotenciaRepository claveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate lecturaNueva;
+    private final ObjectMapper objectMapper;
+    private final int maxEnMemoria;
+    private final Duration retencion;
+
+    private final Map<String, Registro> registros = new ConcurrentHashMap<>();
+    private final Map<String, EnCurso> enCurso = new ConcurrentHashMap<>();
+
+    public EmisionIdempotente(FacturacionService facturacionService, ClaveIdempotenciaRepository claveRepository,
+                              TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                              @Value("${facturacion.idempotencia.max-en-memoria:10000}") int maxEnMemoria,
+                              @Value("${facturacion.idempotencia.retencion-horas:24}") long retencionHoras) {
+        this.facturacionService = facturacionService;
+        this.claveRepository = claveRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.lecturaNueva = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.lecturaNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lecturaNueva.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.maxEnMemoria = maxEnMemoria;
+        this.retencion = Duration.ofHours(retencionHoras);
+    }
+
+    public record Resultado(FacturaDTO factura, boolean repetida) {
+    }
+
+    public Resultado emitir(String clave, List<String> idsServicios, String observaciones) {
+        if (clave == null || clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new IllegalArgumentException("La clave de idempotencia debe tener entre 1 y "
+                + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+        String hash = hash(idsServicios, observaciones);
+
+        Registro registro = registros.get(clave);
+        if (registro != null && registro.creado().isAfter(LocalDateTime.now().minus(retencion))) {
+            return repetir(clave, hash, registro.hash(), registro.factura());
+        }
+
+        EnCurso propia = new EnCurso(hash, new CompletableFuture<>());
+        EnCurso primera = enCurso.putIfAbsent(clave, propia);
+        if (primera != null) {
+            // Otra petición con la misma clave se está emitiendo: se espera su resultado
+            Resultado resultado = esperar(primera.resultado());
+            return repetir(clave, hash, primera.hash(), resultado.factura());
+        }
+
+        try {
+            Resultado resultado = emitirOLeer(clave, hash, idsServicios, observaciones);
+            propia.resultado().complete(resultado);
+            return resultado;
+        } catch (RuntimeException e) {
+            propia.resultado().completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave);
+        }
+    }
+
+    // Borra las claves vencidas de la tabla y de memoria
+    public int purgar() {
+        LocalDateTime limite = LocalDateTime.now().minus(retencion);
+        registros.values().removeIf(registro -> registro.creado().isBefore(limite));
+        Integer eliminadas = transactionTemplate.execute(status -> claveRepository.eliminarAnterioresA(limite));
+        return eliminadas != null ? eliminadas : 0;
+    }
+
+    private Resultado emitirOLeer(String clave, String hash, List<String> idsServicios, String observaciones) {
+        ClaveIdempotencia existente = claveRepository.findById(clave).orElse(null);
+        if (existente != null) {
+            return repetir(clave, hash, existente.getHashSolicitud(), recordar(existente));
+        }
+        try {
+            FacturaDTO factura = transactionTemplate.execute(status -> {
+                FacturaDTO emitida = facturacionService.emitirFactura(idsServicios, observaciones);
+                claveRepository.saveAndFlush(new ClaveIdempotencia(clave, hash, emitida.getIdFactura(),
+                    serializar(emitida), LocalDateTime.now()));
+                return emitida;
+            });
+            guardar(clave, new Registro(hash, factura, LocalDateTime.now()));
+            return new Resultado(factura, false);
+        } catch (DataIntegrityViolationException e) {
+            // Otro nodo confirmó la misma clave primero; su factura queda y la nuestra hizo rollback
+            log.info("Clave de idempotencia {} confirmada por otro nodo, se devuelve su factura", clave);
+            ClaveIdempotencia ganadora = releer(clave);
+            if (ganadora == null) {
+                throw e;
+            }
+            return repetir(clave, hash, ganadora.getHashSolicitud(), recordar(ganadora));
+        } catch (ServiciosEnConflictoException e) {
+            // Lo más común entre nodos: esperamos el lock de fila de los servicios mientras el otro nodo confirmaba
+            // la misma clave, y al obtenerlo ya estaban facturados. Si la clave existe es un reintento, no un conflicto
+            ClaveIdempotencia ganadora = releer(clave);
+            if (ganadora == null) {
+                throw e;
+            }
+            log.info("Clave de idempotencia {} confirmada por otro nodo, se devuelve su factura", clave);
+            return repetir(clave, hash, ganadora.getHashSolicitud(), recordar(ganadora));
+        }
+    }
+
+    // En una transacción nueva: la de la emisión ya hizo rollback y la lectura debe ver lo confirmado desde entonces
+    private ClaveIdempotencia releer(String clave) {
+        return lecturaNueva.execute(status -> claveRepository.findById(clave).orElse(null));
+    }
+
+    private Resultado repetir(String clave, String hash, String hashOriginal, FacturaDTO factura) {
+        if (!hash.equals(hashOriginal)) {
+            throw new IllegalStateException("La clave de idempotencia " + clave
+                + " ya se usó con otros servicios u observaciones");
+        }
+        return new Resultado(factura, true);
+    }
+
+    private FacturaDTO recordar(ClaveIdempotencia fila) {
+        try {
+            FacturaDTO factura = objectMapper.readValue(fila.getRespuesta(), FacturaDTO.class);
+            guardar(fila.getClave(), new Registro(fila.getHashSolicitud(), factura, fila.getFechaCreacion()));
+            return factura;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta guardada ilegible para la clave " + fila.getClave(), e);
+        }
+    }
+
+    private void guardar(String clave, Registro registro) {
+        // Igual que CacheConteoFacturas: al llegar al máximo se vacía y las claves se releen de la tabla
+        if (registros.size() >= maxEnMemoria) {
+            registros.clear();
+        }
+        registros.put(clave, registro);
+    }
+
+    private String serializar(FacturaDTO factura) {
+        try {
+            return objectMapper.writeValueAsString(factura);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la factura " + factura.getIdFactura(), e);
+        }
+    }
+
+    private static Resultado esperar(CompletableFuture<Resultado> resultado) {
+        try {
+            return resultado.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    // El orden de los servicios no cambia la factura, así que no cambia el hash
+    private static String hash(List<String> idsServicios, String observaciones) {
+        List<String> ordenados = new ArrayList<>(idsServicios);
+        ordenados.sort(null);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String idServicio : ordenados) {
+                digest.update(idServicio.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            if (observaciones != null) {
+                digest.update((byte) 0);
+                digest.update(observaciones.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Registro(String hash, FacturaDTO factura, LocalDateTime creado) {
+    }
+
+    private record EnCurso(String hash, CompletableFuture<Resultado> resultado) {
+    }
+}
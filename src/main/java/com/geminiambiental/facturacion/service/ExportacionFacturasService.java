@@ -0,0 +1,170 @@
+package com.geminiambiental.facturacion.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.dto.FiltrosFacturaDTO;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.repository.FacturaSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exporta facturas (sin detalles) recorriendo un cursor de solo avance con fetch size y escribiendo
+ * cada fila directamente en la salida. El contexto de persistencia se limpia cada fetch size filas,
+ * así que el heap no crece con el número de facturas.
+ */
+@Service
+@Slf4j
+public class ExportacionFacturasService {
+
+    public enum Formato {
+        NDJSON, CSV
+    }
+
+    private static final String ENCABEZADO_CSV =
+        "id_factura,dni_cliente,fecha_emision,fecha_vencimiento,fecha_pago,monto_total,estado,observaciones\n";
+
+    private final EntityManager entityManager;
+    private final ObjectWriter escritorJson;
+    private final int fetchSize;
+
+    public ExportacionFacturasService(EntityManager entityManager, ObjectMapper objectMapper,
+                                      @Value("${facturacion.exportacion.fetch-size:500}") int fetchSize) {
+        this.entityManager = entityManager;
+        // Misma configuración de Jackson que la API (SNAKE_CASE, fechas), sin nulos ni flush por fila
+        this.escritorJson = objectMapper.copy()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false)
+            .writerFor(FacturaDTO.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("\n");
+        this.fetchSize = fetchSize;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportar(FiltrosFacturaDTO filtros, Formato formato, OutputStream salida) {
+        Session session = entityManager.unwrap(Session.class);
+        long filas = 0;
+        long inicio = System.nanoTime();
+
+        // La salida es del llamador (la respuesta HTTP): se vacía pero no se cierra
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        try (ScrollableResults<Factura> cursor = session.createQuery(consulta(filtros))
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+             SequenceWriter json = formato == Formato.NDJSON ? escritorJson.writeValues(escritor) : null) {
+
+            if (formato == Formato.CSV) {
+                escritor.write(ENCABEZADO_CSV);
+            }
+            while (cursor.next()) {
+                Factura factura = cursor.get();
+                if (formato == Formato.NDJSON) {
+                    json.write(convertirADTO(factura));
+                } else {
+                    escribirCsv(escritor, factura);
+                }
+                if (++filas % fetchSize == 0) {
+                    // Soltar las entidades ya escritas y enviar lo acumulado al cliente
+                    session.clear();
+                    if (json != null) {
+                        json.flush();
+                    }
+                    escritor.flush();
+                }
+            }
+            if (json != null && filas > 0) {
+                json.flush();
+                escritor.write('\n');
+            }
+            escritor.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error escribiendo la exportación de facturas", e);
+        }
+
+        log.info("Exportadas {} facturas en formato {} en {} ms", filas, formato, (System.nanoTime() - inicio) / 1_000_000);
+        return filas;
+    }
+
+    private CriteriaQuery<Factura> consulta(FiltrosFacturaDTO filtros) {
+        Factura.EstadoFactura estado = null;
+        if (filtros.getEstado() != null && !filtros.getEstado().equals("TODOS")) {
+            estado = Factura.EstadoFactura.valueOf(filtros.getEstado());
+        }
+        Specification<Factura> especificacion = FacturaSpecifications.conFiltros(
+            filtros.getCliente(), estado, filtros.getFechaInicio(), filtros.getFechaFin());
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Factura> consulta = cb.createQuery(Factura.class);
+        Root<Factura> root = consulta.from(Factura.class);
+        consulta.select(root)
+            .where(especificacion.toPredicate(root, consulta, cb))
+            .orderBy(cb.asc(root.get("fechaEmision")), cb.asc(root.get("idFactura")));
+        return consulta;
+    }
+
+    private FacturaDTO convertirADTO(Factura factura) {
+        FacturaDTO dto = new FacturaDTO();
+        dto.setIdFactura(factura.getIdFactura());
+        dto.setDniCliente(factura.getDniCliente());
+        dto.setFechaEmision(factura.getFechaEmision());
+        dto.setFechaVencimiento(factura.getFechaVencimiento());
+        dto.setFechaPago(factura.getFechaPago());
+        dto.setMontoTotal(factura.getMontoTotal());
+        dto.setEstado(factura.getEstado().name());
+        dto.setObservaciones(factura.getObservaciones());
+        return dto;
+    }
+
+    private void escribirCsv(Writer escritor, Factura factura) throws IOException {
+        escritor.write(campoCsv(factura.getIdFactura()));
+        escritor.write(',');
+        escritor.write(campoCsv(factura.getDniCliente()));
+        escritor.write(',');
+        escritor.write(String.valueOf(factura.getFechaEmision()));
+        escritor.write(',');
+        escritor.write(factura.getFechaVencimiento() != null ? factura.getFechaVencimiento().toString() : "");
+        escritor.write(',');
+        escritor.write(factura.getFechaPago() != null ? factura.getFechaPago().toString() : "");
+        escritor.write(',');
+        escritor.write(factura.getMontoTotal().toPlainString());
+        escritor.write(',');
+        escritor.write(factura.getEstado().name());
+        escritor.write(',');
+        escritor.write(campoCsv(factura.getObservaciones()));
+        escritor.write('\n');
+    }
+
+    private static String campoCsv(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -2,20 +2,43 @@ package com.geminiambiental.facturacion.service;
 
 import com.geminiambiental.facturacion.dto.*;
 import com.geminiambiental.facturacion.entity.*;
+import com.geminiambiental.facturacion.event.FacturasVencidasProcesadasEvent;
+import com.geminiambiental.facturacion.event.TransicionFacturaEvent;
 import com.geminiambiental.facturacion.repository.*;
+import com.geminiambiental.facturacion.util.Dinero;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.Year;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,115 +48,206 @@ public class FacturacionService {
     
     private final FacturaRepository facturaRepository;
     private final ServicioRepository servicioRepository;
+    private final GeneradorNumeroFactura generadorNumeroFactura;
+    private final ReservaServicios reservaServicios;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final CacheConteoFacturas cacheConteoFacturas;
+    private final ContadoresFacturacion contadoresFacturacion;
+    private final MetricasFacturacion metricas;
+    private final IndiceTrigramasClientes indiceClientes;
+    private final ConsultaFacturas consultaFacturas;
+    private final BandejaEventosFactura bandejaEventos;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    // Límite de parámetros por consulta IN al cargar lotes
+    private static final int TAMANO_CONSULTA_IN = 1000;
+    
+    @Value("${facturacion.emision-lote.tamano-chunk:200}")
+    private int tamanoChunkLote;
+    
+    @Value("${facturacion.vencidas.tamano-chunk:1000}")
+    private int tamanoChunkVencidas;
+    
+    @Value("${facturacion.estadisticas.en-memoria:true}")
+    private boolean estadisticasEnMemoria;
+    
+    // Un size sin tope (size=100000) retiene una conexión y arma toda la página en memoria
+    @Value("${facturacion.paginacion.tamano-maximo:100}")
+    private int tamanoMaximoPagina;
     
     @Transactional
     public FacturaDTO emitirFactura(List<String> idsServicios, String observaciones) {
-        log.info("Iniciando emisión de factura para servicios: {}", idsServicios);
-        
-        // Validación de entrada más robusta
-        if (idsServicios == null || idsServicios.isEmpty()) {
-            throw new IllegalArgumentException("La lista de servicios no puede estar vacía");
-        }
-        
-        // Filtrar valores nulos o vacíos
-        List<String> idsValidos = idsServicios.stream()
-            .filter(id -> id != null && !id.trim().isEmpty())
-            .collect(Collectors.toList());
+        log.debug("Iniciando emisión de factura para servicios: {}", idsServicios);
         
-        if (idsValidos.isEmpty()) {
-            throw new IllegalArgumentException("No se proporcionaron IDs de servicios válidos");
-        }
+        Timer.Sample validacion = metricas.iniciar();
+        List<String> idsValidos = filtrarIdsValidos(idsServicios);
         
-        log.info("IDs válidos de servicios: {}", idsValidos);
+        log.debug("IDs válidos de servicios: {}", idsValidos);
+        // Hasta el fin de la transacción ninguna otra emisión del nodo toma estos servicios
+        reservaServicios.bloquear(idsValidos);
         
         // Validar que los servicios existan y estén completados
-        List<Servicio> servicios = servicioRepository.findAllById(idsValidos);
-        
-        if (servicios.isEmpty()) {
-            throw new IllegalArgumentException("No se encontraron servicios válidos con los IDs proporcionados: " + idsValidos);
-        }
-        
-        if (servicios.size() != idsValidos.size()) {
-            List<String> idsEncontrados = servicios.stream()
-                .map(Servicio::getIdServicio)
-                .collect(Collectors.toList());
-            List<String> idsNoEncontrados = idsValidos.stream()
-                .filter(id -> !idsEncontrados.contains(id))
-                .collect(Collectors.toList());
-            throw new IllegalArgumentException("No se encontraron los siguientes servicios: " + idsNoEncontrados);
-        }
-        
-        // Verificar que todos los servicios estén completados
-        List<Servicio> serviciosNoCompletados = servicios.stream()
-            .filter(s -> s.getEstado() != Servicio.EstadoServicio.COMPLETADO)
+        // multiLoad resuelve primero desde la caché de segundo nivel y trae los faltantes en un solo SELECT
+        List<Servicio> servicios = entityManager.unwrap(Session.class)
+            .byMultipleIds(Servicio.class)
+            .with(CacheMode.NORMAL)
+            .multiLoad(idsValidos).stream()
+            .filter(Objects::nonNull)
+            .distinct()
             .collect(Collectors.toList());
+        // Otro módulo escribe Servicio.estado y la región puede tenerlo viejo hasta su TTL: antes de rechazar
+        // un servicio no completado se relee de la base. Uno que dejó de estar completado lo rechaza reservar()
+        servicios.stream()
+            .filter(s -> s.getEstado() != Servicio.EstadoServicio.COMPLETADO)
+            .forEach(entityManager::refresh);
+        CalculosFacturacion.validarServiciosParaFacturar(idsValidos, servicios);
+        metricas.registrar(validacion, MetricasFacturacion.Modo.INDIVIDUAL, MetricasFacturacion.Fase.VALIDACION);
         
-        if (!serviciosNoCompletados.isEmpty()) {
-            List<String> idsNoCompletados = serviciosNoCompletados.stream()
-                .map(Servicio::getIdServicio)
-                .collect(Collectors.toList());
-            throw new IllegalArgumentException("Los siguientes servicios deben estar completados para facturar: " + idsNoCompletados);
-        }
-        
-        // Obtener cliente (asumiendo que todos los servicios son del mismo cliente)
-        String dniCliente = obtenerClienteDeServicios(servicios);
-        
-        // Crear factura
-        Factura factura = new Factura();
-        String numeroFactura = generarNumeroFactura();
-        factura.setIdFactura(numeroFactura);
-        factura.setDniCliente(dniCliente);
-        factura.setFechaEmision(LocalDate.now());
-        factura.setFechaVencimiento(LocalDate.now().plusDays(30)); // 30 días de vencimiento
-        factura.setObservaciones(observaciones);
-        factura.setEstado(Factura.EstadoFactura.Pendiente);
-        
-        // Inicializar la lista de detalles
-        factura.setDetalles(new ArrayList<>());
-        
-        // Crear detalles
-        BigDecimal montoTotal = BigDecimal.ZERO;
-        for (Servicio servicio : servicios) {
-            DetalleFactura detalle = new DetalleFactura();
-            
-            // Crear el ID compuesto
-            DetalleFacturaId detalleId = new DetalleFacturaId();
-            detalleId.setIdFactura(factura.getIdFactura());
-            detalleId.setIdServicio(servicio.getIdServicio());
-            
-            detalle.setId(detalleId);
-            detalle.setFactura(factura);
-            detalle.setServicio(servicio);
-            
-            // Calcular precio basado en productos utilizados
-            BigDecimal precioServicio = calcularPrecioServicio(servicio);
-            detalle.setPrecioUnitario(precioServicio);
-            detalle.setCantidad(1);
-            
-            // Calcular subtotal manualmente por si acaso
-            detalle.setSubtotal(precioServicio.multiply(BigDecimal.valueOf(detalle.getCantidad())));
-            
-            factura.getDetalles().add(detalle);
-            montoTotal = montoTotal.add(detalle.getSubtotal());
-        }
-        
-        factura.setMontoTotal(montoTotal);
+        Factura factura = construirFactura(servicios, observaciones, MetricasFacturacion.Modo.INDIVIDUAL);
+        reservaServicios.reservar(factura.getIdFactura(), idsValidos);
         
         try {
-            // Guardar factura
-            Factura facturaGuardada = facturaRepository.save(factura);
-            log.info("Factura {} emitida exitosamente por valor de {}", factura.getIdFactura(), montoTotal);
+            // persist en lugar de save: con ID asignado, save() hace merge y vuelve a leer factura y detalles
+            Timer.Sample persistencia = metricas.iniciar();
+            entityManager.persist(factura);
+            entityManager.flush();
+            metricas.registrar(persistencia, MetricasFacturacion.Modo.INDIVIDUAL, MetricasFacturacion.Fase.PERSISTENCIA);
+            metricas.registrarDetalles(factura.getDetalles().size());
+            publicarTransicion(factura, null);
+            log.info("Factura {} emitida exitosamente por valor de {}", factura.getIdFactura(), factura.getMontoTotal());
             
-            return convertirADTO(facturaGuardada);
+            return CalculosFacturacion.convertirADTO(factura);
         } catch (Exception e) {
             log.error("Error al guardar la factura: {}", e.getMessage(), e);
             throw new RuntimeException("Error al guardar la factura: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Emite una factura por cada grupo de servicios. Los servicios de todo el lote se cargan con
+     * consultas por conjuntos y las facturas se insertan por chunks, cada uno en su propia
+     * transacción con batching JDBC. Un grupo inválido no impide emitir los demás.
+     */
+    public List<ResultadoEmisionDTO> emitirFacturasLote(List<EmitirFacturaRequest> solicitudes) {
+        log.info("Iniciando emisión en lote de {} facturas", solicitudes.size());
+        
+        Timer.Sample validacion = metricas.iniciar();
+        ResultadoEmisionDTO[] resultados = new ResultadoEmisionDTO[solicitudes.size()];
+        List<Integer> gruposValidos = new ArrayList<>();
+        List<List<String>> idsPorGrupo = new ArrayList<>();
+        Set<String> idsLote = new LinkedHashSet<>();
+        
+        for (int i = 0; i < solicitudes.size(); i++) {
+            EmitirFacturaRequest solicitud = solicitudes.get(i);
+            try {
+                List<String> idsValidos = filtrarIdsValidos(solicitud != null ? solicitud.getIdsServicios() : null);
+                idsPorGrupo.add(idsValidos);
+                idsLote.addAll(idsValidos);
+            } catch (IllegalArgumentException e) {
+                idsPorGrupo.add(List.of());
+                resultados[i] = ResultadoEmisionDTO.fallida(i, solicitud != null ? solicitud.getIdsServicios() : null, e.getMessage());
+            }
+        }
+        
+        // Cargar todos los servicios del lote y los ya facturados en consultas por conjuntos
+        Map<String, Servicio> serviciosPorId = new HashMap<>();
+        Set<String> idsYaFacturados = new HashSet<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (List<String> bloqueIds : particionar(new ArrayList<>(idsLote), TAMANO_CONSULTA_IN)) {
+                servicioRepository.findAllConProductosByIdIn(bloqueIds)
+                    .forEach(servicio -> serviciosPorId.put(servicio.getIdServicio(), servicio));
+                idsYaFacturados.addAll(servicioRepository.findIdsFacturados(bloqueIds));
+            }
+        });
+        
+        Set<String> idsAsignados = new HashSet<>();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            if (resultados[i] != null) {
+                continue;
+            }
+            List<String> idsValidos = idsPorGrupo.get(i);
+            try {
+                List<Servicio> servicios = idsValidos.stream()
+                    .map(serviciosPorId::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+                CalculosFacturacion.validarServiciosParaFacturar(idsValidos, servicios);
+                
+                Set<String> idsGrupo = new HashSet<>();
+                List<String> idsDuplicados = idsValidos.stream()
+                    .filter(id -> idsYaFacturados.contains(id) || idsAsignados.contains(id) || !idsGrupo.add(id))
+                    .collect(Collectors.toList());
+                if (!idsDuplicados.isEmpty()) {
+                    throw new IllegalArgumentException("Los siguientes servicios ya están facturados o se repiten en el lote: " + idsDuplicados);
+                }
+                idsAsignados.addAll(idsGrupo);
+                gruposValidos.add(i);
+            } catch (IllegalArgumentException e) {
+                resultados[i] = ResultadoEmisionDTO.fallida(i, idsValidos, e.getMessage());
+            }
+        }
+        metricas.registrar(validacion, MetricasFacturacion.Modo.LOTE, MetricasFacturacion.Fase.VALIDACION);
+        
+        for (List<Integer> chunk : particionar(gruposValidos, tamanoChunkLote)) {
+            try {
+                // En lote la persistencia se mide por chunk, commit incluido
+                Timer.Sample persistencia = metricas.iniciar();
+                transactionTemplate.executeWithoutResult(status ->
+                    persistirGrupos(chunk, solicitudes, idsPorGrupo, serviciosPorId, resultados));
+                metricas.registrar(persistencia, MetricasFacturacion.Modo.LOTE, MetricasFacturacion.Fase.PERSISTENCIA);
+            } catch (RuntimeException e) {
+                // Aislar el grupo que hizo fallar el chunk reintentando uno por uno
+                log.warn("Falló el chunk de {} facturas, reintentando individualmente: {}", chunk.size(), e.getMessage());
+                for (Integer indice : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status ->
+                            persistirGrupos(List.of(indice), solicitudes, idsPorGrupo, serviciosPorId, resultados));
+                    } catch (RuntimeException errorGrupo) {
+                        resultados[indice] = ResultadoEmisionDTO.fallida(indice, idsPorGrupo.get(indice),
+                            "Error al guardar la factura: " + errorGrupo.getMessage());
+                    }
+                }
+            }
+        }
+        
+        log.info("Emisión en lote finalizada: {} de {} facturas emitidas", 
+            Arrays.stream(resultados).filter(ResultadoEmisionDTO::isExitosa).count(), solicitudes.size());
+        return Arrays.asList(resultados);
+    }
+    
+    private void persistirGrupos(List<Integer> indices, List<EmitirFacturaRequest> solicitudes,
+                                 List<List<String>> idsPorGrupo, Map<String, Servicio> serviciosPorId,
+                                 ResultadoEmisionDTO[] resultados) {
+        List<Factura> facturas = new ArrayList<>(indices.size());
+        for (Integer indice : indices) {
+            List<Servicio> servicios = idsPorGrupo.get(indice).stream()
+                .map(serviciosPorId::get)
+                .collect(Collectors.toList());
+            Factura factura = construirFactura(servicios, solicitudes.get(indice).getObservaciones(), MetricasFacturacion.Modo.LOTE);
+            // Los servicios se cargaron en otra transacción: asociarlos por referencia sin volver a leerlos
+            factura.getDetalles().forEach(detalle ->
+                detalle.setServicio(entityManager.getReference(Servicio.class, detalle.getId().getIdServicio())));
+            reservaServicios.reservar(factura.getIdFactura(), idsGrupo(factura));
+            // persist en lugar de save: el ID es asignado y save() haría un SELECT previo por factura
+            entityManager.persist(factura);
+            publicarTransicion(factura, null);
+            facturas.add(factura);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        facturas.forEach(factura -> metricas.registrarDetalles(factura.getDetalles().size()));
+        
+        for (int i = 0; i < indices.size(); i++) {
+            int indice = indices.get(i);
+            resultados[indice] = ResultadoEmisionDTO.exitosa(indice, idsPorGrupo.get(indice),
+                CalculosFacturacion.convertirADTO(facturas.get(i)));
+        }
+    }
+    
     @Transactional
     public FacturaDTO marcarComoPagada(String idFactura) {
-        Factura factura = facturaRepository.findById(idFactura)
+        Factura factura = facturaRepository.findByIdParaActualizar(idFactura)
             .orElseThrow(() -> new IllegalArgumentException("Factura no encontrada"));
         
         if (factura.getEstado() != Factura.EstadoFactura.Pendiente) {
@@ -144,193 +258,342 @@ public class FacturacionService {
         factura.setFechaPago(LocalDateTime.now());
         
         Factura facturaActualizada = facturaRepository.save(factura);
+        publicarTransicion(facturaActualizada, Factura.EstadoFactura.Pendiente);
         log.info("Factura {} marcada como pagada", idFactura);
         
-        return convertirADTO(facturaActualizada);
+        return CalculosFacturacion.convertirADTO(facturaActualizada);
     }
     
     @Transactional
     public FacturaDTO anularFactura(String idFactura, String motivo) {
-        Factura factura = facturaRepository.findById(idFactura)
+        Factura factura = facturaRepository.findByIdParaActualizar(idFactura)
             .orElseThrow(() -> new IllegalArgumentException("Factura no encontrada"));
         
         if (factura.getEstado() == Factura.EstadoFactura.Pagada) {
             throw new IllegalStateException("No se pueden anular facturas pagadas");
         }
+        // Misma regla que la anulación en lote: una segunda anulación no genera otra transición
+        if (factura.getEstado() == Factura.EstadoFactura.Anulada) {
+            throw new IllegalStateException("La factura ya está anulada");
+        }
         
+        Factura.EstadoFactura estadoAnterior = factura.getEstado();
         factura.setEstado(Factura.EstadoFactura.Anulada);
         factura.setObservaciones(factura.getObservaciones() + "\nANULADA: " + motivo);
         
         Factura facturaActualizada = facturaRepository.save(factura);
+        reservaServicios.liberar(idFactura);
+        publicarTransicion(facturaActualizada, estadoAnterior);
         log.info("Factura {} anulada. Motivo: {}", idFactura, motivo);
         
-        return convertirADTO(facturaActualizada);
+        return CalculosFacturacion.convertirADTO(facturaActualizada);
     }
     
     @Transactional(readOnly = true)
     public Page<FacturaDTO> buscarFacturas(FiltrosFacturaDTO filtros) {
         Sort sort = Sort.by(Sort.Direction.fromString(filtros.getSortDir()), filtros.getSortBy());
-        PageRequest pageRequest = PageRequest.of(filtros.getPage(), filtros.getSize(), sort);
-        
-        Factura.EstadoFactura estado = null;
-        if (filtros.getEstado() != null && !filtros.getEstado().equals("TODOS")) {
-            estado = Factura.EstadoFactura.valueOf(filtros.getEstado());
-        }
+        PageRequest pageRequest = PageRequest.of(filtros.getPage(), tamanoPagina(filtros), sort);
         
-        Page<Factura> facturas = facturaRepository.findWithFilters(
-            filtros.getCliente(),
-            estado,
-            filtros.getFechaInicio(),
-            filtros.getFechaFin(),
-            pageRequest
-        );
+        Factura.EstadoFactura estado = parsearEstado(filtros.getEstado());
+        Specification<Factura> especificacion = especificacionFiltros(filtros, estado);
         
-        return facturas.map(this::convertirADTO);
+        // Encabezados proyectados y detalles en un solo IN: costo fijo de consultas por página
+        return consultaFacturas.buscar(especificacion, pageRequest, filtros.isIncluirDetalles());
     }
     
+    /**
+     * Búsqueda paginada por keyset: cada página continúa después de la última fila de la anterior
+     * (WHERE (clave, idFactura) > (...)) en lugar de saltar OFFSET filas, así que su costo no crece
+     * con la profundidad. El total es opcional y se cachea por combinación de filtros.
+     */
     @Transactional(readOnly = true)
-    public EstadisticasFacturacionDTO obtenerEstadisticas() {
-        EstadisticasFacturacionDTO stats = new EstadisticasFacturacionDTO();
+    public PaginaCursorDTO<FacturaDTO> buscarFacturasPorCursor(FiltrosFacturaDTO filtros) {
+        Sort.Direction direccion = Sort.Direction.fromString(filtros.getSortDir());
+        Sort sort = CursorFactura.orden(filtros.getSortBy(), direccion);
+        
+        ScrollPosition posicion = ScrollPosition.keyset();
+        if (filtros.getCursor() != null && !filtros.getCursor().isBlank()) {
+            CursorFactura cursor = CursorFactura.decodificar(filtros.getCursor());
+            if (!cursor.coincideCon(filtros.getSortBy(), direccion)) {
+                throw new IllegalArgumentException("El cursor no corresponde al ordenamiento solicitado");
+            }
+            posicion = cursor.aPosicion();
+        }
         
-        stats.setFacturasPendientes(facturaRepository.countByEstado(Factura.EstadoFactura.Pendiente));
-        stats.setFacturasVencidas(facturaRepository.findFacturasVencidas().size());
-        stats.setFacturasPagadas(facturaRepository.countByEstado(Factura.EstadoFactura.Pagada));
-        stats.setFacturasAnuladas(facturaRepository.countByEstado(Factura.EstadoFactura.Pagada));
+        Factura.EstadoFactura estado = parsearEstado(filtros.getEstado());
+        Specification<Factura> especificacion = especificacionFiltros(filtros, estado);
         
-        stats.setMontoTotalPendiente(facturaRepository.sumMontoByEstado(Factura.EstadoFactura.Pendiente));
-        stats.setMontoTotalPagado(facturaRepository.sumMontoByEstado(Factura.EstadoFactura.Pagada));
+        ScrollPosition inicio = posicion;
+        Window<Factura> ventana = facturaRepository.findBy(especificacion,
+            consulta -> consulta.sortBy(sort).limit(tamanoPagina(filtros)).scroll(inicio));
         
-        // Calcular monto vencido
-        BigDecimal montoVencido = facturaRepository.findFacturasVencidas().stream()
-            .map(Factura::getMontoTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.setMontoTotalVencido(montoVencido);
+        String siguienteCursor = null;
+        if (ventana.hasNext() && !ventana.isEmpty()) {
+            KeysetScrollPosition ultima = (KeysetScrollPosition) ventana.positionAt(ventana.size() - 1);
+            siguienteCursor = CursorFactura.desde(ultima, filtros.getSortBy(), direccion).codificar();
+        }
         
-        return stats;
+        Long total = null;
+        if (filtros.isIncluirTotal()) {
+            String claveConteo = String.join("|", String.valueOf(filtros.getCliente()), String.valueOf(estado),
+                String.valueOf(filtros.getFechaInicio()), String.valueOf(filtros.getFechaFin()));
+            total = cacheConteoFacturas.obtener(claveConteo, () -> facturaRepository.count(especificacion));
+        }
+        
+        List<FacturaDTO> contenido = consultaFacturas.convertir(ventana.getContent(), filtros.isIncluirDetalles());
+        return new PaginaCursorDTO<>(contenido, contenido.size(), siguienteCursor, total);
     }
     
-    @Transactional
-    public void procesarFacturasVencidas() {
-        List<Factura> facturasVencidas = facturaRepository.findFacturasVencidas();
-        
-        for (Factura factura : facturasVencidas) {
-            factura.setEstado(Factura.EstadoFactura.Vencida);
+    /**
+     * Filtros de la búsqueda con el cliente resuelto por el índice de trigramas, que solo está habilitado
+     * cuando conoce a todos los clientes (un único nodo, sin cargas directas). Aun así, si no encuentra
+     * ningún cliente no se descarta la búsqueda: se resuelve con el LIKE en la base.
+     */
+    private Specification<Factura> especificacionFiltros(FiltrosFacturaDTO filtros, Factura.EstadoFactura estado) {
+        Optional<Set<String>> clientes = indiceClientes.buscar(filtros.getCliente());
+        if (clientes.isPresent() && !clientes.get().isEmpty()) {
+            return FacturaSpecifications.conClientes(clientes.get(), estado, filtros.getFechaInicio(), filtros.getFechaFin());
         }
-        
-        if (!facturasVencidas.isEmpty()) {
-            facturaRepository.saveAll(facturasVencidas);
-            log.info("Procesadas {} facturas vencidas", facturasVencidas.size());
+        return FacturaSpecifications.conFiltros(filtros.getCliente(), estado, filtros.getFechaInicio(), filtros.getFechaFin());
+    }
+    
+    private int tamanoPagina(FiltrosFacturaDTO filtros) {
+        return Math.min(filtros.getSize(), tamanoMaximoPagina);
+    }
+    
+    @Transactional(readOnly = true)
+    public EstadisticasFacturacionDTO obtenerEstadisticas() {
+        return obtenerEstadisticas(null, null, null);
+    }
+    
+    /**
+     * Estadísticas globales del dashboard desde los contadores en memoria, sin consultar la base.
+     * Con filtros, con refrescar o si los contadores no están disponibles se calculan en la base.
+     */
+    @Transactional(readOnly = true)
+    public EstadisticasFacturacionDTO obtenerEstadisticas(String dniCliente, LocalDate fechaInicio, LocalDate fechaFin,
+                                                          boolean refrescar) {
+        boolean sinFiltros = dniCliente == null && fechaInicio == null && fechaFin == null;
+        if (sinFiltros && !refrescar && estadisticasEnMemoria && contadoresFacturacion.estaInicializado()) {
+            return contadoresFacturacion.instantanea();
         }
+        return obtenerEstadisticas(dniCliente, fechaInicio, fechaFin);
     }
     
+    /**
+     * Estadísticas del dashboard en una sola consulta agrupada, opcionalmente limitadas a un cliente
+     * y a un rango de fechas de emisión. "Vencidas" son las pendientes con fecha de vencimiento pasada.
+     */
     @Transactional(readOnly = true)
-    public List<ServicioParaFacturarDTO> obtenerServiciosParaFacturar() {
-        List<Servicio> servicios = servicioRepository.findServiciosCompletadosSinFacturar();
+    public EstadisticasFacturacionDTO obtenerEstadisticas(String dniCliente, LocalDate fechaInicio, LocalDate fechaFin) {
+        return acumularEstadisticas(facturaRepository.agregarPorEstado(dniCliente, fechaInicio, fechaFin));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<EstadisticasClienteDTO> obtenerEstadisticasPorCliente(LocalDate fechaInicio, LocalDate fechaFin) {
+        Map<String, List<AgregadoFacturasDTO>> agregadosPorCliente = new LinkedHashMap<>();
+        for (AgregadoFacturasDTO agregado : facturaRepository.agregarPorClienteYEstado(fechaInicio, fechaFin)) {
+            agregadosPorCliente.computeIfAbsent(agregado.getDniCliente(), dni -> new ArrayList<>()).add(agregado);
+        }
         
-        return servicios.stream()
-            .map(this::convertirServicioAFacturarDTO)
+        return agregadosPorCliente.entrySet().stream()
+            .map(entrada -> new EstadisticasClienteDTO(entrada.getKey(), acumularEstadisticas(entrada.getValue())))
             .collect(Collectors.toList());
     }
-
-    private ServicioParaFacturarDTO convertirServicioAFacturarDTO(Servicio servicio) {
-        ServicioParaFacturarDTO dto = new ServicioParaFacturarDTO();
-        dto.setIdServicio(servicio.getIdServicio());
-        dto.setIdCotizacion(servicio.getIdCotizacion());
-        dto.setDniEmpleadoAsignado(servicio.getDniEmpleadoAsignado());
-        dto.setFecha(servicio.getFecha());
-        dto.setHora(servicio.getHora());
-        dto.setDuracionEstimada(servicio.getDuracionEstimada());
-        dto.setObservaciones(servicio.getObservaciones());
-        dto.setPrioridad(servicio.getPrioridad());
-        dto.setEstado(servicio.getEstado().name());
-        dto.setTipoServicio(servicio.getTipoServicio());
-        dto.setNombreCliente(servicio.getNombreCliente());
-        
-        // Calcular monto total y productos
-        BigDecimal montoTotal = BigDecimal.ZERO;
-        List<ServicioParaFacturarDTO.ProductoUtilizadoDTO> productosDto = new ArrayList<>();
-        
-        if (servicio.getProductos() != null) {
-            for (ServicioProducto sp : servicio.getProductos()) {
-                // Verificar que el producto no sea un proxy lazy
-                Producto producto = sp.getProducto();
-                if (producto != null) {
-                    ServicioParaFacturarDTO.ProductoUtilizadoDTO productoDto = 
-                        new ServicioParaFacturarDTO.ProductoUtilizadoDTO();
-                    
-                    productoDto.setIdProducto(producto.getIdProducto());
-                    productoDto.setNombreProducto(producto.getNombre());
-                    productoDto.setCantidad(sp.getCantidad());
-                    productoDto.setPrecioUnitario(sp.getPrecioActual());
-                    productoDto.setUnidadMedida(producto.getUnidadMedida());
-                    
-                    BigDecimal subtotal = sp.getPrecioActual()
-                        .multiply(BigDecimal.valueOf(sp.getCantidad()));
-                    productoDto.setSubtotal(subtotal);
-                    
-                    productosDto.add(productoDto);
-                    montoTotal = montoTotal.add(subtotal);
+    
+    private EstadisticasFacturacionDTO acumularEstadisticas(List<AgregadoFacturasDTO> agregados) {
+        EstadisticasFacturacionDTO stats = new EstadisticasFacturacionDTO();
+        stats.setMontoTotalPendiente(BigDecimal.ZERO);
+        stats.setMontoTotalVencido(BigDecimal.ZERO);
+        stats.setMontoTotalPagado(BigDecimal.ZERO);
+        
+        for (AgregadoFacturasDTO agregado : agregados) {
+            switch (agregado.getEstado()) {
+                case Pendiente -> {
+                    stats.setFacturasPendientes(stats.getFacturasPendientes() + agregado.getCantidad());
+                    stats.setMontoTotalPendiente(stats.getMontoTotalPendiente().add(agregado.getMonto()));
+                    if (agregado.isVencida()) {
+                        stats.setFacturasVencidas(stats.getFacturasVencidas() + agregado.getCantidad());
+                        stats.setMontoTotalVencido(stats.getMontoTotalVencido().add(agregado.getMonto()));
+                    }
+                }
+                case Pagada -> {
+                    stats.setFacturasPagadas(stats.getFacturasPagadas() + agregado.getCantidad());
+                    stats.setMontoTotalPagado(stats.getMontoTotalPagado().add(agregado.getMonto()));
+                }
+                case Anulada -> stats.setFacturasAnuladas(stats.getFacturasAnuladas() + agregado.getCantidad());
+                default -> {
+                    // Las facturas en estado Vencida no forman parte del dashboard
                 }
             }
         }
+        return stats;
+    }
+    
+    /**
+     * Pasa a Vencida las facturas pendientes con fecha de vencimiento pasada mediante UPDATE por chunks,
+     * cada uno en su propia transacción, sin cargar entidades. El proceso es idempotente: las facturas
+     * ya marcadas salen del criterio, así que si se interrumpe basta con volver a ejecutarlo y continúa
+     * con las que faltan.
+     */
+    public ResultadoProcesoVencidasDTO procesarFacturasVencidas() {
+        ResultadoProcesoVencidasDTO resultado = new ResultadoProcesoVencidasDTO(LocalDate.now());
+        long inicio = System.nanoTime();
+        String ultimoId = "";
+        
+        while (true) {
+            long inicioChunk = System.nanoTime();
+            String desde = ultimoId;
+            List<String> ids = new ArrayList<>();
+            Integer actualizadas = transactionTemplate.execute(status -> {
+                ids.addAll(facturaRepository.findIdsPendientesVencidas(
+                    resultado.getFechaCorte(), desde, Limit.of(tamanoChunkVencidas)));
+                int marcadas = ids.isEmpty() ? 0 : facturaRepository.marcarVencidas(ids);
+                if (marcadas > 0) {
+                    bandejaEventos.registrarVencidas(ids);
+                    resultado.setMontoProcesado(resultado.getMontoProcesado().add(facturaRepository.sumarMontoVencidas(ids)));
+                }
+                return marcadas;
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            
+            // La duración del chunk incluye el commit
+            ResultadoProcesoVencidasDTO.ChunkProcesadoDTO chunk = new ResultadoProcesoVencidasDTO.ChunkProcesadoDTO(
+                resultado.getChunks().size() + 1, actualizadas, (System.nanoTime() - inicioChunk) / 1_000_000);
+            resultado.getChunks().add(chunk);
+            resultado.setFacturasProcesadas(resultado.getFacturasProcesadas() + actualizadas);
+            log.info("Chunk {} de facturas vencidas: {} facturas en {} ms", chunk.getNumero(), chunk.getFacturas(), chunk.getDuracionMs());
+            ultimoId = ids.get(ids.size() - 1);
+        }
         
-        dto.setProductosUtilizados(productosDto);
-        dto.setMontoTotal(montoTotal);
-        
-        return dto;
+        resultado.setDuracionMs((System.nanoTime() - inicio) / 1_000_000);
+        eventPublisher.publishEvent(new FacturasVencidasProcesadasEvent(resultado.getFacturasProcesadas(),
+            resultado.getMontoProcesado()));
+        log.info("Procesadas {} facturas vencidas en {} chunks y {} ms", 
+            resultado.getFacturasProcesadas(), resultado.getChunks().size(), resultado.getDuracionMs());
+        return resultado;
     }
     
+    @Transactional(readOnly = true)
+    public List<ServicioParaFacturarDTO> obtenerServiciosParaFacturar() {
+        // Agrupar las filas planas por servicio conservando el orden de llegada
+        Map<String, List<FilaServicioParaFacturarDTO>> filasPorServicio = new LinkedHashMap<>();
+        for (FilaServicioParaFacturarDTO fila : servicioRepository.findFilasServiciosCompletadosSinFacturar()) {
+            filasPorServicio.computeIfAbsent(fila.getIdServicio(), id -> new ArrayList<>()).add(fila);
+        }
+        
+        return filasPorServicio.values().stream()
+            .map(CalculosFacturacion::convertirServicioAFacturarDTO)
+            .collect(Collectors.toList());
+    }
+
     // Métodos privados auxiliares
     
-    private String generarNumeroFactura() {
-        Integer maxNumero = facturaRepository.getMaxNumeroFacturaDelAno();
-        int nuevoNumero = (maxNumero != null ? maxNumero : 0) + 1;
-        return String.format("F-%d-%03d", Year.now().getValue(), nuevoNumero);
+    private Factura.EstadoFactura parsearEstado(String estado) {
+        if (estado != null && !estado.equals("TODOS")) {
+            return Factura.EstadoFactura.valueOf(estado);
+        }
+        return null;
     }
     
-    private String obtenerClienteDeServicios(List<Servicio> servicios) {
-        // Esta implementación asume que se necesita consultar la cotización o tener el cliente en el servicio
-        // Aquí se debería implementar la lógica para obtener el DNI del cliente desde el servicio
-        // Por ahora retorno un valor de ejemplo xd
-        return "12345678"; // TODO: Implementar lógica real
+    private List<String> filtrarIdsValidos(List<String> idsServicios) {
+        // Validación de entrada más robusta
+        if (idsServicios == null || idsServicios.isEmpty()) {
+            throw new IllegalArgumentException("La lista de servicios no puede estar vacía");
+        }
+        
+        // Filtrar valores nulos o vacíos
+        List<String> idsValidos = idsServicios.stream()
+            .filter(id -> id != null && !id.trim().isEmpty())
+            .collect(Collectors.toList());
+        
+        if (idsValidos.isEmpty()) {
+            throw new IllegalArgumentException("No se proporcionaron IDs de servicios válidos");
+        }
+        return idsValidos;
     }
     
-    private BigDecimal calcularPrecioServicio(Servicio servicio) {
-        // Calcular precio basado en productos utilizados
-        return servicio.getProductos().stream()
-            .map(sp -> sp.getPrecioActual().multiply(BigDecimal.valueOf(sp.getCantidad())))
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private Factura construirFactura(List<Servicio> servicios, String observaciones, MetricasFacturacion.Modo modo) {
+        // Obtener cliente (asumiendo que todos los servicios son del mismo cliente)
+        String dniCliente = obtenerClienteDeServicios(servicios);
+        
+        // Crear factura
+        Factura factura = new Factura();
+        Timer.Sample numeracion = metricas.iniciar();
+        String numeroFactura = generarNumeroFactura();
+        metricas.registrar(numeracion, modo, MetricasFacturacion.Fase.NUMERACION);
+        factura.setIdFactura(numeroFactura);
+        factura.setDniCliente(dniCliente);
+        factura.setFechaEmision(LocalDate.now());
+        factura.setFechaVencimiento(LocalDate.now().plusDays(30)); // 30 días de vencimiento
+        factura.setObservaciones(observaciones);
+        factura.setEstado(Factura.EstadoFactura.Pendiente);
+        
+        // Inicializar la lista de detalles
+        factura.setDetalles(new ArrayList<>());
+        
+        // Crear detalles
+        Timer.Sample precios = metricas.iniciar();
+        Dinero montoTotal = Dinero.cero();
+        for (Servicio servicio : servicios) {
+            DetalleFactura detalle = new DetalleFactura();
+            
+            // Crear el ID compuesto
+            DetalleFacturaId detalleId = new DetalleFacturaId();
+            detalleId.setIdFactura(factura.getIdFactura());
+            detalleId.setIdServicio(servicio.getIdServicio());
+            
+            detalle.setId(detalleId);
+            detalle.setFactura(factura);
+            detalle.setServicio(servicio);
+            
+            // Calcular precio basado en productos utilizados
+            BigDecimal precioServicio = CalculosFacturacion.calcularPrecioServicio(servicio);
+            detalle.setPrecioUnitario(precioServicio);
+            detalle.setCantidad(1);
+            
+            // Calcular subtotal manualmente por si acaso
+            detalle.setSubtotal(Dinero.multiplicar(precioServicio, detalle.getCantidad()));
+            
+            factura.getDetalles().add(detalle);
+            montoTotal.sumar(detalle.getSubtotal());
+        }
+        
+        factura.setMontoTotal(montoTotal.aBigDecimal());
+        metricas.registrar(precios, modo, MetricasFacturacion.Fase.PRECIOS);
+        return factura;
+    }
+    
+    private void publicarTransicion(Factura factura, Factura.EstadoFactura estadoAnterior) {
+        // Los contadores en memoria solo la aplican si la transacción confirma
+        eventPublisher.publishEvent(new TransicionFacturaEvent(factura.getIdFactura(), factura.getDniCliente(), estadoAnterior,
+            factura.getEstado(), factura.getMontoTotal(), factura.getFechaVencimiento()));
+    }
+    
+    private static List<String> idsGrupo(Factura factura) {
+        return factura.getDetalles().stream()
+            .map(detalle -> detalle.getId().getIdServicio())
+            .collect(Collectors.toList());
     }
     
-    private FacturaDTO convertirADTO(Factura factura) {
-        FacturaDTO dto = new FacturaDTO();
-        dto.setIdFactura(factura.getIdFactura());
-        dto.setDniCliente(factura.getDniCliente());
-        dto.setNombreCliente(factura.getNombreCliente()); // Campo transient
-        dto.setFechaEmision(factura.getFechaEmision());
-        dto.setFechaVencimiento(factura.getFechaVencimiento());
-        dto.setFechaPago(factura.getFechaPago());
-        dto.setMontoTotal(factura.getMontoTotal());
-        dto.setEstado(factura.getEstado().name());
-        dto.setObservaciones(factura.getObservaciones());
-        dto.setTipoServicio(factura.getTipoServicio()); // Campo transient
-        
-        if (factura.getDetalles() != null) {
-            dto.setDetalles(factura.getDetalles().stream()
-                .map(this::convertirDetalleADTO)
-                .collect(Collectors.toList()));
+    private static <T> List<List<T>> particionar(List<T> elementos, int tamano) {
+        List<List<T>> particiones = new ArrayList<>();
+        for (int i = 0; i < elementos.size(); i += tamano) {
+            particiones.add(elementos.subList(i, Math.min(i + tamano, elementos.size())));
         }
-        
-        return dto;
+        return particiones;
     }
     
-    private DetalleFacturaDTO convertirDetalleADTO(DetalleFactura detalle) {
-        DetalleFacturaDTO dto = new DetalleFacturaDTO();
-        dto.setIdServicio(detalle.getId().getIdServicio());
-        dto.setPrecioUnitario(detalle.getPrecioUnitario());
-        dto.setCantidad(detalle.getCantidad());
-        dto.setSubtotal(detalle.getSubtotal());
-        // dto.setDescripcionServicio() - Se puede agregar consultando el servicio
-        return dto;
+    private String generarNumeroFactura() {
+        return generadorNumeroFactura.siguienteNumero();
+    }
+    
+    private String obtenerClienteDeServicios(List<Servicio> servicios) {
+        // Esta implementación asume que se necesita consultar la cotización o tener el cliente en el servicio
+        // Aquí se debería implementar la lógica para obtener el DNI del cliente desde el servicio
+        // Por ahora retorno un valor de ejemplo xd
+        return "12345678"; // TODO: Implementar lógica real
     }
 }
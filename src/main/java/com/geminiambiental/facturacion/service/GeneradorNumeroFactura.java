@@ -0,0 +1,130 @@
+package com.geminiambiental.facturacion.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.time.Year;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asigna números de factura F-YYYY-NNN reservando bloques en la tabla secuencia_factura.
+ * Cada nodo reserva un bloque con un UPDATE atómico en una transacción propia y luego
+ * reparte los números del bloque en memoria sin bloqueos. Los números de un bloque que no
+ * se alcanzan a usar (reinicio del nodo, emisión fallida) se pierden; nunca se repiten.
+ * La reserva usa el pool de conexiones propio "numeracion" (ver DatabaseConfig), nunca el principal.
+ */
+@Component
+@Slf4j
+public class GeneradorNumeroFactura {
+
+    private static final int MAX_INTENTOS = 3;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoBloque;
+
+    private final ReentrantLock recarga = new ReentrantLock();
+    private volatile Bloque bloqueActual;
+
+    public GeneradorNumeroFactura(@Qualifier("numeracion") DataSource dataSource,
+                                  @Value("${facturacion.numeracion.tamano-bloque:50}") int tamanoBloque) {
+        if (tamanoBloque < 1) {
+            throw new IllegalArgumentException("El tamaño de bloque de numeración debe ser positivo");
+        }
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        // La reserva se confirma aunque la emisión que la provocó haga rollback
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    public String siguienteNumero() {
+        int anio = Year.now().getValue();
+        while (true) {
+            Bloque bloque = bloqueActual;
+            if (bloque != null && bloque.anio == anio) {
+                long numero = bloque.siguiente.getAndIncrement();
+                if (numero <= bloque.fin) {
+                    return String.format("F-%d-%03d", anio, numero);
+                }
+            }
+            recargar(bloque, anio);
+        }
+    }
+
+    private void recargar(Bloque agotado, int anio) {
+        recarga.lock();
+        try {
+            // Otro hilo pudo haber recargado mientras esperábamos el lock
+            if (bloqueActual == agotado) {
+                bloqueActual = reservarBloque(anio, agotado);
+            }
+        } finally {
+            recarga.unlock();
+        }
+    }
+
+    private Bloque reservarBloque(int anio, Bloque agotado) {
+        for (int intento = 1; ; intento++) {
+            try {
+                Bloque bloque = transactionTemplate.execute(status -> {
+                    // Incremento atómico: el UPDATE toma el lock de la fila y parte del último valor confirmado
+                    if (reservar(anio) == 0) {
+                        crearSecuencia(anio, agotado);
+                        reservar(anio);
+                    }
+                    // Dentro de la misma transacción se lee el valor que acabamos de escribir
+                    long fin = jdbc.queryForObject("SELECT ultimo_numero FROM secuencia_factura WHERE anio = ?", Long.class, anio);
+                    return new Bloque(anio, fin - tamanoBloque + 1, fin);
+                });
+                log.debug("Reservado bloque de facturas {}: {}-{}", anio, bloque.siguiente.get(), bloque.fin);
+                return bloque;
+            } catch (DataIntegrityViolationException e) {
+                // Otro nodo creó la fila del año al mismo tiempo; reintentar con el UPDATE
+                if (intento >= MAX_INTENTOS) {
+                    throw e;
+                }
+                log.debug("Conflicto creando secuencia del año {}, reintento {}", anio, intento);
+            }
+        }
+    }
+
+    private int reservar(int anio) {
+        return jdbc.update("UPDATE secuencia_factura SET ultimo_numero = ultimo_numero + ? WHERE anio = ?", tamanoBloque, anio);
+    }
+
+    private void crearSecuencia(int anio, Bloque agotado) {
+        // Continuar después de las facturas ya emitidas con la numeración anterior. Con el mismo prefijo,
+        // el ID más largo y luego el mayor es el del consecutivo más alto
+        String prefijo = String.format("F-%d-", anio);
+        List<String> ultima = jdbc.queryForList("SELECT ID_factura FROM Factura WHERE ID_factura LIKE ? "
+            + "ORDER BY LENGTH(ID_factura) DESC, ID_factura DESC LIMIT 1", String.class, prefijo + "%");
+        long maxNumero = ultima.isEmpty() ? 0 : Long.parseLong(ultima.get(0).substring(prefijo.length()));
+        // Si la fila se borró con un bloque en uso, sus números aún sin confirmar tampoco se repiten
+        if (agotado != null && agotado.anio == anio) {
+            maxNumero = Math.max(maxNumero, agotado.fin);
+        }
+        jdbc.update("INSERT INTO secuencia_factura (anio, ultimo_numero) VALUES (?, ?)", anio, maxNumero);
+    }
+
+    private static final class Bloque {
+        private final int anio;
+        private final AtomicLong siguiente;
+        private final long fin;
+
+        private Bloque(int anio, long inicio, long fin) {
+            this.anio = anio;
+            this.siguiente = new AtomicLong(inicio);
+            this.fin = fin;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.event.TransicionFacturaEvent;
+import com.geminiambiental.facturacion.repository.FacturaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de trigramas sobre los DNI de clientes con facturas. Resuelve el filtro por
+ * subcadena de cliente a un conjunto de DNI, para consultar con IN sobre el índice de DNI_cliente
+ * en lugar de un LIKE '%...%' que recorre toda la tabla. Si el índice no está disponible, supera el
+ * máximo de clientes o la búsqueda coincide con demasiados clientes, se responde vacío y se usa el LIKE.
+ * <p>
+ * El índice no ve las facturas de otros nodos ni las cargadas directamente en la base hasta la siguiente
+ * recarga, y un IN con los DNI que sí conoce descartaría en silencio las facturas de los demás clientes que
+ * coinciden. Por eso está apagado por defecto: facturacion.busqueda.indice-clientes.habilitado solo debe
+ * activarse con un único nodo que emite todas las facturas, sin cargas directas en la base.
+ */
+@Component
+@Slf4j
+public class IndiceTrigramasClientes {
+
+    private static final int N = 3;
+
+    private final FacturaRepository facturaRepository;
+    private final boolean habilitado;
+    private final int maxClientes;
+    private final int maxCoincidencias;
+
+    private volatile Indice indice;
+    private volatile Indice enConstruccion;
+
+    public IndiceTrigramasClientes(FacturaRepository facturaRepository,
+                                   @Value("${facturacion.busqueda.indice-clientes.habilitado:false}") boolean habilitado,
+                                   @Value("${facturacion.busqueda.indice-clientes.max-clientes:100000}") int maxClientes,
+                                   @Value("${facturacion.busqueda.indice-clientes.max-coincidencias:1000}") int maxCoincidencias) {
+        this.facturaRepository = facturaRepository;
+        this.habilitado = habilitado;
+        this.maxClientes = maxClientes;
+        this.maxCoincidencias = maxCoincidencias;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        cargar();
+    }
+
+    public void cargar() {
+        if (!habilitado) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        Indice nuevo = new Indice();
+        // Las facturas emitidas durante la carga también se agregan a este índice
+        enConstruccion = nuevo;
+        try {
+            List<String> clientes = facturaRepository.findDniClientes();
+            if (clientes.size() > maxClientes) {
+                log.warn("Índice de clientes deshabilitado: {} clientes superan el máximo de {}", clientes.size(), maxClientes);
+                indice = null;
+                return;
+            }
+            clientes.forEach(nuevo::agregar);
+            indice = nuevo;
+        } finally {
+            enConstruccion = null;
+        }
+        log.info("Índice de clientes cargado con {} clientes y {} trigramas en {} ms",
+            nuevo.clientes.size(), nuevo.porTrigrama.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * DNI de los clientes que contienen el fragmento (sin distinguir mayúsculas), o vacío si la búsqueda
+     * debe resolverse con LIKE en la base.
+     */
+    public Optional<Set<String>> buscar(String fragmento) {
+        Indice actual = indice;
+        if (actual == null || fragmento == null || fragmento.isEmpty()) {
+            return Optional.empty();
+        }
+        String buscado = fragmento.toLowerCase(Locale.ROOT);
+
+        Set<String> candidatos = actual.clientes;
+        if (buscado.length() >= N) {
+            // Partir del trigrama menos frecuente; cualquier coincidencia debe contenerlos todos
+            for (int i = 0; i + N <= buscado.length(); i++) {
+                Set<String> conTrigrama = actual.porTrigrama.get(buscado.substring(i, i + N));
+                if (conTrigrama == null) {
+                    return Optional.of(Set.of());
+                }
+                if (conTrigrama.size() < candidatos.size()) {
+                    candidatos = conTrigrama;
+                }
+            }
+        }
+
+        Set<String> coincidencias = new HashSet<>();
+        for (String dni : candidatos) {
+            if (dni.toLowerCase(Locale.ROOT).contains(buscado)) {
+                coincidencias.add(dni);
+                if (coincidencias.size() > maxCoincidencias) {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(coincidencias);
+    }
+
+    @TransactionalEventListener
+    public void alConfirmarTransicion(TransicionFacturaEvent evento) {
+        if (evento.estadoAnterior() != null || evento.dniCliente() == null) {
+            return;
+        }
+        agregar(indice, evento.dniCliente());
+        agregar(enConstruccion, evento.dniCliente());
+    }
+
+    private void agregar(Indice destino, String dniCliente) {
+        if (destino == null) {
+            return;
+        }
+        destino.agregar(dniCliente);
+        if (destino == indice && destino.clientes.size() > maxClientes) {
+            log.warn("Índice de clientes deshabilitado: se superó el máximo de {} clientes", maxClientes);
+            indice = null;
+        }
+    }
+
+    private static final class Indice {
+        private final Set<String> clientes = ConcurrentHashMap.newKeySet();
+        private final ConcurrentHashMap<String, Set<String>> porTrigrama = new ConcurrentHashMap<>();
+
+        private void agregar(String dniCliente) {
+            if (!clientes.add(dniCliente)) {
+                return;
+            }
+            String normalizado = dniCliente.toLowerCase(Locale.ROOT);
+            for (int i = 0; i + N <= normalizado.length(); i++) {
+                porTrigrama.computeIfAbsent(normalizado.substring(i, i + N), t -> ConcurrentHashMap.newKeySet())
+                    .add(dniCliente);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.event.FacturasVencidasProcesadasEvent;
+import com.geminiambiental.facturacion.event.TransicionFacturaEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Métricas de negocio de la facturación. Los tiempos de las fases de la emisión se registran en línea;
+ * las cantidades y montos por transición se cuentan al confirmar la transacción, así una emisión que
+ * hace rollback no suma. Todas las etiquetas tienen un conjunto fijo de valores (fase, modo, evento).
+ */
+@Component
+public class MetricasFacturacion {
+
+    public enum Fase { VALIDACION, NUMERACION, PRECIOS, PERSISTENCIA }
+
+    public enum Modo { INDIVIDUAL, LOTE }
+
+    private final MeterRegistry registro;
+    private final Map<Modo, Map<Fase, Timer>> fases = new EnumMap<>(Modo.class);
+    private final Map<Factura.EstadoFactura, Counter> facturas = new EnumMap<>(Factura.EstadoFactura.class);
+    private final Map<Factura.EstadoFactura, Counter> montos = new EnumMap<>(Factura.EstadoFactura.class);
+    private final DistributionSummary detallesPorFactura;
+
+    public MetricasFacturacion(MeterRegistry registro) {
+        this.registro = registro;
+        for (Modo modo : Modo.values()) {
+            Map<Fase, Timer> timers = new EnumMap<>(Fase.class);
+            for (Fase fase : Fase.values()) {
+                timers.put(fase, Timer.builder("facturacion.emision.fase")
+                    .description("Duración de cada fase de la emisión de facturas")
+                    .tag("fase", etiqueta(fase))
+                    .tag("modo", etiqueta(modo))
+                    .register(registro));
+            }
+            fases.put(modo, timers);
+        }
+        for (Factura.EstadoFactura estado : Factura.EstadoFactura.values()) {
+            // Solo las facturas nuevas llegan a Pendiente
+            String evento = estado == Factura.EstadoFactura.Pendiente ? "emitida" : etiqueta(estado);
+            facturas.put(estado, Counter.builder("facturacion.facturas")
+                .description("Facturas emitidas, pagadas, anuladas y vencidas")
+                .tag("evento", evento)
+                .register(registro));
+            montos.put(estado, Counter.builder("facturacion.facturas.monto")
+                .description("Monto total de las facturas por evento")
+                .baseUnit("pesos")
+                .tag("evento", evento)
+                .register(registro));
+        }
+        detallesPorFactura = DistributionSummary.builder("facturacion.factura.detalles")
+            .description("Servicios facturados por factura emitida")
+            .baseUnit("detalles")
+            .register(registro);
+    }
+
+    public Timer.Sample iniciar() {
+        return Timer.start(registro);
+    }
+
+    public void registrar(Timer.Sample inicio, Modo modo, Fase fase) {
+        inicio.stop(fases.get(modo).get(fase));
+    }
+
+    public void registrarDetalles(int cantidad) {
+        detallesPorFactura.record(cantidad);
+    }
+
+    @TransactionalEventListener
+    public void alConfirmarTransicion(TransicionFacturaEvent evento) {
+        contar(evento.estadoNuevo(), 1, evento.montoTotal());
+    }
+
+    // El proceso de vencidas publica al terminar, fuera de transacción
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alConfirmarVencidas(FacturasVencidasProcesadasEvent evento) {
+        contar(Factura.EstadoFactura.Vencida, evento.facturasProcesadas(), evento.montoProcesado());
+    }
+
+    private void contar(Factura.EstadoFactura estado, long cantidad, BigDecimal monto) {
+        if (cantidad > 0) {
+            facturas.get(estado).increment(cantidad);
+        }
+        if (monto != null && monto.signum() > 0) {
+            montos.get(estado).increment(monto.doubleValue());
+        }
+    }
+
+    private static String etiqueta(Enum<?> valor) {
+        return valor.name().toLowerCase(Locale.ROOT);
+    }
+}
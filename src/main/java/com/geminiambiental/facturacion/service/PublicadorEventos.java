@@ -0,0 +1,15 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.dto.EventoFacturaDTO;
+import java.util.List;
+
+/**
+ * Destino de los eventos de factura que entrega el relevo. El lote llega en orden de ID_evento y se
+ * vuelve a entregar completo si publicar lanza una excepción, así que el destino debe tolerar repetidos.
+ * Elegido con facturacion.eventos.destino; otro valor deja el lugar a un bean propio (cola de mensajes).
+ */
+public interface PublicadorEventos {
+
+    // Devuelve solo cuando los eventos quedaron entregados de forma durable
+    void publicar(List<EventoFacturaDTO> eventos) throws Exception;
+}
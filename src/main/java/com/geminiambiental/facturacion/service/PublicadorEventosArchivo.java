@@ -0,0 +1,61 @@
+package com.geminiambiental.facturacion.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geminiambiental.facturacion.dto.EventoFacturaDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agrega cada evento como una línea JSON al final de un archivo. El lote se escribe con una sola escritura
+ * y un solo force, así que sincronizar con el disco cuesta una vez por lote y no por evento.
+ */
+@Component
+@ConditionalOnProperty(name = "facturacion.eventos.destino", havingValue = "archivo", matchIfMissing = true)
+public class PublicadorEventosArchivo implements PublicadorEventos {
+
+    private final ObjectMapper objectMapper;
+    private final Path archivo;
+    // Un lote a la vez en el archivo; ReentrantLock y no synchronized para no fijar hilos virtuales en la E/S
+    private final ReentrantLock escritura = new ReentrantLock();
+
+    public PublicadorEventosArchivo(ObjectMapper objectMapper,
+                                    @Value("${facturacion.eventos.archivo:logs/eventos-factura.jsonl}") String archivo) {
+        this.objectMapper = objectMapper;
+        this.archivo = Path.of(archivo);
+    }
+
+    @Override
+    public void publicar(List<EventoFacturaDTO> eventos) throws IOException {
+        ByteArrayOutputStream lineas = new ByteArrayOutputStream(eventos.size() * 256);
+        for (EventoFacturaDTO evento : eventos) {
+            lineas.write(objectMapper.writeValueAsBytes(evento));
+            lineas.write('\n');
+        }
+        escritura.lock();
+        try {
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer contenido = ByteBuffer.wrap(lineas.toByteArray());
+                while (contenido.hasRemaining()) {
+                    canal.write(contenido);
+                }
+                canal.force(false);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+}
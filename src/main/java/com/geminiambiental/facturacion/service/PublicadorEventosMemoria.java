@@ -0,0 +1,30 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.dto.EventoFacturaDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guarda los eventos entregados en memoria, para las pruebas y para ejecutar sin consumidores.
+ */
+@Component
+@ConditionalOnProperty(name = "facturacion.eventos.destino", havingValue = "memoria")
+public class PublicadorEventosMemoria implements PublicadorEventos {
+
+    private final List<EventoFacturaDTO> entregados = new ArrayList<>();
+
+    @Override
+    public synchronized void publicar(List<EventoFacturaDTO> eventos) {
+        entregados.addAll(eventos);
+    }
+
+    public synchronized List<EventoFacturaDTO> entregados() {
+        return new ArrayList<>(entregados);
+    }
+
+    public synchronized void limpiar() {
+        entregados.clear();
+    }
+}
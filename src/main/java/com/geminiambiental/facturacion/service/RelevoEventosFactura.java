@@ -0,0 +1,158 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.dto.EventoFacturaDTO;
+import com.geminiambiental.facturacion.entity.EventoFactura;
+import com.geminiambiental.facturacion.entity.Factura;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Entrega los eventos de evento_factura al PublicadorEventos en lotes, en orden de ID_evento, y los marca
+ * como publicados solo después de que el destino los aceptó. Si el destino falla el lote queda pendiente y
+ * se reintenta completo en la siguiente pasada (al menos una vez), sin saltar a eventos posteriores, así que
+ * los de una misma factura llegan en el orden en que ocurrieron.
+ * <p>
+ * Con varios nodos conviene dejar el relevo habilitado en uno solo: dos relevos a la vez entregan los
+ * mismos eventos dos veces, cosa que los consumidores ya deben tolerar.
+ */
+@Component
+@Slf4j
+public class RelevoEventosFactura {
+
+    private static final String COLUMNAS = "ID_evento, ID_factura, tipo, estado_anterior, estado_nuevo, DNI_cliente, "
+        + "monto_total, fecha_vencimiento, fecha_creacion";
+
+    private static final RowMapper<EventoFacturaDTO> FILA = (rs, fila) -> new EventoFacturaDTO(
+        rs.getLong("ID_evento"),
+        rs.getString("ID_factura"),
+        EventoFactura.TipoEvento.valueOf(rs.getString("tipo")),
+        rs.getString("estado_anterior") != null ? Factura.EstadoFactura.valueOf(rs.getString("estado_anterior")) : null,
+        Factura.EstadoFactura.valueOf(rs.getString("estado_nuevo")),
+        rs.getString("DNI_cliente"),
+        rs.getBigDecimal("monto_total"),
+        rs.getObject("fecha_vencimiento", LocalDate.class),
+        rs.getTimestamp("fecha_creacion").toLocalDateTime());
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final PublicadorEventos publicador;
+    private final int tamanoLote;
+    private final boolean habilitado;
+    private final long retencionHoras;
+
+    private final Timer demora;
+    private final Counter publicados;
+    private final Counter fallos;
+    private final AtomicLong pendientes = new AtomicLong();
+    private final AtomicLong antiguedadSegundos = new AtomicLong();
+    // Una pasada a la vez; la que se superpone se salta en lugar de encolarse
+    private final ReentrantLock pasada = new ReentrantLock();
+
+    public RelevoEventosFactura(NamedParameterJdbcTemplate jdbc, PublicadorEventos publicador, MeterRegistry registro,
+                                @Value("${facturacion.eventos.relevo.tamano-lote:500}") int tamanoLote,
+                                @Value("${facturacion.eventos.relevo.habilitado:true}") boolean habilitado,
+                                @Value("${facturacion.eventos.retencion-horas:72}") long retencionHoras) {
+        this.jdbc = jdbc;
+        this.publicador = publicador;
+        this.tamanoLote = tamanoLote;
+        this.habilitado = habilitado;
+        this.retencionHoras = retencionHoras;
+        this.demora = Timer.builder("facturacion.eventos.demora")
+            .description("Tiempo desde que se registra un evento de factura hasta que el destino lo acepta")
+            .register(registro);
+        this.publicados = Counter.builder("facturacion.eventos.publicados")
+            .description("Eventos de factura entregados al destino")
+            .register(registro);
+        this.fallos = Counter.builder("facturacion.eventos.fallos")
+            .description("Lotes de eventos que el destino rechazó y quedan para reintentar")
+            .register(registro);
+        Gauge.builder("facturacion.eventos.pendientes", pendientes, AtomicLong::get)
+            .description("Eventos de factura sin entregar al inicio de la última pasada del relevo")
+            .register(registro);
+        Gauge.builder("facturacion.eventos.antiguedad", antiguedadSegundos, AtomicLong::get)
+            .description("Antigüedad del evento sin entregar más viejo al inicio de la última pasada del relevo")
+            .baseUnit("seconds")
+            .register(registro);
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Entrega lotes hasta vaciar la tabla o hasta que el destino falle. Devuelve los eventos entregados.
+     * Si otra pasada está en curso no espera a que termine: devuelve 0 y esa pasada entrega lo pendiente.
+     */
+    public int drenar() {
+        if (!pasada.tryLock()) {
+            return 0;
+        }
+        try {
+            return entregarLotes();
+        } finally {
+            pasada.unlock();
+        }
+    }
+
+    private int entregarLotes() {
+        medirRetraso();
+        int entregados = 0;
+        while (true) {
+            List<EventoFacturaDTO> lote = jdbc.query("SELECT " + COLUMNAS + " FROM evento_factura "
+                + "WHERE fecha_publicacion IS NULL ORDER BY ID_evento LIMIT :limite",
+                new MapSqlParameterSource("limite", tamanoLote), FILA);
+            if (lote.isEmpty()) {
+                return entregados;
+            }
+            try {
+                publicador.publicar(lote);
+            } catch (Exception e) {
+                fallos.increment();
+                log.warn("El destino rechazó un lote de {} eventos de factura desde el {}; se reintenta en la siguiente pasada: {}",
+                    lote.size(), lote.get(0).getIdEvento(), e.getMessage());
+                return entregados;
+            }
+            LocalDateTime ahora = LocalDateTime.now();
+            jdbc.update("UPDATE evento_factura SET fecha_publicacion = :ahora WHERE ID_evento IN (:ids)",
+                new MapSqlParameterSource()
+                    .addValue("ahora", ahora)
+                    .addValue("ids", lote.stream().map(EventoFacturaDTO::getIdEvento).toList()));
+            lote.forEach(evento -> demora.record(Duration.between(evento.getFechaEvento(), ahora)));
+            publicados.increment(lote.size());
+            entregados += lote.size();
+            if (lote.size() < tamanoLote) {
+                return entregados;
+            }
+        }
+    }
+
+    // Elimina los eventos entregados hace más de retencion-horas
+    public int purgar() {
+        return jdbc.update("DELETE FROM evento_factura WHERE fecha_publicacion < :limite",
+            new MapSqlParameterSource("limite", LocalDateTime.now().minusHours(retencionHoras)));
+    }
+
+    private void medirRetraso() {
+        jdbc.query("SELECT COUNT(*) AS pendientes, MIN(fecha_creacion) AS primero FROM evento_factura "
+            + "WHERE fecha_publicacion IS NULL", rs -> {
+                pendientes.set(rs.getLong("pendientes"));
+                Timestamp primero = rs.getTimestamp("primero");
+                antiguedadSegundos.set(primero == null ? 0
+                    : Math.max(0, Duration.between(primero.toLocalDateTime(), LocalDateTime.now()).toSeconds()));
+            });
+    }
+}
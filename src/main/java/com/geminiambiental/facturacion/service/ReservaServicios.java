@@ -0,0 +1,115 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.exception.ServiciosEnConflictoException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Evita facturar dos veces un servicio sin serializar las emisiones. En el nodo, cada emisión toma los
+ * locks de las franjas de sus servicios hasta que su transacción termina, así que dos emisiones con
+ * servicios distintos casi nunca se esperan. Entre nodos, la factura reclama sus servicios con un UPDATE
+ * condicional de Servicio.ID_factura: el segundo nodo espera el lock de fila y no encuentra el servicio libre.
+ * Los UPDATE van por JDBC para no invalidar la región de Servicio en la caché de segundo nivel. El UPDATE
+ * también exige estado COMPLETADO en la base: otro módulo escribe Servicio.estado y la región puede tenerlo viejo.
+ */
+@Component
+public class ReservaServicios {
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final ReentrantLock[] franjas;
+    private final long esperaMs;
+
+    public ReservaServicios(NamedParameterJdbcTemplate jdbc,
+                            @Value("${facturacion.emision.franjas-bloqueo:1024}") int cantidadFranjas,
+                            @Value("${facturacion.emision.espera-bloqueo-ms:500}") long esperaMs) {
+        this.jdbc = jdbc;
+        this.franjas = new ReentrantLock[cantidadFranjas];
+        for (int i = 0; i < cantidadFranjas; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        this.esperaMs = esperaMs;
+    }
+
+    /**
+     * Toma los locks de los servicios hasta que termine la transacción actual (commit o rollback). Si otra
+     * emisión del nodo los retiene más de espera-bloqueo-ms, falla con ServiciosEnConflictoException.
+     */
+    public void bloquear(List<String> idsServicios) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Los servicios solo se bloquean dentro de una transacción");
+        }
+        // Siempre en orden ascendente de franja para que dos emisiones no se bloqueen mutuamente
+        int[] indices = idsServicios.stream().mapToInt(this::franja).distinct().sorted().toArray();
+        int tomadas = 0;
+        try {
+            for (int indice : indices) {
+                if (!franjas[indice].tryLock(esperaMs, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                tomadas++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (tomadas < indices.length) {
+            liberar(indices, tomadas);
+            throw new ServiciosEnConflictoException("Otra emisión está facturando alguno de estos servicios", idsServicios);
+        }
+        int[] bloqueadas = indices;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                liberar(bloqueadas, bloqueadas.length);
+            }
+        });
+    }
+
+    // Marca los servicios con la factura; falla si alguno ya tiene una factura activa o dejó de estar completado
+    public void reservar(String idFactura, List<String> idsServicios) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+            .addValue("idFactura", idFactura)
+            .addValue("ids", idsServicios);
+        int reservados = jdbc.update("UPDATE Servicio SET ID_factura = :idFactura "
+            + "WHERE ID_servicio IN (:ids) AND ID_factura IS NULL AND estado = 'COMPLETADO'", parametros);
+        if (reservados < idsServicios.stream().distinct().count()) {
+            List<String> yaFacturados = jdbc.queryForList(
+                "SELECT ID_servicio FROM Servicio WHERE ID_servicio IN (:ids) AND ID_factura <> :idFactura",
+                parametros, String.class);
+            if (!yaFacturados.isEmpty()) {
+                throw new ServiciosEnConflictoException("Los siguientes servicios ya están facturados", yaFacturados);
+            }
+            List<String> noCompletados = jdbc.queryForList(
+                "SELECT ID_servicio FROM Servicio WHERE ID_servicio IN (:ids) AND estado <> 'COMPLETADO'",
+                parametros, String.class);
+            throw new IllegalArgumentException("Los siguientes servicios deben estar completados para facturar: " + noCompletados);
+        }
+    }
+
+    // Al anular la factura sus servicios se pueden volver a facturar
+    public void liberar(String idFactura) {
+        jdbc.update("UPDATE Servicio SET ID_factura = NULL WHERE ID_factura = :idFactura",
+            new MapSqlParameterSource("idFactura", idFactura));
+    }
+
+    public void liberar(List<String> idsFacturas) {
+        jdbc.update("UPDATE Servicio SET ID_factura = NULL WHERE ID_factura IN (:ids)",
+            new MapSqlParameterSource("ids", idsFacturas));
+    }
+
+    private int franja(String idServicio) {
+        return Math.floorMod(idServicio.hashCode(), franjas.length);
+    }
+
+    private void liberar(int[] indices, int cantidad) {
+        for (int i = cantidad - 1; i >= 0; i--) {
+            franjas[indices[i]].unlock();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.geminiambiental.facturacion.service;
+
+import com.geminiambiental.facturacion.dto.ResultadoTransicionDTO;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.event.TransicionFacturaEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pago y anulación de muchas facturas por petición. Cada chunk va en su propia transacción: un SELECT ...
+ * FOR UPDATE trae y bloquea el estado de todas las facturas del chunk (en orden de ID, para que dos lotes
+ * no se bloqueen mutuamente), las transiciones se validan en memoria y se aplican con un batch JDBC de
+ * UPDATE. Así el costo por chunk son tres o cuatro viajes a la base y no dos por factura. Una factura que no
+ * puede pasar al nuevo estado no impide las demás; el resultado se reporta por ID en el orden recibido.
+ */
+@Component
+@Slf4j
+public class TransicionesFacturaLote {
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final ReservaServicios reservaServicios;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanoChunk;
+
+    public TransicionesFacturaLote(NamedParameterJdbcTemplate jdbc, TransactionTemplate transactionTemplate,
+                                   ReservaServicios reservaServicios, ApplicationEventPublisher eventPublisher,
+                                   @Value("${facturacion.transiciones-lote.tamano-chunk:500}") int tamanoChunk) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.reservaServicios = reservaServicios;
+        this.eventPublisher = eventPublisher;
+        this.tamanoChunk = tamanoChunk;
+    }
+
+    private record FilaFactura(String idFactura, String dniCliente, Factura.EstadoFactura estado, BigDecimal montoTotal,
+                               LocalDate fechaVencimiento) {
+    }
+
+    private interface Transicion {
+
+        Factura.EstadoFactura destino();
+
+        // null si la factura puede pasar al estado destino, o el motivo del rechazo
+        String validar(FilaFactura factura);
+
+        void aplicar(List<FilaFactura> facturas);
+    }
+
+    public List<ResultadoTransicionDTO> marcarComoPagadas(List<String> idsFacturas, Map<String, LocalDateTime> fechasPago) {
+        LocalDateTime ahora = LocalDateTime.now();
+        Map<String, LocalDateTime> fechas = fechasPago != null ? fechasPago : Map.of();
+        return aplicar(idsFacturas, new Transicion() {
+            @Override
+            public Factura.EstadoFactura destino() {
+                return Factura.EstadoFactura.Pagada;
+            }
+
+            @Override
+            public String validar(FilaFactura factura) {
+                if (factura.estado() != Factura.EstadoFactura.Pendiente) {
+                    return "Solo se pueden marcar como pagadas las facturas pendientes";
+                }
+                LocalDateTime fechaPago = fechas.get(factura.idFactura());
+                return fechaPago != null && fechaPago.isAfter(ahora) ? "La fecha de pago no puede ser futura" : null;
+            }
+
+            @Override
+            public void aplicar(List<FilaFactura> facturas) {
+                jdbc.batchUpdate("UPDATE Factura SET estado = 'Pagada', fecha_pago = :fechaPago WHERE ID_factura = :idFactura",
+                    facturas.stream()
+                        .map(factura -> new MapSqlParameterSource()
+                            .addValue("idFactura", factura.idFactura())
+                            .addValue("fechaPago", fechas.getOrDefault(factura.idFactura(), ahora)))
+                        .toArray(MapSqlParameterSource[]::new));
+            }
+        });
+    }
+
+    public List<ResultadoTransicionDTO> anular(List<String> idsFacturas, String motivo, Map<String, String> motivos) {
+        Map<String, String> motivosPorFactura = motivos != null ? motivos : Map.of();
+        return aplicar(idsFacturas, new Transicion() {
+            @Override
+            public Factura.EstadoFactura destino() {
+                return Factura.EstadoFactura.Anulada;
+            }
+
+            @Override
+            public String validar(FilaFactura factura) {
+                if (factura.estado() == Factura.EstadoFactura.Pagada) {
+                    return "No se pueden anular facturas pagadas";
+                }
+                if (factura.estado() == Factura.EstadoFactura.Anulada) {
+                    return "La factura ya está anulada";
+                }
+                return motivoDe(factura) == null ? "El motivo de anulación es requerido" : null;
+            }
+
+            @Override
+            public void aplicar(List<FilaFactura> facturas) {
+                jdbc.batchUpdate("UPDATE Factura SET estado = 'Anulada', "
+                        + "observaciones = CONCAT(COALESCE(observaciones, ''), :anotacion) WHERE ID_factura = :idFactura",
+                    facturas.stream()
+                        .map(factura -> new MapSqlParameterSource()
+                            .addValue("idFactura", factura.idFactura())
+                            .addValue("anotacion", "\nANULADA: " + motivoDe(factura)))
+                        .toArray(MapSqlParameterSource[]::new));
+                reservaServicios.liberar(facturas.stream().map(FilaFactura::idFactura).toList());
+            }
+
+            private String motivoDe(FilaFactura factura) {
+                String propio = motivosPorFactura.get(factura.idFactura());
+                String elegido = propio != null && !propio.isBlank() ? propio : motivo;
+                return elegido != null && !elegido.isBlank() ? elegido : null;
+            }
+        });
+    }
+
+    private List<ResultadoTransicionDTO> aplicar(List<String> idsFacturas, Transicion transicion) {
+        ResultadoTransicionDTO[] resultados = new ResultadoTransicionDTO[idsFacturas.size()];
+        // Posición de cada ID en la petición; una factura repetida se aplica una sola vez
+        Map<String, Integer> indicePorId = new LinkedHashMap<>();
+        for (int i = 0; i < idsFacturas.size(); i++) {
+            String idFactura = idsFacturas.get(i);
+            if (idFactura == null || idFactura.isBlank()) {
+                resultados[i] = ResultadoTransicionDTO.fallida(i, idFactura, null, "ID de factura no puede estar vacío");
+            } else if (indicePorId.putIfAbsent(idFactura, i) != null) {
+                resultados[i] = ResultadoTransicionDTO.fallida(i, idFactura, null, "Factura repetida en la solicitud");
+            }
+        }
+
+        List<String> ids = new ArrayList<>(indicePorId.keySet());
+        for (int desde = 0; desde < ids.size(); desde += tamanoChunk) {
+            List<String> chunk = ids.subList(desde, Math.min(desde + tamanoChunk, ids.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> aplicarChunk(chunk, indicePorId, transicion, resultados));
+            } catch (RuntimeException e) {
+                log.warn("Falló el chunk de {} facturas a {}: {}", chunk.size(), transicion.destino(), e.getMessage());
+                for (String idFactura : chunk) {
+                    int indice = indicePorId.get(idFactura);
+                    resultados[indice] = ResultadoTransicionDTO.fallida(indice, idFactura, null,
+                        "Error al actualizar la factura: " + e.getMessage());
+                }
+            }
+        }
+
+        log.info("Transición en lote a {}: {} de {} facturas", transicion.destino(),
+            Arrays.stream(resultados).filter(ResultadoTransicionDTO::isExitosa).count(), idsFacturas.size());
+        return Arrays.asList(resultados);
+    }
+
+    private void aplicarChunk(List<String> chunk, Map<String, Integer> indicePorId, Transicion transicion,
+                              ResultadoTransicionDTO[] resultados) {
+        Map<String, FilaFactura> filas = new HashMap<>();
+        jdbc.query("SELECT ID_factura, DNI_cliente, estado, monto_total, fecha_vencimiento FROM Factura "
+                + "WHERE ID_factura IN (:ids) ORDER BY ID_factura FOR UPDATE",
+            new MapSqlParameterSource("ids", chunk), rs -> {
+                FilaFactura fila = new FilaFactura(rs.getString("ID_factura"), rs.getString("DNI_cliente"),
+                    Factura.EstadoFactura.valueOf(rs.getString("estado")), rs.getBigDecimal("monto_total"),
+                    rs.getObject("fecha_vencimiento", LocalDate.class));
+                filas.put(fila.idFactura(), fila);
+            });
+
+        List<FilaFactura> aplicables = new ArrayList<>(chunk.size());
+        for (String idFactura : chunk) {
+            int indice = indicePorId.get(idFactura);
+            FilaFactura fila = filas.get(idFactura);
+            String error = fila == null ? "Factura no encontrada" : transicion.validar(fila);
+            if (error != null) {
+                resultados[indice] = ResultadoTransicionDTO.fallida(indice, idFactura, fila != null ? fila.estado() : null, error);
+            } else {
+                aplicables.add(fila);
+            }
+        }
+        if (aplicables.isEmpty()) {
+            return;
+        }
+
+        transicion.aplicar(aplicables);
+        for (FilaFactura fila : aplicables) {
+            // Contadores, métricas y outbox, como en la transición de una sola factura
+            eventPublisher.publishEvent(new TransicionFacturaEvent(fila.idFactura(), fila.dniCliente(), fila.estado(),
+                transicion.destino(), fila.montoTotal(), fila.fechaVencimiento()));
+            int indice = indicePorId.get(fila.idFactura());
+            resultados[indice] = ResultadoTransicionDTO.exitosa(indice, fila.idFactura(), fila.estado(), transicion.destino());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.geminiambiental.facturacion.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Suma de montos en centavos sobre un long, para no crear un BigDecimal por cada multiplicación y suma
+ * de los precios por línea. Los montos con más de 2 decimales o que desbordan el long pasan a BigDecimal,
+ * así que el resultado es siempre el mismo que con la cadena de BigDecimal (comparado con compareTo).
+ * No es thread-safe: cada cálculo usa su propia instancia.
+ */
+public final class Dinero {
+
+    public static final int ESCALA = 2;
+
+    // Un precio DECIMAL(12,2) tiene como mucho 12 dígitos; con 18 en centavos siempre cabe en un long
+    private static final int DIGITOS_MAXIMOS = 18;
+    private static final long NO_REPRESENTABLE = Long.MIN_VALUE;
+
+    private long centavos;
+    // Distinto de null cuando la suma ya no se puede llevar en centavos
+    private BigDecimal desbordado;
+
+    private Dinero() {
+    }
+
+    public static Dinero cero() {
+        return new Dinero();
+    }
+
+    // Subtotal de una línea, precio × cantidad
+    public static BigDecimal multiplicar(BigDecimal precio, int cantidad) {
+        return cero().sumarProducto(precio, cantidad).aBigDecimal();
+    }
+
+    public Dinero sumar(BigDecimal monto) {
+        return sumarProducto(monto, 1);
+    }
+
+    public Dinero sumarProducto(BigDecimal precio, int cantidad) {
+        if (desbordado == null) {
+            long precioEnCentavos = aCentavos(precio);
+            if (precioEnCentavos != NO_REPRESENTABLE) {
+                try {
+                    long suma = Math.addExact(centavos, Math.multiplyExact(precioEnCentavos, cantidad));
+                    if (suma != NO_REPRESENTABLE) {
+                        centavos = suma;
+                        return this;
+                    }
+                } catch (ArithmeticException e) {
+                    // Desborda el long: se sigue en BigDecimal
+                }
+            }
+            desbordado = BigDecimal.valueOf(centavos, ESCALA);
+        }
+        desbordado = desbordado.add(precio.multiply(BigDecimal.valueOf(cantidad)));
+        return this;
+    }
+
+    public BigDecimal aBigDecimal() {
+        return desbordado != null ? desbordado : BigDecimal.valueOf(centavos, ESCALA);
+    }
+
+    static long aCentavos(BigDecimal valor) {
+        int escala = valor.scale();
+        if (escala < 0 || escala > ESCALA || valor.precision() + ESCALA - escala > DIGITOS_MAXIMOS) {
+            return NO_REPRESENTABLE;
+        }
+        long sinEscala = valor.unscaledValue().longValue();
+        return escala == ESCALA ? sinEscala : escala == 1 ? sinEscala * 10 : sinEscala * 100;
+    }
+}
@@ -0,0 +1,172 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.config.ControlAdmision;
+import com.geminiambiental.facturacion.dto.FiltrosFacturaDTO;
+import com.geminiambiental.facturacion.exception.SobrecargaException;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+	"facturacion.admision.estadisticas.maximo=1",
+	"facturacion.admision.reintentar-en-segundos=2",
+	"facturacion.paginacion.tamano-maximo=5"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdmisionTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ControlAdmision controlAdmision;
+
+	@Autowired
+	private MeterRegistry registro;
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private ThreadPoolTaskScheduler planificador;
+
+	@Test
+	void conElCompartimentoLlenoRespondeServicioNoDisponible() throws Exception {
+		double rechazadasAntes = registro.counter("facturacion.admision.rechazadas", "compartimento", "estadisticas").count();
+		// Una consulta de estadísticas en curso ocupa el único lugar del compartimento
+		HandlerInterceptor ocupante = controlAdmision.interceptor("estadisticas");
+		MockHttpServletRequest enCurso = new MockHttpServletRequest();
+		assertThat(ocupante.preHandle(enCurso, new MockHttpServletResponse(), null)).isTrue();
+
+		mockMvc.perform(get("/api/facturacion/estadisticas"))
+			.andExpect(status().isServiceUnavailable())
+			.andExpect(header().string("Retry-After", "2"))
+			.andExpect(jsonPath("$.status").value(503));
+		// Los demás compartimentos siguen admitiendo
+		mockMvc.perform(get("/api/facturacion/servicios-para-facturar"))
+			.andExpect(status().isOk());
+
+		ocupante.afterCompletion(enCurso, new MockHttpServletResponse(), null, null);
+		mockMvc.perform(get("/api/facturacion/estadisticas"))
+			.andExpect(status().isOk());
+		assertThat(registro.counter("facturacion.admision.rechazadas", "compartimento", "estadisticas").count())
+			.isEqualTo(rechazadasAntes + 1);
+	}
+
+	@Test
+	void elLimiteSeReduceConLatenciaAltaYRecuperaAlLlenarse() throws Exception {
+		MockEnvironment entorno = new MockEnvironment()
+			.withProperty("facturacion.admision.prueba.maximo", "4")
+			.withProperty("facturacion.admision.prueba.objetivo-latencia-ms", "0");
+		ControlAdmision control = new ControlAdmision(entorno, new SimpleMeterRegistry(), dataSource, 1, 50);
+		HandlerInterceptor interceptor = control.interceptor("prueba");
+
+		List<MockHttpServletRequest> admitidas = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			MockHttpServletRequest peticion = new MockHttpServletRequest();
+			assertThat(interceptor.preHandle(peticion, new MockHttpServletResponse(), null)).isTrue();
+			admitidas.add(peticion);
+		}
+		assertThatThrownBy(() -> interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), null))
+			.isInstanceOf(SobrecargaException.class);
+		Thread.sleep(2);
+		for (MockHttpServletRequest peticion : admitidas) {
+			interceptor.afterCompletion(peticion, new MockHttpServletResponse(), null, null);
+		}
+
+		// Con objetivo de 0 ms cualquier latencia lo supera: el límite baja a la mitad
+		control.ajustar();
+		assertThat(control.getLimite("prueba")).isEqualTo(2);
+
+		// Una ventana sin completadas con el compartimento lleno lo sube de a uno
+		for (int i = 0; i < 2; i++) {
+			interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), null);
+		}
+		control.ajustar();
+		assertThat(control.getLimite("prueba")).isEqualTo(3);
+		control.ajustar();
+		assertThat(control.getLimite("prueba")).isEqualTo(3);
+	}
+
+	@Test
+	void elLimiteSeAjustaConLasTareasProgramadasOcupadas() throws Exception {
+		CountDownLatch liberar = new CountDownLatch(1);
+		// Vencidas, recargas y purgas ocupando todos los hilos del planificador de @Scheduled
+		for (int i = 0; i < planificador.getPoolSize(); i++) {
+			planificador.execute(() -> {
+				try {
+					liberar.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		MockEnvironment entorno = new MockEnvironment()
+			.withProperty("facturacion.admision.intervalo-ms", "20")
+			.withProperty("facturacion.admision.prueba.maximo", "4")
+			.withProperty("facturacion.admision.prueba.objetivo-latencia-ms", "0");
+		ControlAdmision control = new ControlAdmision(entorno, new SimpleMeterRegistry(), dataSource, 1, 50);
+		control.iniciar();
+		try {
+			HandlerInterceptor interceptor = control.interceptor("prueba");
+			MockHttpServletRequest peticion = new MockHttpServletRequest();
+			interceptor.preHandle(peticion, new MockHttpServletResponse(), null);
+			Thread.sleep(2);
+			interceptor.afterCompletion(peticion, new MockHttpServletResponse(), null, null);
+
+			// Nadie llama a ajustar(): lo hace el hilo propio del control
+			long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (control.getLimite("prueba") == 4 && System.nanoTime() < limite) {
+				Thread.sleep(10);
+			}
+			assertThat(control.getLimite("prueba")).isEqualTo(2);
+		} finally {
+			control.detener();
+			liberar.countDown();
+		}
+	}
+
+	@Test
+	void recortaElTamanoDePagina() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearFacturas(jdbc, "F", 12);
+		FiltrosFacturaDTO filtros = new FiltrosFacturaDTO();
+		filtros.setSize(100_000);
+		filtros.setIncluirDetalles(false);
+
+		assertThat(facturacionService.buscarFacturas(filtros).getContent()).hasSize(5);
+		assertThat(facturacionService.buscarFacturasPorCursor(filtros).getContent()).hasSize(5);
+	}
+}
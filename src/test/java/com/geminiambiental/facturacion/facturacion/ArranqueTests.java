@@ -0,0 +1,46 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.FacturacionApplication;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArranqueTests {
+
+	@Test
+	void publicaLasFasesDelArranqueYDifiereSpringdoc() {
+		// Base propia: el create-drop al cerrar no debe tocar la que comparten las demás pruebas. Sin caché de
+		// segundo nivel por lo mismo: al cerrar, Hibernate cerraría las regiones que usan los demás contextos
+		try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(FacturacionApplication.class)
+				.applicationStartup(new BufferingApplicationStartup(10_000))
+				.profiles("test")
+				.run("--server.port=0", "--spring.datasource.url=jdbc:h2:mem:arranque;MODE=MySQL",
+					"--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+					"--facturacion.arranque.documentacion-diferida=true")) {
+
+			MeterRegistry registro = contexto.getBean(MeterRegistry.class);
+			double refresco = registro.get("facturacion.arranque.fase").tag("fase", "spring.context.refresh")
+				.timeGauge().value(TimeUnit.MILLISECONDS);
+			double total = registro.get("facturacion.arranque.fase").tag("fase", "total")
+				.timeGauge().value(TimeUnit.MILLISECONDS);
+			assertThat(refresco).isPositive();
+			assertThat(total).isGreaterThan(refresco);
+
+			ConfigurableListableBeanFactory beans = contexto.getBeanFactory();
+			assertThat(Arrays.stream(beans.getBeanDefinitionNames())
+				.map(beans::getBeanDefinition)
+				.filter(definicion -> definicion.getBeanClassName() != null
+					&& definicion.getBeanClassName().startsWith("org.springdoc.")))
+				.isNotEmpty()
+				.allMatch(definicion -> definicion.isLazyInit());
+		}
+	}
+}
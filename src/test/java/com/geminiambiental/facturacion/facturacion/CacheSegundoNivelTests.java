@@ -0,0 +1,131 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.entity.Servicio;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class CacheSegundoNivelTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private Statistics estadisticas;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+		estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void reemitirNoVuelveALeerServiciosNiProductos() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-CACHE", 2, "COMPLETADO");
+
+		FacturaDTO primera = facturacionService.emitirFactura(servicios, "Primera emisión");
+		facturacionService.anularFactura(primera.getIdFactura(), "Error en la factura");
+
+		estadisticas.clear();
+		FacturaDTO reemitida = facturacionService.emitirFactura(servicios, "Reemisión");
+
+		assertThat(reemitida.getMontoTotal()).isEqualByComparingTo(DatosPrueba.PRECIO_SERVICIO.multiply(BigDecimal.valueOf(2)));
+		assertThat(estadisticas.getEntityStatistics("com.geminiambiental.facturacion.entity.Servicio").getLoadCount()).isZero();
+		assertThat(estadisticas.getEntityStatistics("com.geminiambiental.facturacion.entity.ServicioProducto").getLoadCount()).isZero();
+		assertThat(estadisticas.getCollectionStatistics("com.geminiambiental.facturacion.entity.Servicio.productos").getLoadCount()).isZero();
+		assertRegion("servicio", 2);
+		assertRegion("servicio-productos", 2);
+		assertRegion("servicio-producto", 4);
+		// Solo los INSERT de la factura y de sus detalles (en un batch)
+		assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void publicaAciertosYFallosEnActuator() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-MET", 1, "COMPLETADO");
+		double aciertosAntes = aciertos("servicio");
+
+		FacturaDTO factura = facturacionService.emitirFactura(servicios, null);
+		facturacionService.anularFactura(factura.getIdFactura(), "Prueba");
+		facturacionService.emitirFactura(servicios, null);
+
+		assertThat(aciertos("servicio")).isGreaterThan(aciertosAntes);
+		assertThat(meterRegistry.find("cache.gets").tag("cache", "producto").tag("result", "miss").functionCounter()).isNotNull();
+	}
+
+	@Test
+	void unServicioQueDejoDeEstarCompletadoNoSeFactura() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-VIEJO", 1, "COMPLETADO");
+		FacturaDTO factura = facturacionService.emitirFactura(servicios, null);
+		facturacionService.anularFactura(factura.getIdFactura(), "Prueba");
+		// Otro módulo cancela el servicio; la región todavía lo tiene completado
+		jdbc.update("UPDATE Servicio SET estado = 'CANCELADO' WHERE ID_servicio = ?", servicios.get(0));
+		assertThat(entityManagerFactory.getCache().contains(Servicio.class, servicios.get(0))).isTrue();
+
+		assertThatThrownBy(() -> facturacionService.emitirFactura(servicios, null))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("deben estar completados");
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura WHERE estado <> 'Anulada'", Long.class)).isZero();
+	}
+
+	@Test
+	void unServicioCompletadoDespuesDeCachearseSeFactura() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-NUEVO", 1, "EN_PROGRESO");
+		assertThatThrownBy(() -> facturacionService.emitirFactura(servicios, null))
+			.isInstanceOf(IllegalArgumentException.class);
+		// Otro módulo lo completa; la región todavía lo tiene en progreso
+		jdbc.update("UPDATE Servicio SET estado = 'COMPLETADO' WHERE ID_servicio = ?", servicios.get(0));
+		assertThat(entityManagerFactory.getCache().contains(Servicio.class, servicios.get(0))).isTrue();
+
+		assertThat(facturacionService.emitirFactura(servicios, null).getMontoTotal())
+			.isEqualByComparingTo(DatosPrueba.PRECIO_SERVICIO);
+	}
+
+	@Test
+	void lasAyudasDeDatosVacianLaCache() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-AYUDA", 1, "COMPLETADO");
+		facturacionService.emitirFactura(servicios, null);
+		assertThat(entityManagerFactory.getCache().contains(Servicio.class, servicios.get(0))).isTrue();
+
+		DatosPrueba.limpiar(jdbc);
+
+		assertThat(entityManagerFactory.getCache().contains(Servicio.class, servicios.get(0))).isFalse();
+	}
+
+	private void assertRegion(String region, long aciertos) {
+		CacheRegionStatistics estadisticasRegion = estadisticas.getDomainDataRegionStatistics(region);
+		assertThat(estadisticasRegion.getHitCount()).as(region).isEqualTo(aciertos);
+		assertThat(estadisticasRegion.getMissCount()).as(region).isZero();
+	}
+
+	private double aciertos(String region) {
+		return meterRegistry.get("cache.gets").tag("cache", region).tag("result", "hit").functionCounter().count();
+	}
+}
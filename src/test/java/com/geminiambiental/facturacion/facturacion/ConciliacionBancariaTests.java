@@ -0,0 +1,192 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.ResultadoConciliacionDTO;
+import com.geminiambiental.facturacion.dto.ResultadoConciliacionDTO.IncidenciaDTO;
+import com.geminiambiental.facturacion.dto.ResultadoConciliacionDTO.Motivo;
+import com.geminiambiental.facturacion.service.ConciliacionBancaria;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Lotes de 2 pagos para cruzar varios llamados al pago en lote; pocas incidencias para probar el límite
+@SpringBootTest(properties = {"facturacion.conciliacion.tamano-lote=2", "facturacion.conciliacion.max-incidencias=6"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Slf4j
+class ConciliacionBancariaTests {
+
+	@Autowired
+	private ConciliacionBancaria conciliacion;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+	}
+
+	@Test
+	void conciliaPorReferenciaOClienteYMontoYReportaElResto(@TempDir Path directorio) throws Exception {
+		factura("F-2025-0001", "111", "100.00", "Pendiente");
+		factura("F-2025-0002", "111", "200.00", "Pendiente");
+		factura("F-2025-0003", "222", "300.00", "Pendiente");
+		factura("F-2025-0004", "222", "300.00", "Pendiente");
+		factura("F-2025-0005", "333", "50.00", "Pagada");
+		factura("F-2025-0006", "333", "75.00", "Pendiente");
+		Path extracto = directorio.resolve("extracto.csv");
+		Files.writeString(extracto, String.join("\n",
+			"fecha,referencia,dni_cliente,monto",
+			"2025-11-03,\"PAGO F-2025-0001\",111,100.00",
+			"2025-11-03,TRANSFERENCIA,111,200",
+			"2025-11-03,,222,300.00",
+			"04/11/2025,F-2025-0005,333,50.00",
+			"2025-11-04,F-2025-0006,333,70.00",
+			"",
+			"2025-11-04,\"F-2025-0001, reintento\",111,100.00",
+			"2025-11-04,COMISION,,-15.00",
+			"2025-11-04,X,999,abc",
+			"2025-11-05,,444,10.00",
+			"2099-01-01,F-2025-0006,333,75.00"));
+
+		ResultadoConciliacionDTO resultado = conciliacion.conciliar(extracto);
+
+		assertThat(resultado.getLineas()).isEqualTo(10);
+		assertThat(resultado.getConciliadas()).isEqualTo(2);
+		assertThat(resultado.getConciliadasPorId()).isEqualTo(2);
+		assertThat(resultado.getConciliadasPorMonto()).isEqualTo(1);
+		assertThat(resultado.getMontoConciliado()).isEqualByComparingTo("300.00");
+		assertThat(resultado.getIgnoradas()).isEqualTo(1);
+		assertThat(resultado.getIncidencias())
+			.extracting(IncidenciaDTO::getLinea, IncidenciaDTO::getMotivo, IncidenciaDTO::getFacturas)
+			.containsExactly(
+				tuple(4L, Motivo.AMBIGUA, List.of("F-2025-0003", "F-2025-0004")),
+				tuple(5L, Motivo.SIN_COINCIDENCIA, null),
+				tuple(6L, Motivo.MONTO_DISTINTO, List.of("F-2025-0006")),
+				tuple(8L, Motivo.DUPLICADA, List.of("F-2025-0001")),
+				tuple(10L, Motivo.INVALIDA, null),
+				tuple(11L, Motivo.SIN_COINCIDENCIA, null));
+		// La fecha futura solo se rechaza al pagar, en el último lote
+		assertThat(resultado.getIncidenciasOmitidas()).isEqualTo(1);
+		assertThat(resultado.getRechazadas()).isEqualTo(1);
+		assertThat(resultado.getSinCoincidencia()).isEqualTo(2);
+
+		assertThat(jdbc.queryForList("SELECT estado FROM Factura ORDER BY ID_factura", String.class))
+			.containsExactly("Pagada", "Pagada", "Pendiente", "Pendiente", "Pagada", "Pendiente");
+		assertThat(jdbc.queryForObject("SELECT fecha_pago FROM Factura WHERE ID_factura = 'F-2025-0001'", LocalDateTime.class))
+			.isEqualTo(LocalDate.of(2025, 11, 3).atStartOfDay());
+	}
+
+	@Test
+	void unMontoFueraDeRangoEsUnaLineaInvalidaYNoCortaLaImportacion(@TempDir Path directorio) throws Exception {
+		factura("F-2025-0001", "111", "100.00", "Pendiente");
+		factura("F-2025-0002", "111", "200.00", "Pendiente");
+		Path extracto = directorio.resolve("extracto.csv");
+		Files.writeString(extracto, String.join("\n",
+			"fecha,referencia,dni_cliente,monto",
+			"2025-11-03,F-2025-0001,111,100.00",
+			"2025-11-03,F-2025-0002,111,123456789012345678901234.00",
+			"2025-11-03,,111,200.00"));
+
+		ResultadoConciliacionDTO resultado = conciliacion.conciliar(extracto);
+
+		assertThat(resultado.getConciliadas()).isEqualTo(2);
+		assertThat(resultado.getInvalidas()).isEqualTo(1);
+		assertThat(resultado.getIncidencias())
+			.extracting(IncidenciaDTO::getLinea, IncidenciaDTO::getMotivo, IncidenciaDTO::getDetalle)
+			.containsExactly(tuple(3L, Motivo.INVALIDA, "Monto inválido: 123456789012345678901234.00"));
+	}
+
+	@Test
+	void recibeElExtractoEnElCuerpoConPuntoYComa() throws Exception {
+		factura("F-2025-0001", "111", "1250.50", "Pendiente");
+
+		mockMvc.perform(post("/api/facturacion/conciliar-extracto")
+				.contentType("text/csv")
+				.content("fecha;referencia;monto\n2025-11-03;Pago F-2025-0001;1250,50\n"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.conciliadas").value(1))
+			.andExpect(jsonPath("$.monto_conciliado").value(1250.50));
+		mockMvc.perform(post("/api/facturacion/conciliar-extracto")
+				.contentType("text/csv")
+				.content("fecha,referencia\n2025-11-03,F-2025-0001\n"))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	@Tag("benchmark")
+	void unMillonDeLineasConHeapAcotado(@TempDir Path directorio) throws Exception {
+		// Con 49.999 clientes ninguna pendiente repite cliente y monto
+		DatosPrueba.crearFacturas(jdbc, "F-2025", 200_000, 49_999);
+		Path extracto = directorio.resolve("extracto.csv");
+		long[] lineas = {0};
+		try (BufferedWriter salida = Files.newBufferedWriter(extracto)) {
+			salida.write("fecha,referencia,dni_cliente,monto\n");
+			// Las pendientes alternan entre referencia y cliente con monto; el resto de líneas no coincide
+			jdbc.query("SELECT ID_factura, DNI_cliente, monto_total FROM Factura WHERE estado = 'Pendiente'", rs -> {
+				try {
+					String referencia = lineas[0]++ % 2 == 0 ? "PAGO " + rs.getString(1) : "TRANSFERENCIA";
+					salida.write("2025-11-03," + referencia + "," + rs.getString(2) + "," + rs.getBigDecimal(3) + "\n");
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			for (long i = lineas[0]; i < 1_000_000; i++) {
+				salida.write("2025-11-03,TRANSFERENCIA " + i + ",99999999," + (1 + i % 9000) + ".00\n");
+			}
+		}
+
+		System.gc();
+		List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+			.filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+		heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+		long antes = heap.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+
+		ResultadoConciliacionDTO resultado = conciliacion.conciliar(extracto);
+
+		long pico = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+		log.info("{} líneas ({} MB) en {} ms: {} conciliadas, {} sin coincidencia; heap {} MB antes, pico {} MB",
+			resultado.getLineas(), Files.size(extracto) / (1024 * 1024), resultado.getDuracionMs(), resultado.getConciliadas(),
+			resultado.getSinCoincidencia(), antes / (1024 * 1024), pico / (1024 * 1024));
+		assertThat(resultado.getLineas()).isEqualTo(1_000_000);
+		assertThat(resultado.getConciliadas()).isEqualTo(lineas[0]);
+		assertThat(resultado.getIncidencias()).hasSize(6);
+	}
+
+	private void factura(String id, String dniCliente, String monto, String estado) {
+		jdbc.update("INSERT INTO Factura (ID_factura, DNI_cliente, fecha_emision, monto_total, estado, fecha_vencimiento) "
+			+ "VALUES (?, ?, ?, ?, ?, ?)", id, dniCliente, Date.valueOf(LocalDate.of(2025, 10, 1)), new BigDecimal(monto), estado,
+			Date.valueOf(LocalDate.of(2025, 10, 31)));
+	}
+}
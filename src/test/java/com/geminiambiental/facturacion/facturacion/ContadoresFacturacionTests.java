@@ -0,0 +1,113 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.EmitirFacturaRequest;
+import com.geminiambiental.facturacion.dto.EstadisticasFacturacionDTO;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.service.ContadoresFacturacion;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ContadoresFacturacionTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private ContadoresFacturacion contadoresFacturacion;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private List<String> servicios;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+		servicios = DatosPrueba.crearServicios(jdbc, "SERV-CONT", 4, "COMPLETADO");
+		DatosPrueba.crearFacturas(jdbc, "F", 203);
+		jdbc.update("UPDATE Factura SET fecha_vencimiento = ? WHERE estado = 'Pendiente' AND MOD(CAST(SUBSTRING(ID_factura, 3) AS INT), 3) = 0",
+			LocalDate.now().plusDays(10));
+		contadoresFacturacion.recargar();
+	}
+
+	@Test
+	void respondeDesdeMemoriaSinConsultarLaBase() {
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		EstadisticasFacturacionDTO enMemoria = facturacionService.obtenerEstadisticas(null, null, null, false);
+
+		assertThat(estadisticas.getPrepareStatementCount()).isZero();
+		assertIguales(enMemoria, facturacionService.obtenerEstadisticas(null, null, null, true));
+		assertThat(enMemoria.getFacturasVencidas()).isPositive().isLessThan(enMemoria.getFacturasPendientes());
+	}
+
+	@Test
+	void seAjustaConLasTransicionesConfirmadas() {
+		FacturaDTO emitida = facturacionService.emitirFactura(servicios.subList(0, 2), "Contadores");
+		FacturaDTO aPagar = facturacionService.emitirFactura(servicios.subList(2, 3), null);
+		facturacionService.emitirFacturasLote(List.of(solicitud(servicios.get(3))));
+		assertIguales(contadoresFacturacion.instantanea(), facturacionService.obtenerEstadisticas());
+
+		facturacionService.marcarComoPagada(aPagar.getIdFactura());
+		facturacionService.anularFactura(emitida.getIdFactura(), "Prueba");
+		assertIguales(contadoresFacturacion.instantanea(), facturacionService.obtenerEstadisticas());
+
+		facturacionService.procesarFacturasVencidas();
+		EstadisticasFacturacionDTO despues = contadoresFacturacion.instantanea();
+		assertThat(despues.getFacturasVencidas()).isZero();
+		assertIguales(despues, facturacionService.obtenerEstadisticas());
+	}
+
+	@Test
+	void noCuentaTransaccionesRevertidas() {
+		EstadisticasFacturacionDTO antes = contadoresFacturacion.instantanea();
+
+		transactionTemplate.executeWithoutResult(status -> {
+			facturacionService.emitirFactura(servicios.subList(0, 1), null);
+			facturacionService.marcarComoPagada("F-0000000");
+			status.setRollbackOnly();
+		});
+
+		assertIguales(contadoresFacturacion.instantanea(), antes);
+	}
+
+	private static EmitirFacturaRequest solicitud(String idServicio) {
+		EmitirFacturaRequest solicitud = new EmitirFacturaRequest();
+		solicitud.setIdsServicios(List.of(idServicio));
+		return solicitud;
+	}
+
+	private static void assertIguales(EstadisticasFacturacionDTO actual, EstadisticasFacturacionDTO esperado) {
+		assertThat(actual.getFacturasPendientes()).isEqualTo(esperado.getFacturasPendientes());
+		assertThat(actual.getFacturasVencidas()).isEqualTo(esperado.getFacturasVencidas());
+		assertThat(actual.getFacturasPagadas()).isEqualTo(esperado.getFacturasPagadas());
+		assertThat(actual.getFacturasAnuladas()).isEqualTo(esperado.getFacturasAnuladas());
+		assertThat(actual.getMontoTotalPendiente()).isEqualByComparingTo(esperado.getMontoTotalPendiente());
+		assertThat(actual.getMontoTotalVencido()).isEqualByComparingTo(esperado.getMontoTotalVencido());
+		assertThat(actual.getMontoTotalPagado()).isEqualByComparingTo(esperado.getMontoTotalPagado());
+	}
+}
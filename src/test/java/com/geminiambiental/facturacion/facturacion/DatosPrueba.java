@@ -0,0 +1,131 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.config.CacheConfig;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.math.BigDecimal;
+import java.net.URISyntaxException;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos mínimos compartidos por las pruebas: productos y servicios completados sin facturar.
+ * Cada servicio usa PROD-001 x2 y PROD-002 x1, por lo que su precio es 115000.00.
+ * Las filas se escriben por JDBC, por debajo de Hibernate, así que cada ayuda que toca una tabla
+ * cacheada vacía después la caché de segundo nivel.
+ */
+final class DatosPrueba {
+
+	static final BigDecimal PRECIO_SERVICIO = new BigDecimal("115000.00");
+
+	private DatosPrueba() {
+	}
+
+	static void limpiar(JdbcTemplate jdbc) {
+		jdbc.update("DELETE FROM detalle_factura");
+		jdbc.update("DELETE FROM Factura");
+		jdbc.update("DELETE FROM servicio_producto");
+		jdbc.update("DELETE FROM Servicio");
+		jdbc.update("DELETE FROM Producto");
+		jdbc.update("DELETE FROM secuencia_factura");
+		jdbc.update("DELETE FROM clave_idempotencia");
+		jdbc.update("DELETE FROM evento_factura");
+		vaciarCache();
+	}
+
+	static void crearProductos(JdbcTemplate jdbc) {
+		jdbc.update("INSERT INTO Producto (ID_producto, nombre, precio_actual, stock, unidad_medida) VALUES (?, ?, ?, ?, ?)",
+			"PROD-001", "Insecticida Premium", new BigDecimal("45000.00"), 50, "Litro");
+		jdbc.update("INSERT INTO Producto (ID_producto, nombre, precio_actual, stock, unidad_medida) VALUES (?, ?, ?, ?, ?)",
+			"PROD-002", "Equipo Fumigador", new BigDecimal("25000.00"), 10, "Unidad");
+		vaciarCache();
+	}
+
+	/**
+	 * Facturas sin detalles con fechas de emisión repetidas (varias por día) para ejercitar el desempate
+	 * por ID, estados rotativos y tres clientes.
+	 */
+	static List<String> crearFacturas(JdbcTemplate jdbc, String prefijo, int cantidad) {
+		return crearFacturas(jdbc, prefijo, cantidad, new String[]{"12345678", "87654321", "11111111"});
+	}
+
+	/**
+	 * Igual que crearFacturas, repartidas entre la cantidad indicada de clientes con DNI de 8 dígitos.
+	 */
+	static List<String> crearFacturas(JdbcTemplate jdbc, String prefijo, int cantidad, int cantidadClientes) {
+		String[] clientes = new String[cantidadClientes];
+		for (int i = 0; i < cantidadClientes; i++) {
+			// Multiplicar por un primo reparte los dígitos para que los fragmentos no coincidan en bloque
+			clientes[i] = String.format("%08d", 10_000_000 + (i * 7_919L) % 90_000_000);
+		}
+		return crearFacturas(jdbc, prefijo, cantidad, clientes);
+	}
+
+	private static List<String> crearFacturas(JdbcTemplate jdbc, String prefijo, int cantidad, String[] clientes) {
+		String[] estados = {"Pendiente", "Pagada", "Vencida", "Anulada"};
+		LocalDate base = LocalDate.of(2024, 1, 1);
+		List<String> ids = new ArrayList<>(cantidad);
+		List<Object[]> filas = new ArrayList<>(Math.min(cantidad, 10_000));
+		for (int i = 0; i < cantidad; i++) {
+			String id = String.format("%s-%07d", prefijo, i);
+			ids.add(id);
+			LocalDate emision = base.plusDays(i / 5);
+			filas.add(new Object[]{id, clientes[i % clientes.length], Date.valueOf(emision),
+				BigDecimal.valueOf(1000 + (i * 37L) % 5000).setScale(2), estados[i % estados.length],
+				Date.valueOf(emision.plusDays(30))});
+			if (filas.size() == 10_000) {
+				insertarFacturas(jdbc, filas);
+				filas.clear();
+			}
+		}
+		insertarFacturas(jdbc, filas);
+		return ids;
+	}
+
+	private static void insertarFacturas(JdbcTemplate jdbc, List<Object[]> filas) {
+		jdbc.batchUpdate("INSERT INTO Factura (ID_factura, DNI_cliente, fecha_emision, monto_total, estado, fecha_vencimiento) "
+			+ "VALUES (?, ?, ?, ?, ?, ?)", filas);
+	}
+
+	static List<String> crearServicios(JdbcTemplate jdbc, String prefijo, int cantidad, String estado) {
+		List<String> ids = new ArrayList<>(cantidad);
+		List<Object[]> servicios = new ArrayList<>(cantidad);
+		List<Object[]> productos = new ArrayList<>(cantidad * 2);
+		for (int i = 0; i < cantidad; i++) {
+			String id = String.format("%s-%06d", prefijo, i);
+			ids.add(id);
+			servicios.add(new Object[]{id, "COT-" + i, "EMP-001", Date.valueOf(LocalDate.of(2025, 1, 15)),
+				Time.valueOf(LocalTime.of(8, 0)), "4 horas", "Servicio de prueba", "Alta", estado});
+			productos.add(new Object[]{id, "PROD-001", 2, new BigDecimal("45000.00")});
+			productos.add(new Object[]{id, "PROD-002", 1, new BigDecimal("25000.00")});
+		}
+		jdbc.batchUpdate("INSERT INTO Servicio (ID_servicio, ID_cotizacion, DNI_empleado_asignado, fecha, hora, "
+			+ "duracion_estimada, observaciones, prioridad, estado) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", servicios);
+		jdbc.batchUpdate("INSERT INTO servicio_producto (ID_servicio, ID_producto, cantidad, precio_actual) VALUES (?, ?, ?, ?)",
+			productos);
+		vaciarCache();
+		return ids;
+	}
+
+	/**
+	 * Vacía todas las regiones de la caché de segundo nivel. JCache entrega el mismo CacheManager para el
+	 * mismo URI y class loader, así que es el que CacheConfig le pasa a Hibernate en cada contexto de prueba.
+	 */
+	static void vaciarCache() {
+		CacheManager cacheManager;
+		try {
+			cacheManager = Caching.getCachingProvider(EhcacheCachingProvider.class.getName())
+				.getCacheManager(CacheConfig.class.getResource("/ehcache.xml").toURI(), CacheConfig.class.getClassLoader());
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+		cacheManager.getCacheNames().forEach(region -> cacheManager.getCache(region).clear());
+	}
+}
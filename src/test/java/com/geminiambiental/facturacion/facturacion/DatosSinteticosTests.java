@@ -0,0 +1,107 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.datos.GeneradorDatosSinteticos;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.exception.ServiciosEnConflictoException;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// El perfil datos carga el volumen de estas propiedades al arrancar el contexto
+@SpringBootTest(properties = {
+	"facturacion.datos.servicios=5000",
+	"facturacion.datos.productos=80",
+	"facturacion.datos.clientes=400",
+	"facturacion.datos.tamano-lote=700",
+	"facturacion.datos.reemplazar=true"
+})
+@ActiveProfiles({"test", "datos"})
+class DatosSinteticosTests {
+
+	private static final GeneradorDatosSinteticos.Volumen VOLUMEN = new GeneradorDatosSinteticos.Volumen(80, 400, 5000, 0.9,
+		LocalDate.of(2021, 1, 1), LocalDate.of(2025, 12, 31), 700);
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Test
+	void laMismaSemillaGeneraLosMismosDatos() {
+		List<Map<String, Object>> cargados = huella();
+		GeneradorDatosSinteticos generador = new GeneradorDatosSinteticos(jdbc, 20250101L);
+
+		generador.limpiar();
+		GeneradorDatosSinteticos.Resumen resumen = generador.generar(VOLUMEN);
+
+		assertThat(huella()).isEqualTo(cargados);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isEqualTo(resumen.facturas());
+
+		generador.limpiar();
+		new GeneradorDatosSinteticos(jdbc, 7L).generar(VOLUMEN);
+		assertThat(huella()).isNotEqualTo(cargados);
+
+		generador.limpiar();
+		generador.generar(VOLUMEN);
+	}
+
+	@Test
+	void losDatosSonCoherentesYConDistribucionesSesgadas() {
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Servicio", Long.class)).isEqualTo(5000);
+		assertThat(jdbc.queryForList("SELECT DISTINCT estado FROM Factura", String.class))
+			.containsExactlyInAnyOrder("Pendiente", "Pagada", "Vencida", "Anulada");
+		assertThat(jdbc.queryForList("SELECT DISTINCT estado FROM Servicio", String.class))
+			.containsExactlyInAnyOrder("PROGRAMADO", "EN_PROGRESO", "COMPLETADO", "CANCELADO");
+		assertThat(jdbc.queryForObject("SELECT COUNT(DISTINCT YEAR(fecha_emision)) FROM Factura", Integer.class)).isEqualTo(5);
+
+		// El monto de cada factura es la suma de sus detalles, y cada detalle el precio de los productos del servicio
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura f WHERE f.monto_total <> "
+			+ "(SELECT SUM(d.subtotal) FROM detalle_factura d WHERE d.ID_factura = f.ID_factura)", Long.class)).isZero();
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM detalle_factura d WHERE d.subtotal <> "
+			+ "(SELECT SUM(sp.precio_actual * sp.cantidad) FROM servicio_producto sp WHERE sp.ID_servicio = d.ID_servicio)",
+			Long.class)).isZero();
+		// Solo las facturas activas reclaman sus servicios
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Servicio WHERE ID_factura IS NOT NULL", Long.class))
+			.isEqualTo(jdbc.queryForObject("SELECT COUNT(*) FROM detalle_factura d JOIN Factura f ON f.ID_factura = d.ID_factura "
+				+ "WHERE f.estado <> 'Anulada'", Long.class));
+
+		// El 10% de los clientes con más facturas concentra al menos un tercio
+		List<Long> porCliente = jdbc.queryForList(
+			"SELECT COUNT(*) FROM Factura GROUP BY DNI_cliente ORDER BY COUNT(*) DESC", Long.class);
+		long total = porCliente.stream().mapToLong(Long::longValue).sum();
+		long top = porCliente.stream().limit(40).mapToLong(Long::longValue).sum();
+		assertThat(top * 3).isGreaterThan(total);
+	}
+
+	@Test
+	void seSigueFacturandoSobreLosDatosGenerados() {
+		String pendiente = jdbc.queryForObject("SELECT MIN(ID_servicio) FROM Servicio s WHERE estado = 'COMPLETADO' "
+			+ "AND NOT EXISTS (SELECT 1 FROM detalle_factura d WHERE d.ID_servicio = s.ID_servicio)", String.class);
+		String facturado = jdbc.queryForObject("SELECT MIN(ID_servicio) FROM Servicio WHERE ID_factura IS NOT NULL", String.class);
+		long facturas = jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class);
+
+		FacturaDTO factura = facturacionService.emitirFactura(List.of(pendiente), null);
+
+		assertThat(factura.getMontoTotal()).isPositive();
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isEqualTo(facturas + 1);
+		assertThatThrownBy(() -> facturacionService.emitirFactura(List.of(facturado), null))
+			.isInstanceOf(ServiciosEnConflictoException.class);
+	}
+
+	private List<Map<String, Object>> huella() {
+		return jdbc.queryForList("SELECT f.estado, COUNT(*) AS facturas, SUM(f.monto_total) AS monto, MIN(f.ID_factura) AS primera, "
+			+ "MAX(f.DNI_cliente) AS cliente, (SELECT SUM(sp.cantidad) FROM servicio_producto sp) AS productos "
+			+ "FROM Factura f GROUP BY f.estado ORDER BY f.estado");
+	}
+}
@@ -0,0 +1,85 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.util.Dinero;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Equivalencia de Dinero con la cadena de BigDecimal sobre montos generados al azar (semilla fija, así un
+ * fallo se reproduce): precios DECIMAL(12,2), con otras escalas y tan grandes que desbordan el long.
+ */
+class DineroTests {
+
+	private static final int CASOS = 20_000;
+
+	private final Random azar = new Random(20250115L);
+
+	@Test
+	void elSubtotalDeUnaLineaCoincideConBigDecimal() {
+		for (int i = 0; i < CASOS; i++) {
+			BigDecimal precio = precio();
+			int cantidad = cantidad();
+
+			BigDecimal esperado = precio.multiply(BigDecimal.valueOf(cantidad));
+			BigDecimal subtotal = Dinero.multiplicar(precio, cantidad);
+
+			assertThat(subtotal).as("%s × %d", precio, cantidad).isEqualByComparingTo(esperado);
+			if (precio.scale() == Dinero.ESCALA) {
+				// Mismo valor y misma escala que la columna DECIMAL(12,2)
+				assertThat(subtotal).as("%s × %d", precio, cantidad).isEqualTo(esperado);
+			}
+		}
+	}
+
+	@Test
+	void laSumaDeLineasCoincideConBigDecimal() {
+		for (int i = 0; i < CASOS / 10; i++) {
+			Dinero total = Dinero.cero();
+			BigDecimal esperado = BigDecimal.ZERO;
+			int lineas = 1 + azar.nextInt(50);
+			for (int j = 0; j < lineas; j++) {
+				BigDecimal precio = precio();
+				int cantidad = cantidad();
+				total.sumarProducto(precio, cantidad);
+				esperado = esperado.add(precio.multiply(BigDecimal.valueOf(cantidad)));
+			}
+
+			assertThat(total.aBigDecimal()).isEqualByComparingTo(esperado);
+		}
+	}
+
+	@Test
+	void pasaABigDecimalAlDesbordarElLong() {
+		BigDecimal maximo = BigDecimal.valueOf(Long.MAX_VALUE / 2, Dinero.ESCALA);
+
+		Dinero total = Dinero.cero().sumar(maximo).sumar(maximo).sumar(maximo).sumarProducto(new BigDecimal("0.01"), 3);
+
+		assertThat(total.aBigDecimal()).isEqualByComparingTo(maximo.multiply(BigDecimal.valueOf(3)).add(new BigDecimal("0.03")));
+		assertThat(Dinero.multiplicar(BigDecimal.valueOf(Long.MAX_VALUE, Dinero.ESCALA), Integer.MAX_VALUE))
+			.isEqualByComparingTo(BigDecimal.valueOf(Long.MAX_VALUE, Dinero.ESCALA).multiply(BigDecimal.valueOf(Integer.MAX_VALUE)));
+		assertThat(Dinero.multiplicar(new BigDecimal("-0.01"), 1)).isEqualTo(new BigDecimal("-0.01"));
+		assertThat(Dinero.multiplicar(new BigDecimal("1.005"), 2)).isEqualTo(new BigDecimal("2.010"));
+	}
+
+	private BigDecimal precio() {
+		return switch (azar.nextInt(10)) {
+			// Fuera del rango de un long en centavos
+			case 0 -> new BigDecimal(new BigInteger(80, azar), azar.nextInt(5));
+			// Escalas distintas de 2, incluida la negativa (1E+3)
+			case 1 -> BigDecimal.valueOf(azar.nextInt(1_000_000) - 500_000, azar.nextInt(6) - 1);
+			// Cerca del límite del long
+			case 2 -> BigDecimal.valueOf(Long.MAX_VALUE - azar.nextInt(1000), Dinero.ESCALA);
+			// Precios DECIMAL(12,2) como los de Producto y ServicioProducto
+			default -> BigDecimal.valueOf(azar.nextLong(10_000_000_000L), Dinero.ESCALA);
+		};
+	}
+
+	private int cantidad() {
+		return azar.nextInt(20) == 0 ? azar.nextInt() : azar.nextInt(100);
+	}
+}
@@ -0,0 +1,160 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.EmitirFacturaRequest;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.dto.ServicioParaFacturarDTO;
+import com.geminiambiental.facturacion.exception.ServiciosEnConflictoException;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+class EmisionConcurrenteTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+	}
+
+	@Test
+	void losHilosQueCompitenPorLosMismosServiciosNoFacturanDosVeces() throws Exception {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-CARRERA", 40, "COMPLETADO");
+		int hilos = 8;
+		AtomicInteger emitidas = new AtomicInteger();
+		AtomicInteger conflictos = new AtomicInteger();
+		CountDownLatch salida = new CountDownLatch(1);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		List<Future<?>> tareas = new ArrayList<>();
+		for (int h = 0; h < hilos; h++) {
+			Random azar = new Random(h);
+			Callable<Void> tarea = () -> {
+				salida.await();
+				for (int intento = 0; intento < 30; intento++) {
+					// Grupos de 1 a 3 servicios que se solapan entre hilos
+					List<String> grupo = new ArrayList<>(servicios);
+					Collections.shuffle(grupo, azar);
+					try {
+						facturacionService.emitirFactura(grupo.subList(0, 1 + azar.nextInt(3)), null);
+						emitidas.incrementAndGet();
+					} catch (ServiciosEnConflictoException e) {
+						conflictos.incrementAndGet();
+					}
+				}
+				return null;
+			};
+			tareas.add(ejecutor.submit(tarea));
+		}
+		salida.countDown();
+		for (Future<?> tarea : tareas) {
+			tarea.get();
+		}
+		ejecutor.shutdown();
+
+		assertThat(emitidas.get() + conflictos.get()).isEqualTo(hilos * 30);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isEqualTo(emitidas.get());
+		// Ningún servicio aparece en dos facturas y cada uno apunta a la factura que lo contiene
+		assertThat(jdbc.queryForObject(
+			"SELECT COUNT(*) FROM (SELECT ID_servicio FROM detalle_factura GROUP BY ID_servicio HAVING COUNT(*) > 1) d",
+			Long.class)).isZero();
+		assertThat(jdbc.queryForObject(
+			"SELECT COUNT(*) FROM detalle_factura d JOIN Servicio s ON s.ID_servicio = d.ID_servicio AND s.ID_factura = d.ID_factura",
+			Long.class)).isEqualTo(jdbc.queryForObject("SELECT COUNT(*) FROM detalle_factura", Long.class));
+	}
+
+	@Test
+	void unServicioReclamadoPorOtroNodoEsUnConflicto() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-NODO", 2, "COMPLETADO");
+		// Otro nodo ya confirmó una factura con el segundo servicio; este nodo no tiene su lock
+		jdbc.update("UPDATE Servicio SET ID_factura = ? WHERE ID_servicio = ?", "F-OTRO-NODO", servicios.get(1));
+
+		assertThatThrownBy(() -> facturacionService.emitirFactura(servicios, null))
+			.isInstanceOfSatisfying(ServiciosEnConflictoException.class, e ->
+				assertThat(e.getIdsServicios()).containsExactly(servicios.get(1)));
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isZero();
+		assertThat(jdbc.queryForObject("SELECT ID_factura FROM Servicio WHERE ID_servicio = ?", String.class,
+			servicios.get(0))).isNull();
+	}
+
+	@Test
+	void anularLiberaLosServicios() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-ANULAR", 2, "COMPLETADO");
+		FacturaDTO factura = facturacionService.emitirFactura(servicios, null);
+		assertThatThrownBy(() -> facturacionService.emitirFactura(servicios, null))
+			.isInstanceOf(ServiciosEnConflictoException.class);
+		assertThat(facturacionService.emitirFacturasLote(List.of(solicitud(servicios.get(0)))).get(0).isExitosa()).isFalse();
+
+		facturacionService.anularFactura(factura.getIdFactura(), "Prueba");
+
+		// Liberados para los tres caminos: listado, emisión en lote y emisión individual
+		assertThat(facturacionService.obtenerServiciosParaFacturar())
+			.extracting(ServicioParaFacturarDTO::getIdServicio).containsExactlyInAnyOrderElementsOf(servicios);
+		assertThat(facturacionService.emitirFacturasLote(List.of(solicitud(servicios.get(0)))).get(0).isExitosa()).isTrue();
+		assertThat(facturacionService.emitirFactura(List.of(servicios.get(1)), null).getIdFactura())
+			.isNotEqualTo(factura.getIdFactura());
+	}
+
+	private static EmitirFacturaRequest solicitud(String idServicio) {
+		EmitirFacturaRequest solicitud = new EmitirFacturaRequest();
+		solicitud.setIdsServicios(List.of(idServicio));
+		return solicitud;
+	}
+
+	@Test
+	@Tag("benchmark")
+	void escalaConServiciosDisjuntos() throws Exception {
+		int porHilo = 500;
+		// Calentamiento: JIT, caché de segundo nivel y pools antes de medir
+		DatosPrueba.crearServicios(jdbc, "CAL", 1000, "COMPLETADO")
+			.forEach(id -> facturacionService.emitirFactura(List.of(id), null));
+		double base = 0;
+		for (int hilos : new int[]{1, 2, 4, 8}) {
+			List<String> servicios = DatosPrueba.crearServicios(jdbc, "ESC" + hilos + "-", hilos * porHilo, "COMPLETADO");
+			ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+			List<Future<?>> tareas = new ArrayList<>();
+			long inicio = System.nanoTime();
+			for (int h = 0; h < hilos; h++) {
+				List<String> propios = servicios.subList(h * porHilo, (h + 1) * porHilo);
+				tareas.add(ejecutor.submit(() -> propios.forEach(id -> facturacionService.emitirFactura(List.of(id), null))));
+			}
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+			double porSegundo = hilos * porHilo * 1_000_000_000.0 / (System.nanoTime() - inicio);
+			ejecutor.shutdown();
+			if (hilos == 1) {
+				base = porSegundo;
+			}
+			log.info("{} hilos con servicios disjuntos: {} facturas/s ({}x), {} CPU", hilos, Math.round(porSegundo),
+				String.format("%.2f", porSegundo / base), Runtime.getRuntime().availableProcessors());
+		}
+	}
+}
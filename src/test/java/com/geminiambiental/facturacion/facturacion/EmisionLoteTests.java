@@ -0,0 +1,90 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.EmitirFacturaRequest;
+import com.geminiambiental.facturacion.dto.ResultadoEmisionDTO;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+class EmisionLoteTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+	}
+
+	@Test
+	void emiteLosGruposValidosYReportaLosInvalidos() {
+		List<String> ids = DatosPrueba.crearServicios(jdbc, "SRV", 5, "COMPLETADO");
+		List<String> pendiente = DatosPrueba.crearServicios(jdbc, "PRG", 1, "PROGRAMADO");
+		facturacionService.emitirFactura(List.of(ids.get(4)), "ya facturado");
+
+		List<ResultadoEmisionDTO> resultados = facturacionService.emitirFacturasLote(List.of(
+			new EmitirFacturaRequest(List.of(ids.get(0), ids.get(1)), "grupo 0"),
+			new EmitirFacturaRequest(List.of(ids.get(2)), "grupo 1"),
+			new EmitirFacturaRequest(List.of("NO-EXISTE"), "grupo 2"),
+			new EmitirFacturaRequest(List.of(ids.get(1)), "grupo 3 repite un servicio del grupo 0"),
+			new EmitirFacturaRequest(List.of(ids.get(4)), "grupo 4 ya facturado"),
+			new EmitirFacturaRequest(pendiente, "grupo 5 no completado"),
+			new EmitirFacturaRequest(List.of(ids.get(3)), "grupo 6")));
+
+		assertThat(resultados).extracting(ResultadoEmisionDTO::isExitosa)
+			.containsExactly(true, true, false, false, false, false, true);
+		assertThat(resultados).extracting(ResultadoEmisionDTO::getIndice)
+			.containsExactly(0, 1, 2, 3, 4, 5, 6);
+		assertThat(resultados.get(0).getFactura().getMontoTotal())
+			.isEqualByComparingTo(DatosPrueba.PRECIO_SERVICIO.multiply(BigDecimal.valueOf(2)));
+		assertThat(resultados.get(0).getFactura().getDetalles()).hasSize(2);
+		assertThat(resultados.get(2).getError()).contains("NO-EXISTE");
+		assertThat(resultados.get(5).getError()).contains("completados");
+
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isEqualTo(4);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM detalle_factura", Long.class)).isEqualTo(5);
+	}
+
+	@Test
+	@Tag("benchmark")
+	void comparaEmisionIndividualContraLote() {
+		int facturas = 2000;
+		List<String> individuales = DatosPrueba.crearServicios(jdbc, "IND", facturas, "COMPLETADO");
+		List<String> lote = DatosPrueba.crearServicios(jdbc, "LOT", facturas, "COMPLETADO");
+
+		long inicio = System.nanoTime();
+		for (String id : individuales) {
+			facturacionService.emitirFactura(List.of(id), null);
+		}
+		long nanosIndividual = System.nanoTime() - inicio;
+
+		List<EmitirFacturaRequest> solicitudes = new ArrayList<>(facturas);
+		lote.forEach(id -> solicitudes.add(new EmitirFacturaRequest(List.of(id), null)));
+		inicio = System.nanoTime();
+		List<ResultadoEmisionDTO> resultados = facturacionService.emitirFacturasLote(solicitudes);
+		long nanosLote = System.nanoTime() - inicio;
+
+		assertThat(resultados).allMatch(ResultadoEmisionDTO::isExitosa);
+		log.info("Emisión de {} facturas en H2: individual {} facturas/s, lote {} facturas/s",
+			facturas, facturas * 1_000_000_000L / nanosIndividual, facturas * 1_000_000_000L / nanosLote);
+	}
+}
@@ -0,0 +1,108 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.EstadisticasClienteDTO;
+import com.geminiambiental.facturacion.dto.EstadisticasFacturacionDTO;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.repository.FacturaRepository;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EstadisticasFacturacionTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private FacturaRepository facturaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearFacturas(jdbc, "F", 997);
+		// Una parte de las pendientes todavía no vence
+		jdbc.update("UPDATE Factura SET fecha_vencimiento = ? WHERE estado = 'Pendiente' AND MOD(CAST(SUBSTRING(ID_factura, 3) AS INT), 3) = 0",
+			LocalDate.now().plusDays(10));
+	}
+
+	@Test
+	void coincideConElCalculoAnteriorEnUnaSolaConsulta() {
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		EstadisticasFacturacionDTO stats = facturacionService.obtenerEstadisticas();
+
+		assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(estadisticas.getEntityLoadCount()).isZero();
+
+		// Cálculo anterior: cinco consultas y las vencidas cargadas como entidades (anuladas ya corregidas)
+		List<Factura> vencidas = facturaRepository.findFacturasVencidas();
+		assertThat(stats.getFacturasPendientes()).isEqualTo(facturaRepository.countByEstado(Factura.EstadoFactura.Pendiente));
+		assertThat(stats.getFacturasPagadas()).isEqualTo(facturaRepository.countByEstado(Factura.EstadoFactura.Pagada));
+		assertThat(stats.getFacturasAnuladas()).isEqualTo(facturaRepository.countByEstado(Factura.EstadoFactura.Anulada));
+		assertThat(stats.getFacturasVencidas()).isEqualTo(vencidas.size()).isPositive();
+		assertThat(stats.getFacturasVencidas()).isLessThan(stats.getFacturasPendientes());
+		assertThat(stats.getMontoTotalPendiente())
+			.isEqualByComparingTo(facturaRepository.sumMontoByEstado(Factura.EstadoFactura.Pendiente));
+		assertThat(stats.getMontoTotalPagado())
+			.isEqualByComparingTo(facturaRepository.sumMontoByEstado(Factura.EstadoFactura.Pagada));
+		assertThat(stats.getMontoTotalVencido()).isEqualByComparingTo(vencidas.stream()
+			.map(Factura::getMontoTotal)
+			.reduce(BigDecimal.ZERO, BigDecimal::add));
+	}
+
+	@Test
+	void filtraPorRangoYClienteYDesglosaPorCliente() {
+		LocalDate inicio = LocalDate.of(2024, 2, 1);
+		LocalDate fin = LocalDate.of(2024, 3, 31);
+
+		EstadisticasFacturacionDTO rango = facturacionService.obtenerEstadisticas("87654321", inicio, fin);
+		assertThat(rango.getFacturasPagadas()).isEqualTo(jdbc.queryForObject(
+			"SELECT COUNT(*) FROM Factura WHERE estado = 'Pagada' AND DNI_cliente = '87654321' AND fecha_emision BETWEEN ? AND ?",
+			Long.class, inicio, fin));
+
+		List<EstadisticasClienteDTO> porCliente = facturacionService.obtenerEstadisticasPorCliente(null, null);
+		EstadisticasFacturacionDTO total = facturacionService.obtenerEstadisticas();
+		assertThat(porCliente).extracting(EstadisticasClienteDTO::getDniCliente)
+			.containsExactly("11111111", "12345678", "87654321");
+		assertThat(porCliente.stream().mapToLong(c -> c.getEstadisticas().getFacturasPendientes()).sum())
+			.isEqualTo(total.getFacturasPendientes());
+		assertThat(porCliente.stream().map(c -> c.getEstadisticas().getMontoTotalVencido()).reduce(BigDecimal.ZERO, BigDecimal::add))
+			.isEqualByComparingTo(total.getMontoTotalVencido());
+		assertThat(porCliente.get(1).getEstadisticas())
+			.isEqualTo(facturacionService.obtenerEstadisticas("12345678", null, null));
+	}
+
+	@Test
+	void devuelveCerosSinFacturas() {
+		DatosPrueba.limpiar(jdbc);
+
+		EstadisticasFacturacionDTO stats = facturacionService.obtenerEstadisticas();
+
+		assertThat(stats.getFacturasPendientes()).isZero();
+		assertThat(stats.getMontoTotalPendiente()).isZero();
+		assertThat(stats.getMontoTotalVencido()).isZero();
+		assertThat(stats.getMontoTotalPagado()).isZero();
+	}
+}
@@ -0,0 +1,203 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geminiambiental.facturacion.dto.EmitirFacturaRequest;
+import com.geminiambiental.facturacion.dto.EventoFacturaDTO;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.entity.EventoFactura;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import com.geminiambiental.facturacion.service.PublicadorEventos;
+import com.geminiambiental.facturacion.service.PublicadorEventosArchivo;
+import com.geminiambiental.facturacion.service.PublicadorEventosMemoria;
+import com.geminiambiental.facturacion.service.RelevoEventosFactura;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class EventosFacturaTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private RelevoEventosFactura relevoEventos;
+
+	@Autowired
+	private PublicadorEventosMemoria publicador;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private NamedParameterJdbcTemplate namedJdbc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ThreadPoolTaskScheduler planificador;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+		publicador.limpiar();
+	}
+
+	@Test
+	void cadaTransicionConfirmadaDejaUnEventoQueElRelevoEntregaEnOrden() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-EVT", 4, "COMPLETADO");
+		String pagada = facturacionService.emitirFactura(servicios.subList(0, 1), null).getIdFactura();
+		String anulada = facturacionService.emitirFactura(servicios.subList(1, 2), null).getIdFactura();
+		String vencida = facturacionService.emitirFacturasLote(List.of(solicitud(servicios.get(2)))).get(0).getFactura()
+			.getIdFactura();
+		facturacionService.marcarComoPagada(pagada);
+		facturacionService.anularFactura(anulada, "Prueba");
+		jdbc.update("UPDATE Factura SET fecha_vencimiento = ? WHERE ID_factura = ?", LocalDate.now().minusDays(1), vencida);
+		facturacionService.procesarFacturasVencidas();
+		// Una emisión que hace rollback no deja evento
+		transactionTemplate.executeWithoutResult(status -> {
+			facturacionService.emitirFactura(servicios.subList(3, 4), null);
+			status.setRollbackOnly();
+		});
+
+		assertThat(relevoEventos.drenar()).isEqualTo(6);
+
+		assertThat(publicador.entregados())
+			.extracting(EventoFacturaDTO::getIdFactura, EventoFacturaDTO::getTipo)
+			.containsExactly(
+				tuple(pagada, EventoFactura.TipoEvento.EMITIDA),
+				tuple(anulada, EventoFactura.TipoEvento.EMITIDA),
+				tuple(vencida, EventoFactura.TipoEvento.EMITIDA),
+				tuple(pagada, EventoFactura.TipoEvento.PAGADA),
+				tuple(anulada, EventoFactura.TipoEvento.ANULADA),
+				tuple(vencida, EventoFactura.TipoEvento.VENCIDA));
+		assertThat(publicador.entregados()).extracting(EventoFacturaDTO::getIdEvento).isSorted();
+		assertThat(publicador.entregados().get(5).getMontoTotal()).isEqualByComparingTo(DatosPrueba.PRECIO_SERVICIO);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM evento_factura WHERE fecha_publicacion IS NULL", Long.class)).isZero();
+		assertThat(relevoEventos.drenar()).isZero();
+	}
+
+	@Test
+	void unLoteRechazadoSeReintentaCompletoSinSaltarEventos() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-REI", 5, "COMPLETADO");
+		servicios.forEach(id -> facturacionService.emitirFactura(List.of(id), null));
+		List<Long> ids = jdbc.queryForList("SELECT ID_evento FROM evento_factura ORDER BY ID_evento", Long.class);
+
+		// El destino recibe el segundo lote pero falla antes de confirmarlo, una sola vez
+		List<Long> recibidos = new ArrayList<>();
+		AtomicBoolean fallar = new AtomicBoolean(true);
+		PublicadorEventos inestable = eventos -> {
+			eventos.forEach(evento -> recibidos.add(evento.getIdEvento()));
+			if (recibidos.size() > 2 && fallar.getAndSet(false)) {
+				throw new IllegalStateException("Destino no disponible");
+			}
+		};
+		SimpleMeterRegistry registro = new SimpleMeterRegistry();
+		RelevoEventosFactura relevo = new RelevoEventosFactura(namedJdbc, inestable, registro, 2, true, 72);
+
+		assertThat(relevo.drenar()).isEqualTo(2);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM evento_factura WHERE fecha_publicacion IS NULL", Long.class))
+			.isEqualTo(3);
+		assertThat(relevo.drenar()).isEqualTo(3);
+
+		assertThat(recibidos).containsExactly(ids.get(0), ids.get(1), ids.get(2), ids.get(3), ids.get(2), ids.get(3), ids.get(4));
+		assertThat(registro.get("facturacion.eventos.pendientes").gauge().value()).isEqualTo(3);
+		assertThat(registro.get("facturacion.eventos.fallos").counter().count()).isEqualTo(1);
+		assertThat(registro.get("facturacion.eventos.publicados").counter().count()).isEqualTo(5);
+		assertThat(registro.get("facturacion.eventos.demora").timer().count()).isEqualTo(5);
+	}
+
+	@Test
+	void unaPasadaSuperpuestaSeSaltaSinEsperar() throws Exception {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-SUP", 2, "COMPLETADO");
+		servicios.forEach(id -> facturacionService.emitirFactura(List.of(id), null));
+		CountDownLatch recibido = new CountDownLatch(1);
+		CountDownLatch liberar = new CountDownLatch(1);
+		// Un destino lento que retiene la primera pasada hasta que la prueba lo libera
+		PublicadorEventos lento = eventos -> {
+			recibido.countDown();
+			liberar.await();
+		};
+		RelevoEventosFactura relevo = new RelevoEventosFactura(namedJdbc, lento, new SimpleMeterRegistry(), 500, true, 72);
+
+		CompletableFuture<Integer> primera = CompletableFuture.supplyAsync(relevo::drenar);
+		assertThat(recibido.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(relevo.drenar()).isZero();
+
+		liberar.countDown();
+		assertThat(primera.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+	}
+
+	@Test
+	void elRelevoNoEsperaDetrasDeUnaTareaLarga() throws Exception {
+		CountDownLatch liberar = new CountDownLatch(1);
+		CountDownLatch relevado = new CountDownLatch(1);
+		// Como el proceso nocturno de vencidas: ocupa un hilo del planificador hasta que la prueba lo libera
+		planificador.execute(() -> {
+			try {
+				liberar.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			planificador.execute(relevado::countDown);
+			assertThat(relevado.await(5, TimeUnit.SECONDS)).isTrue();
+		} finally {
+			liberar.countDown();
+		}
+	}
+
+	@Test
+	void elArchivoRecibeUnaLineaJsonPorEvento(@TempDir Path directorio) throws Exception {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-ARC", 2, "COMPLETADO");
+		FacturaDTO factura = facturacionService.emitirFactura(servicios, null);
+		facturacionService.marcarComoPagada(factura.getIdFactura());
+		Path archivo = directorio.resolve("eventos").resolve("facturas.jsonl");
+
+		new RelevoEventosFactura(namedJdbc, new PublicadorEventosArchivo(objectMapper, archivo.toString()),
+			new SimpleMeterRegistry(), 500, true, 72).drenar();
+
+		List<String> lineas = Files.readAllLines(archivo);
+		assertThat(lineas).hasSize(2);
+		JsonNode pago = objectMapper.readTree(lineas.get(1));
+		assertThat(pago.path("id_factura").asText()).isEqualTo(factura.getIdFactura());
+		assertThat(pago.path("tipo").asText()).isEqualTo("PAGADA");
+		assertThat(pago.path("estado_anterior").asText()).isEqualTo("Pendiente");
+		assertThat(pago.path("monto_total").decimalValue()).isEqualByComparingTo(factura.getMontoTotal());
+	}
+
+	private static EmitirFacturaRequest solicitud(String idServicio) {
+		EmitirFacturaRequest solicitud = new EmitirFacturaRequest();
+		solicitud.setIdsServicios(List.of(idServicio));
+		return solicitud;
+	}
+}
@@ -0,0 +1,74 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geminiambiental.facturacion.dto.FiltrosFacturaDTO;
+import com.geminiambiental.facturacion.service.ExportacionFacturasService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "facturacion.exportacion.fetch-size=100")
+@ActiveProfiles("test")
+class ExportacionFacturasTests {
+
+	@Autowired
+	private ExportacionFacturasService exportacionFacturasService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearFacturas(jdbc, "F", 1_050);
+		jdbc.update("UPDATE Factura SET observaciones = 'Pago parcial, \"urgente\"' WHERE ID_factura = 'F-0000000'");
+	}
+
+	@Test
+	void exportaNdjsonConUnaFacturaPorLinea() throws Exception {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		long filas = exportacionFacturasService.exportar(new FiltrosFacturaDTO(), ExportacionFacturasService.Formato.NDJSON, salida);
+
+		List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines().toList();
+		assertThat(filas).isEqualTo(1_050);
+		assertThat(lineas).hasSize(1_050);
+		JsonNode primera = objectMapper.readTree(lineas.get(0));
+		assertThat(primera.get("id_factura").asText()).isEqualTo("F-0000000");
+		assertThat(primera.get("fecha_emision").asText()).isEqualTo("2024-01-01");
+		assertThat(primera.get("observaciones").asText()).isEqualTo("Pago parcial, \"urgente\"");
+		assertThat(primera.has("detalles")).isFalse();
+		assertThat(objectMapper.readTree(lineas.get(1_049)).get("id_factura").asText()).isEqualTo("F-0001049");
+	}
+
+	@Test
+	void exportaCsvAplicandoLosFiltros() {
+		FiltrosFacturaDTO filtros = new FiltrosFacturaDTO();
+		filtros.setEstado("Pendiente");
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		long filas = exportacionFacturasService.exportar(filtros, ExportacionFacturasService.Formato.CSV, salida);
+
+		List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines().toList();
+		long pendientes = jdbc.queryForObject("SELECT COUNT(*) FROM Factura WHERE estado = 'Pendiente'", Long.class);
+		assertThat(filas).isEqualTo(pendientes);
+		assertThat(lineas).hasSize((int) pendientes + 1);
+		assertThat(lineas.get(0)).startsWith("id_factura,dni_cliente,");
+		assertThat(lineas.get(1)).startsWith("F-0000000,12345678,2024-01-01,2024-01-31,,")
+			.endsWith(",Pendiente,\"Pago parcial, \"\"urgente\"\"\"");
+		assertThat(lineas.subList(1, lineas.size())).allMatch(linea -> linea.contains(",Pendiente,"));
+	}
+}
@@ -0,0 +1,133 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.repository.FacturaRepository;
+import com.geminiambiental.facturacion.service.GeneradorNumeroFactura;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "facturacion.numeracion.tamano-bloque=7")
+@ActiveProfiles("test")
+class GeneradorNumeroFacturaTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private MeterRegistry registro;
+
+	@Autowired
+	private GeneradorNumeroFactura generador;
+
+	@Autowired
+	private FacturaRepository facturaRepository;
+
+	@Autowired
+	private DataSourceProperties dataSourceProperties;
+
+	private final int anio = Year.now().getValue();
+
+	private final List<HikariDataSource> poolsCreados = new ArrayList<>();
+
+	@BeforeEach
+	void limpiar() {
+		facturaRepository.deleteAll();
+		jdbc.update("DELETE FROM secuencia_factura");
+	}
+
+	@AfterEach
+	void cerrarNodos() {
+		poolsCreados.forEach(HikariDataSource::close);
+	}
+
+	@Test
+	void continuaDespuesDelUltimoConsecutivoEmitido() {
+		Factura existente = new Factura();
+		existente.setIdFactura(String.format("F-%d-%03d", anio, 41));
+		existente.setDniCliente("12345678");
+		existente.setFechaEmision(LocalDate.now());
+		existente.setMontoTotal(BigDecimal.TEN);
+		facturaRepository.save(existente);
+
+		assertThat(nuevoNodo().siguienteNumero()).isEqualTo(String.format("F-%d-%03d", anio, 42));
+	}
+
+	@Test
+	void noRepiteNumerosEntreHilosNiNodos() throws Exception {
+		// Dos asignadores simulan dos nodos compartiendo la misma base de datos
+		List<GeneradorNumeroFactura> nodos = List.of(nuevoNodo(), nuevoNodo());
+		int hilos = 16;
+		int numerosPorHilo = 500;
+		Set<String> emitidos = ConcurrentHashMap.newKeySet();
+		CountDownLatch salida = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(hilos);
+		List<Future<Integer>> resultados = new ArrayList<>();
+		for (int h = 0; h < hilos; h++) {
+			GeneradorNumeroFactura nodo = nodos.get(h % nodos.size());
+			resultados.add(executor.submit(() -> {
+				salida.await();
+				int duplicados = 0;
+				for (int i = 0; i < numerosPorHilo; i++) {
+					if (!emitidos.add(nodo.siguienteNumero())) {
+						duplicados++;
+					}
+				}
+				return duplicados;
+			}));
+		}
+		salida.countDown();
+
+		int duplicados = 0;
+		for (Future<Integer> resultado : resultados) {
+			duplicados += resultado.get(60, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertThat(duplicados).isZero();
+		assertThat(emitidos).hasSize(hilos * numerosPorHilo);
+		assertThat(emitidos).allMatch(numero -> numero.startsWith("F-" + anio + "-"));
+		// Cada nodo puede dejar a lo sumo un bloque sin terminar
+		long reservados = jdbc.queryForObject("SELECT ultimo_numero FROM secuencia_factura WHERE anio = ?", Long.class, anio);
+		assertThat(reservados).isBetween((long) hilos * numerosPorHilo, (long) hilos * numerosPorHilo + 2 * 7);
+	}
+
+	@Test
+	void laNumeracionUsaSuPropioPoolConMetricas() {
+		generador.siguienteNumero();
+
+		assertThat(registro.find("hikaricp.connections.max").tag("pool", "numeracion").gauge())
+			.isNotNull()
+			.satisfies(maximo -> assertThat(maximo.value()).isEqualTo(2));
+	}
+
+	private GeneradorNumeroFactura nuevoNodo() {
+		HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		pool.setMaximumPoolSize(2);
+		poolsCreados.add(pool);
+		return new GeneradorNumeroFactura(pool, 7);
+	}
+}
@@ -0,0 +1,140 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.FacturacionApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Carga de lazo cerrado contra la aplicación levantada en un puerto aleatorio, una vez con hilos de
+ * plataforma y otra con el perfil virtual: CLIENTES conexiones concurrentes que listan facturas y emiten
+ * una de cada cinco veces. Cada modo usa su propia base H2, así que las cifras miden sobre todo la
+ * gestión de hilos; con -Dcarga.datasource.url se puede apuntar a un MySQL real.
+ */
+@Tag("benchmark")
+@Slf4j
+class HilosVirtualesTests {
+
+	private static final int CLIENTES = Integer.getInteger("carga.clientes", 400);
+	private static final Duration DURACION = Duration.ofSeconds(Long.getLong("carga.segundos", 20));
+	private static final int SERVICIOS = 100_000;
+
+	@Test
+	void comparaHilosDePlataformaYVirtuales() throws Exception {
+		Resultado plataforma = medir(false);
+		log.info("Hilos de plataforma: {}", plataforma);
+		assertThat(plataforma.errores()).isZero();
+
+		assumeTrue(Runtime.version().feature() >= 21, "Los hilos virtuales requieren Java 21");
+		Resultado virtuales = medir(true);
+		log.info("Hilos virtuales: {}", virtuales);
+		assertThat(virtuales.errores()).isZero();
+	}
+
+	private Resultado medir(boolean virtuales) throws Exception {
+		String modo = virtuales ? "virtual" : "plataforma";
+		String url = System.getProperty("carga.datasource.url", "jdbc:h2:mem:carga_" + modo + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		// Sin caché de segundo nivel: al cerrar, Hibernate cerraría las regiones que usan los demás contextos
+		try (ConfigurableApplicationContext app = new SpringApplicationBuilder(FacturacionApplication.class)
+				.profiles(virtuales ? new String[]{"test", "virtual"} : new String[]{"test"})
+				.run("--server.port=0", "--spring.datasource.url=" + url, "--facturacion.admision.habilitada=false",
+					"--spring.jpa.properties.hibernate.cache.use_second_level_cache=false")) {
+			JdbcTemplate jdbc = app.getBean(JdbcTemplate.class);
+			DatosPrueba.limpiar(jdbc);
+			DatosPrueba.crearProductos(jdbc);
+			DatosPrueba.crearFacturas(jdbc, "F", 20_000);
+			List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-CARGA", SERVICIOS, "COMPLETADO");
+
+			int puerto = ((WebServerApplicationContext) app).getWebServer().getPort();
+			String base = "http://localhost:" + puerto + app.getEnvironment().getProperty("server.servlet.context-path")
+				+ "/api/facturacion";
+			return cargar(base, servicios);
+		}
+	}
+
+	private Resultado cargar(String base, List<String> servicios) throws Exception {
+		HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		AtomicInteger siguienteServicio = new AtomicInteger();
+		AtomicInteger errores = new AtomicInteger();
+		long fin = System.nanoTime() + DURACION.toNanos();
+
+		ExecutorService hilos = Executors.newFixedThreadPool(CLIENTES);
+		List<Future<long[]>> latencias = new ArrayList<>();
+		for (int c = 0; c < CLIENTES; c++) {
+			int numeroCliente = c;
+			Callable<long[]> tarea = () -> {
+				long[] propias = new long[1024];
+				int cantidad = 0;
+				for (int i = 0; System.nanoTime() < fin; i++) {
+					HttpRequest solicitud;
+					int servicio = i % 5 == 0 ? siguienteServicio.getAndIncrement() : -1;
+					if (servicio >= 0 && servicio < servicios.size()) {
+						solicitud = HttpRequest.newBuilder(URI.create(base + "/emitir"))
+							.header("Content-Type", "application/json")
+							.POST(HttpRequest.BodyPublishers.ofString("{\"idsServicios\":[\"" + servicios.get(servicio) + "\"]}"))
+							.build();
+					} else {
+						solicitud = HttpRequest.newBuilder(URI.create(base + "?size=20&sortBy=idFactura&sortDir=ASC&page=" + (numeroCliente + i) % 50)).GET().build();
+					}
+					long inicio = System.nanoTime();
+					HttpResponse<Void> respuesta = cliente.send(solicitud, HttpResponse.BodyHandlers.discarding());
+					if (respuesta.statusCode() >= 300) {
+						errores.incrementAndGet();
+					}
+					if (cantidad == propias.length) {
+						propias = Arrays.copyOf(propias, cantidad * 2);
+					}
+					propias[cantidad++] = System.nanoTime() - inicio;
+				}
+				return Arrays.copyOf(propias, cantidad);
+			};
+			latencias.add(hilos.submit(tarea));
+		}
+
+		List<long[]> porCliente = new ArrayList<>();
+		for (Future<long[]> futuro : latencias) {
+			porCliente.add(futuro.get());
+		}
+		hilos.shutdown();
+		long[] todas = porCliente.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+		return new Resultado(todas.length / (double) DURACION.toSeconds(), percentil(todas, 0.50), percentil(todas, 0.99),
+			errores.get());
+	}
+
+	private static double percentil(long[] ordenadas, double percentil) {
+		if (ordenadas.length == 0) {
+			return 0;
+		}
+		return ordenadas[(int) Math.min(ordenadas.length - 1, Math.ceil(percentil * ordenadas.length) - 1)] / 1_000_000.0;
+	}
+
+	private record Resultado(double peticionesPorSegundo, double p50Ms, double p99Ms, int errores) {
+
+		@Override
+		public String toString() {
+			return String.format("%.0f peticiones/s, p50 %.1f ms, p99 %.1f ms, %d errores", peticionesPorSegundo, p50Ms, p99Ms,
+				errores);
+		}
+	}
+}
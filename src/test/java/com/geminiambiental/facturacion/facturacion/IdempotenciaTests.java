@@ -0,0 +1,188 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.geminiambiental.facturacion.repository.ClaveIdempotenciaRepository;
+import com.geminiambiental.facturacion.service.EmisionIdempotente;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotenciaTests {
+
+	@Autowired
+	private EmisionIdempotente emisionIdempotente;
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private ClaveIdempotenciaRepository claveRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+	}
+
+	@Test
+	void elReintentoDevuelveLaFacturaOriginalSinConsultas() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-IDEM", 2, "COMPLETADO");
+		EmisionIdempotente.Resultado primera = emisionIdempotente.emitir("clave-1", servicios, "Primera");
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		EmisionIdempotente.Resultado repetida = emisionIdempotente.emitir("clave-1", List.of(servicios.get(1), servicios.get(0)), "Primera");
+
+		assertThat(estadisticas.getPrepareStatementCount()).isZero();
+		assertThat(primera.repetida()).isFalse();
+		assertThat(repetida.repetida()).isTrue();
+		assertThat(repetida.factura()).isEqualTo(primera.factura());
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isEqualTo(1);
+	}
+
+	@Test
+	void otroNodoLeeLaClaveDeLaTabla() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-NODO", 1, "COMPLETADO");
+		EmisionIdempotente.Resultado primera = emisionIdempotente.emitir("clave-nodo", servicios, null);
+		EmisionIdempotente otroNodo = new EmisionIdempotente(facturacionService, claveRepository, transactionTemplate,
+			objectMapper, 100, 24);
+
+		EmisionIdempotente.Resultado repetida = otroNodo.emitir("clave-nodo", servicios, null);
+
+		assertThat(repetida.repetida()).isTrue();
+		assertThat(repetida.factura().getIdFactura()).isEqualTo(primera.factura().getIdFactura());
+		assertThat(repetida.factura().getMontoTotal()).isEqualByComparingTo(primera.factura().getMontoTotal());
+		assertThat(repetida.factura().getDetalles()).hasSameSizeAs(primera.factura().getDetalles());
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isEqualTo(1);
+	}
+
+	@Test
+	void otroNodoQueCompiteConLaMismaClaveRepiteLaFacturaGanadora() throws Exception {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-CARRERA", 1, "COMPLETADO");
+		EmisionIdempotente otroNodo = new EmisionIdempotente(facturacionService, claveRepository, transactionTemplate,
+			objectMapper, 100, 24);
+		ExecutorService ejecutor = Executors.newSingleThreadExecutor();
+
+		// La primera emisión sigue sin confirmar mientras el otro nodo busca la clave, no la encuentra y espera
+		// los servicios; al confirmarse, el otro nodo los encuentra facturados
+		try {
+			AtomicReference<Future<EmisionIdempotente.Resultado>> segunda = new AtomicReference<>();
+			EmisionIdempotente.Resultado primera = transactionTemplate.execute(status -> {
+				EmisionIdempotente.Resultado emitida = emisionIdempotente.emitir("clave-carrera", servicios, null);
+				segunda.set(ejecutor.submit(() -> otroNodo.emitir("clave-carrera", servicios, null)));
+				try {
+					Thread.sleep(200);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return emitida;
+			});
+
+			EmisionIdempotente.Resultado repetida = segunda.get().get(10, TimeUnit.SECONDS);
+			assertThat(repetida.repetida()).isTrue();
+			assertThat(repetida.factura().getIdFactura()).isEqualTo(primera.factura().getIdFactura());
+		} finally {
+			ejecutor.shutdown();
+		}
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isEqualTo(1);
+	}
+
+	@Test
+	void laMismaClaveConOtroCuerpoEsUnConflicto() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-CONF", 2, "COMPLETADO");
+		emisionIdempotente.emitir("clave-conflicto", servicios.subList(0, 1), null);
+
+		assertThatThrownBy(() -> emisionIdempotente.emitir("clave-conflicto", servicios.subList(1, 2), null))
+			.isInstanceOf(IllegalStateException.class);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isEqualTo(1);
+	}
+
+	@Test
+	void lasPeticionesSimultaneasEmitenUnaSolaFactura() throws Exception {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-SIM", 3, "COMPLETADO");
+		int hilos = 8;
+		CountDownLatch salida = new CountDownLatch(1);
+		ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+		List<Future<EmisionIdempotente.Resultado>> resultados = new ArrayList<>();
+		for (int i = 0; i < hilos; i++) {
+			Callable<EmisionIdempotente.Resultado> tarea = () -> {
+				salida.await();
+				return emisionIdempotente.emitir("clave-simultanea", servicios, null);
+			};
+			resultados.add(ejecutor.submit(tarea));
+		}
+		salida.countDown();
+
+		List<String> ids = new ArrayList<>();
+		for (Future<EmisionIdempotente.Resultado> resultado : resultados) {
+			ids.add(resultado.get().factura().getIdFactura());
+		}
+		ejecutor.shutdown();
+
+		assertThat(ids).hasSize(hilos).containsOnly(ids.get(0));
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Factura", Long.class)).isEqualTo(1);
+	}
+
+	@Test
+	void elEndpointIndicaSiLaRespuestaEsRepetida() throws Exception {
+		String servicio = DatosPrueba.crearServicios(jdbc, "SERV-HTTP", 1, "COMPLETADO").get(0);
+		String cuerpo = "{\"idsServicios\":[\"" + servicio + "\"]}";
+
+		mockMvc.perform(post("/api/facturacion/emitir").header("Idempotency-Key", "clave-http")
+				.contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+			.andExpect(status().isCreated())
+			.andExpect(header().string("Idempotent-Replayed", "false"));
+		mockMvc.perform(post("/api/facturacion/emitir").header("Idempotency-Key", "clave-http")
+				.contentType(MediaType.APPLICATION_JSON).content(cuerpo))
+			.andExpect(status().isCreated())
+			.andExpect(header().string("Idempotent-Replayed", "true"));
+		mockMvc.perform(post("/api/facturacion/emitir").header("Idempotency-Key", "clave-http")
+				.contentType(MediaType.APPLICATION_JSON).content("{\"idsServicios\":[\"" + servicio + "\"],\"observaciones\":\"x\"}"))
+			.andExpect(status().isConflict());
+	}
+}
@@ -0,0 +1,141 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.dto.FiltrosFacturaDTO;
+import com.geminiambiental.facturacion.dto.PaginaCursorDTO;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.repository.FacturaRepository;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import com.geminiambiental.facturacion.service.IndiceTrigramasClientes;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+	"facturacion.busqueda.indice-clientes.habilitado=true",
+	"facturacion.busqueda.indice-clientes.max-coincidencias=50",
+	// Compara el resultado completo con el LIKE en una sola página
+	"facturacion.paginacion.tamano-maximo=5000"
+})
+@ActiveProfiles("test")
+@Slf4j
+class IndiceClientesTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private IndiceTrigramasClientes indiceClientes;
+
+	@Autowired
+	private FacturaRepository facturaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+	}
+
+	@Test
+	void devuelveLasMismasFacturasQueElLike() {
+		DatosPrueba.crearFacturas(jdbc, "F", 3000, 400);
+		indiceClientes.cargar();
+
+		// Fragmentos cortos, largos, sin coincidencias y tan amplios que se resuelven con LIKE
+		for (String fragmento : List.of("1", "07", "123", "1001", "39511", "99999999", "abc", "0")) {
+			List<String> esperado = jdbc.queryForList("SELECT ID_factura FROM Factura WHERE DNI_cliente LIKE ? "
+				+ "AND estado = 'Pendiente' ORDER BY ID_factura", String.class, "%" + fragmento + "%");
+
+			FiltrosFacturaDTO filtros = filtros(fragmento, 5000);
+			assertThat(facturacionService.buscarFacturas(filtros).getContent())
+				.extracting(FacturaDTO::getIdFactura).as(fragmento).containsExactlyElementsOf(esperado);
+
+			PaginaCursorDTO<FacturaDTO> pagina = facturacionService.buscarFacturasPorCursor(filtros);
+			assertThat(pagina.getContent()).extracting(FacturaDTO::getIdFactura).as(fragmento).containsExactlyElementsOf(esperado);
+		}
+		assertThat(indiceClientes.buscar("0")).as("demasiados clientes: se usa LIKE").isEmpty();
+		assertThat(indiceClientes.buscar("abc")).hasValue(Set.of());
+	}
+
+	@Test
+	void agregaLosClientesDeLasFacturasEmitidas() {
+		DatosPrueba.crearProductos(jdbc);
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-IDX", 1, "COMPLETADO");
+		indiceClientes.cargar();
+		assertThat(indiceClientes.buscar("2345678")).hasValue(Set.of());
+
+		facturacionService.emitirFactura(servicios, null);
+
+		assertThat(indiceClientes.buscar("2345678")).hasValue(Set.of("12345678"));
+	}
+
+	@Test
+	void encuentraLasFacturasDeClientesQueElIndiceNoConoce() {
+		indiceClientes.cargar();
+		// Emitida por otro nodo después de la carga: el índice no tiene al cliente
+		DatosPrueba.crearFacturas(jdbc, "OTRO", 4, 1);
+		assertThat(indiceClientes.buscar("10000")).hasValue(Set.of());
+
+		FiltrosFacturaDTO filtros = filtros("10000", 20);
+		assertThat(facturacionService.buscarFacturas(filtros).getContent())
+			.extracting(FacturaDTO::getIdFactura).containsExactly("OTRO-0000000");
+
+		filtros.setIncluirTotal(true);
+		PaginaCursorDTO<FacturaDTO> pagina = facturacionService.buscarFacturasPorCursor(filtros);
+		assertThat(pagina.getContent()).extracting(FacturaDTO::getIdFactura).containsExactly("OTRO-0000000");
+		assertThat(pagina.getTotalElements()).isEqualTo(1);
+	}
+
+	@Test
+	@Tag("benchmark")
+	void comparaIndiceContraLikeConUnMillonDeFacturas() {
+		DatosPrueba.crearFacturas(jdbc, "F", 1_000_000, 50_000);
+		indiceClientes.cargar();
+		PageRequest pagina = PageRequest.of(0, 20, Sort.by(Sort.Direction.ASC, "idFactura"));
+
+		for (String fragmento : List.of("4711", "395110", "12")) {
+			FiltrosFacturaDTO filtros = filtros(fragmento, 20);
+			filtros.setEstado(null);
+			log.info("Cliente '{}': LIKE {} µs, índice {} µs", fragmento,
+				medir(() -> facturaRepository.findWithFilters(fragmento, null, null, null, pagina)),
+				medir(() -> facturacionService.buscarFacturas(filtros)));
+		}
+	}
+
+	private static long medir(Supplier<?> consulta) {
+		for (int i = 0; i < 3; i++) {
+			consulta.get();
+		}
+		int repeticiones = 10;
+		long inicio = System.nanoTime();
+		for (int i = 0; i < repeticiones; i++) {
+			consulta.get();
+		}
+		return (System.nanoTime() - inicio) / repeticiones / 1_000;
+	}
+
+	private static FiltrosFacturaDTO filtros(String cliente, int size) {
+		FiltrosFacturaDTO filtros = new FiltrosFacturaDTO();
+		filtros.setCliente(cliente);
+		filtros.setEstado(Factura.EstadoFactura.Pendiente.name());
+		filtros.setSortBy("idFactura");
+		filtros.setSortDir("ASC");
+		filtros.setSize(size);
+		return filtros;
+	}
+}
@@ -0,0 +1,109 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.EmitirFacturaRequest;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.dto.FiltrosFacturaDTO;
+import com.geminiambiental.facturacion.dto.PaginaCursorDTO;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ListadoFacturasTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics estadisticas;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-LIST", 60, "COMPLETADO");
+		List<EmitirFacturaRequest> solicitudes = new ArrayList<>();
+		for (int i = 0; i < servicios.size(); i += 2) {
+			EmitirFacturaRequest solicitud = new EmitirFacturaRequest();
+			solicitud.setIdsServicios(servicios.subList(i, i + 2));
+			solicitudes.add(solicitud);
+		}
+		facturacionService.emitirFacturasLote(solicitudes);
+		estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+	}
+
+	@Test
+	void paginaPorOffsetConPresupuestoFijoDeConsultas() {
+		FiltrosFacturaDTO filtros = filtros(10);
+
+		Page<FacturaDTO> pagina = facturacionService.buscarFacturas(filtros);
+
+		// Encabezados, COUNT y un solo IN con los detalles de las 10 facturas
+		assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(3);
+		assertThat(estadisticas.getEntityLoadCount()).isZero();
+		assertThat(pagina.getTotalElements()).isEqualTo(30);
+		assertThat(pagina.getContent()).hasSize(10).allSatisfy(factura -> {
+			assertThat(factura.getDetalles()).hasSize(2);
+			assertThat(factura.getDetalles()).allSatisfy(detalle ->
+				assertThat(detalle.getSubtotal()).isEqualByComparingTo(DatosPrueba.PRECIO_SERVICIO));
+		});
+
+		estadisticas.clear();
+		filtros.setIncluirDetalles(false);
+		assertThat(facturacionService.buscarFacturas(filtros).getContent()).allSatisfy(factura ->
+			assertThat(factura.getDetalles()).isNull());
+		assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+
+		// Última página incompleta: el total se deduce sin COUNT
+		estadisticas.clear();
+		FiltrosFacturaDTO ultima = filtros(25);
+		ultima.setPage(1);
+		assertThat(facturacionService.buscarFacturas(ultima).getContent()).hasSize(5);
+		assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void paginaPorCursorConPresupuestoFijoDeConsultas() {
+		FiltrosFacturaDTO filtros = filtros(10);
+
+		PaginaCursorDTO<FacturaDTO> pagina = facturacionService.buscarFacturasPorCursor(filtros);
+
+		assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(estadisticas.getCollectionLoadCount()).isZero();
+		assertThat(pagina.getContent()).hasSize(10).allSatisfy(factura -> assertThat(factura.getDetalles()).hasSize(2));
+
+		estadisticas.clear();
+		filtros.setIncluirDetalles(false);
+		filtros.setCursor(pagina.getSiguienteCursor());
+		assertThat(facturacionService.buscarFacturasPorCursor(filtros).getContent()).hasSize(10);
+		assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	private static FiltrosFacturaDTO filtros(int size) {
+		FiltrosFacturaDTO filtros = new FiltrosFacturaDTO();
+		filtros.setSortBy("idFactura");
+		filtros.setSortDir("ASC");
+		filtros.setSize(size);
+		return filtros;
+	}
+}
@@ -0,0 +1,111 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import com.geminiambiental.facturacion.config.AppenderAsincrono;
+import com.geminiambiental.facturacion.config.MuestreoLogs;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class LogsAsincronosTests {
+
+	@Autowired
+	private MeterRegistry registro;
+
+	@Test
+	void laConsolaYElArchivoSeEscribenDesdeSusColas() {
+		Logger raiz = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+		// Ningún destino queda colgado directamente de la raíz, donde lo escribiría el hilo de la petición
+		assertThat(raiz.getAppender("CONSOLE")).isNull();
+		assertThat(raiz.getAppender("FILE")).isNull();
+		assertThat(((AppenderAsincrono) raiz.getAppender("CONSOLA_ASINCRONA")).getAppender("CONSOLE")).isNotNull();
+		assertThat(((AppenderAsincrono) raiz.getAppender("ARCHIVO_ASINCRONO")).getAppender("FILE")).isNotNull();
+
+		for (String destino : List.of("consola", "archivo")) {
+			assertThat(registro.find("facturacion.logs.descartados").tag("destino", destino).functionCounter())
+				.as(destino).isNotNull();
+			assertThat(registro.find("facturacion.logs.pendientes").tag("destino", destino).gauge())
+				.as(destino).isNotNull();
+		}
+	}
+
+	@Test
+	void conLaColaLlenaDescartaYCuentaSinBloquear() throws Exception {
+		LoggerContext contexto = new LoggerContext();
+		contexto.setMDCAdapter(new LogbackMDCAdapter());
+		CountDownLatch liberar = new CountDownLatch(1);
+		List<ILoggingEvent> escritos = new CopyOnWriteArrayList<>();
+		// Un destino que no avanza hasta que la prueba lo libera, como un disco trabado
+		AppenderBase<ILoggingEvent> lento = new AppenderBase<>() {
+			@Override
+			protected void append(ILoggingEvent evento) {
+				try {
+					liberar.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				escritos.add(evento);
+			}
+		};
+		lento.setContext(contexto);
+		lento.start();
+		AppenderAsincrono asincrono = new AppenderAsincrono();
+		asincrono.setContext(contexto);
+		asincrono.setName("PRUEBA");
+		asincrono.setCapacidad(4);
+		asincrono.addAppender(lento);
+		asincrono.start();
+		Logger logger = contexto.getLogger("prueba");
+		logger.addAppender(asincrono);
+
+		long inicio = System.nanoTime();
+		for (int i = 0; i < 20; i++) {
+			logger.info("evento {}", i);
+		}
+		assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(1000);
+		// El escritor retiene a lo sumo una tanda trabada y caben 4 en la cola: el resto se descarta
+		long descartados = asincrono.getDescartados();
+		assertThat(descartados).isBetween(12L, 16L);
+
+		liberar.countDown();
+		asincrono.stop();
+		assertThat(escritos).hasSize(20 - (int) descartados + 1);
+		assertThat(escritos.get(0).getFormattedMessage()).isEqualTo("evento 0");
+		assertThat(escritos).filteredOn(evento -> evento.getLevel() == Level.WARN)
+			.singleElement()
+			.extracting(ILoggingEvent::getFormattedMessage)
+			.isEqualTo("Se descartaron " + descartados + " eventos de log con la cola llena");
+	}
+
+	@Test
+	void muestreaUnaDeCadaNPeticionesPorEndpoint() {
+		MockEnvironment entorno = new MockEnvironment()
+			.withProperty("facturacion.logs.muestreo.emitir", "3")
+			.withProperty("facturacion.logs.muestreo.exportar", "0");
+		MuestreoLogs muestreo = new MuestreoLogs(entorno, 1);
+
+		assertThat(IntStream.range(0, 7).mapToObj(i -> muestreo.registrar("emitir")))
+			.containsExactly(true, false, false, true, false, false, true);
+		assertThat(IntStream.range(0, 3).mapToObj(i -> muestreo.registrar("exportar"))).containsOnly(false);
+		assertThat(IntStream.range(0, 3).mapToObj(i -> muestreo.registrar("anular-lote"))).containsOnly(true);
+	}
+}
@@ -0,0 +1,130 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.EmitirFacturaRequest;
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricasFacturacionTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+	}
+
+	@Test
+	void cuentaTransicionesYMideLasFasesDeLaEmision() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-MET", 4, "COMPLETADO");
+		double emitidas = facturas("emitida");
+		double montoEmitido = monto("emitida");
+		double numeracionLote = meterRegistry.get("facturacion.emision.fase").tag("fase", "numeracion").tag("modo", "lote").timer().count();
+		long detalles = meterRegistry.get("facturacion.factura.detalles").summary().count();
+
+		FacturaDTO individual = facturacionService.emitirFactura(servicios.subList(0, 2), null);
+		facturacionService.emitirFacturasLote(List.of(solicitud(servicios.get(2)), solicitud(servicios.get(3))));
+		List<String> lote = jdbc.queryForList("SELECT ID_factura FROM Factura WHERE ID_factura <> ? ORDER BY ID_factura",
+			String.class, individual.getIdFactura());
+		facturacionService.marcarComoPagada(individual.getIdFactura());
+		facturacionService.anularFactura(lote.get(0), "Prueba");
+		jdbc.update("UPDATE Factura SET fecha_vencimiento = ? WHERE ID_factura = ?", LocalDate.now().minusDays(1), lote.get(1));
+		facturacionService.procesarFacturasVencidas();
+
+		assertThat(facturas("emitida") - emitidas).isEqualTo(3);
+		assertThat(monto("emitida") - montoEmitido).isEqualTo(4 * DatosPrueba.PRECIO_SERVICIO.doubleValue());
+		assertThat(facturas("pagada")).isPositive();
+		assertThat(monto("pagada")).isPositive();
+		assertThat(facturas("anulada")).isPositive();
+		assertThat(facturas("vencida")).isPositive();
+		assertThat(monto("vencida")).isPositive();
+
+		for (String fase : List.of("validacion", "numeracion", "precios", "persistencia")) {
+			assertThat(meterRegistry.get("facturacion.emision.fase").tag("fase", fase).tag("modo", "individual").timer().count())
+				.as(fase).isPositive();
+		}
+		assertThat(meterRegistry.get("facturacion.emision.fase").tag("fase", "numeracion").tag("modo", "lote").timer().count()
+			- numeracionLote).isEqualTo(2);
+		assertThat(meterRegistry.get("facturacion.factura.detalles").summary().count() - detalles).isEqualTo(3);
+	}
+
+	@Test
+	void unaEmisionRevertidaNoCuenta() {
+		List<String> servicios = DatosPrueba.crearServicios(jdbc, "SERV-RB", 1, "COMPLETADO");
+		double emitidas = facturas("emitida");
+
+		transactionTemplate.executeWithoutResult(status -> {
+			facturacionService.emitirFactura(servicios, null);
+			status.setRollbackOnly();
+		});
+
+		assertThat(facturas("emitida")).isEqualTo(emitidas);
+	}
+
+	@Test
+	void publicaHibernateHikariYFacturacionEnPrometheus() throws Exception {
+		facturacionService.emitirFactura(DatosPrueba.crearServicios(jdbc, "SERV-PROM", 1, "COMPLETADO"), null);
+
+		assertThat(meterRegistry.find("hibernate.statements").functionCounter()).isNotNull();
+		assertThat(meterRegistry.find("hikaricp.connections.active").gauge()).isNotNull();
+		mockMvc.perform(get("/actuator/prometheus"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(allOf(
+				containsString("facturacion_facturas_total{application=\"facturacion\",evento=\"emitida\"}"),
+				containsString("facturacion_emision_fase_seconds_bucket{"),
+				containsString("hibernate_statements_total{"),
+				containsString("hikaricp_connections_active{"))));
+	}
+
+	private double facturas(String evento) {
+		return meterRegistry.get("facturacion.facturas").tag("evento", evento).counter().count();
+	}
+
+	private double monto(String evento) {
+		return meterRegistry.get("facturacion.facturas.monto").tag("evento", evento).counter().count();
+	}
+
+	private static EmitirFacturaRequest solicitud(String idServicio) {
+		EmitirFacturaRequest solicitud = new EmitirFacturaRequest();
+		solicitud.setIdsServicios(List.of(idServicio));
+		return solicitud;
+	}
+}
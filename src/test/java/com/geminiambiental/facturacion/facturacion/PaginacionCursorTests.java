@@ -0,0 +1,148 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.dto.FiltrosFacturaDTO;
+import com.geminiambiental.facturacion.dto.PaginaCursorDTO;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Slf4j
+class PaginacionCursorTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+	}
+
+	@Test
+	void recorreLasMismasFacturasQueLaPaginacionPorOffset() {
+		DatosPrueba.crearFacturas(jdbc, "F", 53);
+
+		for (String sortBy : List.of("fechaEmision", "montoTotal", "idFactura")) {
+			for (String sortDir : List.of("ASC", "DESC")) {
+				FiltrosFacturaDTO offset = filtros(sortBy, sortDir, 100);
+				List<String> esperado = facturacionService.buscarFacturas(offset).getContent().stream()
+					.map(FacturaDTO::getIdFactura).toList();
+
+				List<String> recorrido = new ArrayList<>();
+				FiltrosFacturaDTO cursor = filtros(sortBy, sortDir, 7);
+				int paginas = 0;
+				do {
+					PaginaCursorDTO<FacturaDTO> pagina = facturacionService.buscarFacturasPorCursor(cursor);
+					pagina.getContent().forEach(f -> recorrido.add(f.getIdFactura()));
+					cursor.setCursor(pagina.getSiguienteCursor());
+					paginas++;
+				} while (cursor.getCursor() != null);
+
+				assertThat(paginas).isEqualTo(8);
+				// Offset no desempata filas con la misma clave; se comparan los conjuntos y el orden por clave
+				assertThat(recorrido).hasSize(53).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(esperado);
+			}
+		}
+	}
+
+	@Test
+	void aplicaFiltrosYCalculaElTotalSoloSiSePide() {
+		DatosPrueba.crearFacturas(jdbc, "F", 40);
+		FiltrosFacturaDTO filtros = filtros("fechaEmision", "DESC", 3);
+		filtros.setEstado("Pendiente");
+		filtros.setCliente("1234");
+
+		PaginaCursorDTO<FacturaDTO> sinTotal = facturacionService.buscarFacturasPorCursor(filtros);
+		assertThat(sinTotal.getTotalElements()).isNull();
+
+		filtros.setIncluirTotal(true);
+		PaginaCursorDTO<FacturaDTO> conTotal = facturacionService.buscarFacturasPorCursor(filtros);
+		assertThat(conTotal.getTotalElements()).isEqualTo(
+			jdbc.queryForObject("SELECT COUNT(*) FROM Factura WHERE estado = 'Pendiente' AND DNI_cliente LIKE '%1234%'", Long.class));
+		assertThat(conTotal.getContent()).hasSize(3)
+			.allMatch(f -> f.getEstado().equals("Pendiente") && f.getDniCliente().contains("1234"));
+	}
+
+	@Test
+	void rechazaCursoresInvalidosOParaOtroOrden() {
+		DatosPrueba.crearFacturas(jdbc, "F", 10);
+		FiltrosFacturaDTO filtros = filtros("fechaEmision", "DESC", 3);
+		String cursor = facturacionService.buscarFacturasPorCursor(filtros).getSiguienteCursor();
+
+		FiltrosFacturaDTO otroOrden = filtros("montoTotal", "DESC", 3);
+		otroOrden.setCursor(cursor);
+		assertThatThrownBy(() -> facturacionService.buscarFacturasPorCursor(otroOrden))
+			.isInstanceOf(IllegalArgumentException.class);
+
+		filtros.setCursor("no-es-un-cursor");
+		assertThatThrownBy(() -> facturacionService.buscarFacturasPorCursor(filtros))
+			.isInstanceOf(IllegalArgumentException.class);
+
+		FiltrosFacturaDTO ordenNoSoportado = filtros("observaciones", "DESC", 3);
+		assertThatThrownBy(() -> facturacionService.buscarFacturasPorCursor(ordenNoSoportado))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	@Tag("benchmark")
+	void comparaPaginaUnoContraPaginaDiezMil() {
+		int tamano = 10;
+		DatosPrueba.crearFacturas(jdbc, "F", 100_010);
+
+		FiltrosFacturaDTO primera = filtros("fechaEmision", "DESC", tamano);
+		FiltrosFacturaDTO profunda = filtros("fechaEmision", "DESC", tamano);
+		profunda.setPage(9_999);
+		Map<String, Object> limite = jdbc.queryForMap("SELECT fecha_emision, ID_factura FROM Factura "
+			+ "ORDER BY fecha_emision DESC, ID_factura DESC LIMIT 1 OFFSET " + (9_999 * tamano - 1));
+		FiltrosFacturaDTO cursorProfundo = filtros("fechaEmision", "DESC", tamano);
+		cursorProfundo.setCursor(Base64.getUrlEncoder().withoutPadding().encodeToString(
+			("fechaEmision|DESC|" + limite.get("FECHA_EMISION") + "|" + limite.get("ID_FACTURA")).getBytes()));
+
+		log.info("Offset página 1: {} µs, página 10000: {} µs",
+			medir(() -> facturacionService.buscarFacturas(primera)),
+			medir(() -> facturacionService.buscarFacturas(profunda)));
+		log.info("Cursor página 1: {} µs, página 10000: {} µs",
+			medir(() -> facturacionService.buscarFacturasPorCursor(primera)),
+			medir(() -> facturacionService.buscarFacturasPorCursor(cursorProfundo)));
+	}
+
+	private static long medir(Supplier<?> consulta) {
+		for (int i = 0; i < 20; i++) {
+			consulta.get();
+		}
+		int repeticiones = 50;
+		long inicio = System.nanoTime();
+		for (int i = 0; i < repeticiones; i++) {
+			consulta.get();
+		}
+		return (System.nanoTime() - inicio) / repeticiones / 1_000;
+	}
+
+	private static FiltrosFacturaDTO filtros(String sortBy, String sortDir, int size) {
+		FiltrosFacturaDTO filtros = new FiltrosFacturaDTO();
+		filtros.setSortBy(sortBy);
+		filtros.setSortDir(sortDir);
+		filtros.setSize(size);
+		return filtros;
+	}
+}
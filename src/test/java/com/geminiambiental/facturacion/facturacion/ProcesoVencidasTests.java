@@ -0,0 +1,69 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.ResultadoProcesoVencidasDTO;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.repository.FacturaRepository;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "facturacion.vencidas.tamano-chunk=100")
+@ActiveProfiles("test")
+class ProcesoVencidasTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private FacturaRepository facturaRepository;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearFacturas(jdbc, "F", 2003);
+		// Una parte de las pendientes todavía no vence
+		jdbc.update("UPDATE Factura SET fecha_vencimiento = ? WHERE estado = 'Pendiente' AND MOD(CAST(SUBSTRING(ID_factura, 3) AS INT), 3) = 0",
+			LocalDate.now().plusDays(10));
+	}
+
+	@Test
+	void marcaLasVencidasPorChunks() {
+		int vencidas = facturaRepository.findFacturasVencidas().size();
+		long pendientes = facturaRepository.countByEstado(Factura.EstadoFactura.Pendiente);
+		long pagadas = facturaRepository.countByEstado(Factura.EstadoFactura.Pagada);
+
+		ResultadoProcesoVencidasDTO resultado = facturacionService.procesarFacturasVencidas();
+
+		assertThat(resultado.getFacturasProcesadas()).isEqualTo(vencidas);
+		assertThat(resultado.getChunks()).hasSize((vencidas + 99) / 100);
+		assertThat(resultado.getChunks()).allSatisfy(chunk -> assertThat(chunk.getFacturas()).isBetween(1, 100));
+		assertThat(facturaRepository.findFacturasVencidas()).isEmpty();
+		assertThat(facturaRepository.countByEstado(Factura.EstadoFactura.Pendiente)).isEqualTo(pendientes - vencidas);
+		assertThat(facturaRepository.countByEstado(Factura.EstadoFactura.Pagada)).isEqualTo(pagadas);
+	}
+
+	@Test
+	void continuaDondeQuedoUnaEjecucionInterrumpida() {
+		int vencidas = facturaRepository.findFacturasVencidas().size();
+		// Simula una ejecución que alcanzó a confirmar algunos chunks antes de caerse
+		int yaMarcadas = jdbc.update("UPDATE Factura SET estado = 'Vencida' WHERE estado = 'Pendiente' "
+			+ "AND fecha_vencimiento < CURRENT_DATE AND ID_factura < 'F-0000800'");
+
+		ResultadoProcesoVencidasDTO resultado = facturacionService.procesarFacturasVencidas();
+
+		assertThat(yaMarcadas).isPositive();
+		assertThat(resultado.getFacturasProcesadas()).isEqualTo(vencidas - yaMarcadas);
+		assertThat(facturacionService.procesarFacturasVencidas().getFacturasProcesadas()).isZero();
+	}
+}
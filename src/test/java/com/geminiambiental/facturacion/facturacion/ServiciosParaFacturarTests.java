@@ -0,0 +1,72 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.ServicioParaFacturarDTO;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ServiciosParaFacturarTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics estadisticas;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+		estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void cargaServiciosYProductosEnUnaSolaConsulta() {
+		List<String> ids = DatosPrueba.crearServicios(jdbc, "SRV", 200, "COMPLETADO");
+		DatosPrueba.crearServicios(jdbc, "PRG", 10, "PROGRAMADO");
+		jdbc.update("INSERT INTO Servicio (ID_servicio, fecha, hora, estado) VALUES ('SIN-PRODUCTOS', CURRENT_DATE, CURRENT_TIME, 'COMPLETADO')");
+		facturacionService.emitirFactura(List.of(ids.get(0)), null);
+
+		estadisticas.clear();
+		List<ServicioParaFacturarDTO> servicios = facturacionService.obtenerServiciosParaFacturar();
+
+		assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(estadisticas.getEntityLoadCount()).isZero();
+		assertThat(servicios).hasSize(200);
+		assertThat(servicios).extracting(ServicioParaFacturarDTO::getIdServicio)
+			.doesNotContain(ids.get(0))
+			.contains("SIN-PRODUCTOS", ids.get(1));
+
+		ServicioParaFacturarDTO servicio = servicios.stream()
+			.filter(s -> s.getIdServicio().equals(ids.get(1)))
+			.findFirst().orElseThrow();
+		assertThat(servicio.getProductosUtilizados()).hasSize(2);
+		assertThat(servicio.getProductosUtilizados()).extracting(ServicioParaFacturarDTO.ProductoUtilizadoDTO::getNombreProducto)
+			.containsExactlyInAnyOrder("Insecticida Premium", "Equipo Fumigador");
+		assertThat(servicio.getMontoTotal()).isEqualByComparingTo(DatosPrueba.PRECIO_SERVICIO);
+
+		ServicioParaFacturarDTO sinProductos = servicios.stream()
+			.filter(s -> s.getIdServicio().equals("SIN-PRODUCTOS"))
+			.findFirst().orElseThrow();
+		assertThat(sinProductos.getProductosUtilizados()).isEmpty();
+		assertThat(sinProductos.getMontoTotal()).isZero();
+	}
+}
@@ -0,0 +1,204 @@
+package com.geminiambiental.facturacion.facturacion;
+
+import com.geminiambiental.facturacion.dto.FacturaDTO;
+import com.geminiambiental.facturacion.dto.ResultadoTransicionDTO;
+import com.geminiambiental.facturacion.entity.Factura;
+import com.geminiambiental.facturacion.service.FacturacionService;
+import com.geminiambiental.facturacion.service.TransicionesFacturaLote;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Chunks de 2 facturas para que cada prueba cruce varias transacciones
+@SpringBootTest(properties = "facturacion.transiciones-lote.tamano-chunk=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Slf4j
+class TransicionesLoteTests {
+
+	@Autowired
+	private FacturacionService facturacionService;
+
+	@Autowired
+	private TransicionesFacturaLote transicionesLote;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void preparar() {
+		DatosPrueba.limpiar(jdbc);
+		DatosPrueba.crearProductos(jdbc);
+	}
+
+	@Test
+	void pagaLasValidasYReportaElResultadoDeCadaId() {
+		List<String> facturas = emitir("SERV-PAG", 3);
+		facturacionService.anularFactura(facturas.get(2), "Prueba");
+		LocalDateTime ayer = LocalDateTime.now().minusDays(1).withNano(0);
+
+		List<ResultadoTransicionDTO> resultados = transicionesLote.marcarComoPagadas(
+			Arrays.asList(facturas.get(0), facturas.get(1), "F-NO-EXISTE", facturas.get(0), facturas.get(2), " "),
+			Map.of(facturas.get(1), ayer));
+
+		assertThat(resultados)
+			.extracting(ResultadoTransicionDTO::getIndice, ResultadoTransicionDTO::getIdFactura, ResultadoTransicionDTO::isExitosa,
+				ResultadoTransicionDTO::getEstadoAnterior, ResultadoTransicionDTO::getError)
+			.containsExactly(
+				tuple(0, facturas.get(0), true, Factura.EstadoFactura.Pendiente, null),
+				tuple(1, facturas.get(1), true, Factura.EstadoFactura.Pendiente, null),
+				tuple(2, "F-NO-EXISTE", false, null, "Factura no encontrada"),
+				tuple(3, facturas.get(0), false, null, "Factura repetida en la solicitud"),
+				tuple(4, facturas.get(2), false, Factura.EstadoFactura.Anulada, "Solo se pueden marcar como pagadas las facturas pendientes"),
+				tuple(5, " ", false, null, "ID de factura no puede estar vacío"));
+		assertThat(jdbc.queryForList("SELECT estado FROM Factura ORDER BY ID_factura", String.class))
+			.containsExactly("Pagada", "Pagada", "Anulada");
+		assertThat(jdbc.queryForObject("SELECT fecha_pago FROM Factura WHERE ID_factura = ?", LocalDateTime.class, facturas.get(1)))
+			.isEqualTo(ayer);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM evento_factura WHERE tipo = 'PAGADA'", Long.class)).isEqualTo(2);
+	}
+
+	@Test
+	void anulaConMotivoPropioOComunYLiberaLosServicios() throws Exception {
+		List<String> facturas = emitir("SERV-ANU", 3);
+		facturacionService.marcarComoPagada(facturas.get(0));
+
+		mockMvc.perform(put("/api/facturacion/anular-lote")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"idsFacturas\":[\"" + String.join("\",\"", facturas) + "\",\"\"],\"motivo\":\"Cierre de mes\","
+					+ "\"motivos\":{\"" + facturas.get(2) + "\":\"Duplicada\"}}"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[*].exitosa").value(contains(false, true, true, false)))
+			.andExpect(jsonPath("$[0].error").value("No se pueden anular facturas pagadas"))
+			.andExpect(jsonPath("$[1].estado_nuevo").value("Anulada"))
+			.andExpect(jsonPath("$[3].error").value("ID de factura no puede estar vacío"));
+
+		assertThat(jdbc.queryForList("SELECT observaciones FROM Factura WHERE estado = 'Anulada' ORDER BY ID_factura", String.class))
+			.containsExactly("\nANULADA: Cierre de mes", "\nANULADA: Duplicada");
+		// Solo el servicio de la factura pagada sigue reclamado
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM Servicio WHERE ID_factura IS NOT NULL", Long.class)).isEqualTo(1);
+		assertThat(facturacionService.emitirFactura(List.of("SERV-ANU-000001", "SERV-ANU-000002"), null).getMontoTotal())
+			.isEqualByComparingTo(DatosPrueba.PRECIO_SERVICIO.multiply(java.math.BigDecimal.valueOf(2)));
+	}
+
+	@Test
+	void unaFacturaAnuladaNoSeVuelveAAnularEnNingunCamino() {
+		List<String> facturas = emitir("SERV-REANU", 2);
+		facturacionService.anularFactura(facturas.get(0), "Primera");
+		transicionesLote.anular(List.of(facturas.get(1)), "Primera", null);
+
+		assertThatThrownBy(() -> facturacionService.anularFactura(facturas.get(1), "Segunda"))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("La factura ya está anulada");
+		assertThat(transicionesLote.anular(List.of(facturas.get(0)), "Segunda", null))
+			.extracting(ResultadoTransicionDTO::isExitosa, ResultadoTransicionDTO::getError)
+			.containsExactly(tuple(false, "La factura ya está anulada"));
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM evento_factura WHERE tipo = 'ANULADA'", Long.class)).isEqualTo(2);
+	}
+
+	@Test
+	void laAnulacionIndividualEsperaAlPagoEnCursoYNoLoPisa() throws Exception {
+		String factura = emitir("SERV-CONC", 1).get(0);
+		CountDownLatch bloqueada = new CountDownLatch(1);
+		CountDownLatch confirmar = new CountDownLatch(1);
+		// Un pago en lote a mitad de su chunk: la fila bloqueada y ya Pagada, sin confirmar
+		CompletableFuture<Void> pago = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+			jdbc.queryForList("SELECT estado FROM Factura WHERE ID_factura = ? FOR UPDATE", String.class, factura);
+			jdbc.update("UPDATE Factura SET estado = 'Pagada' WHERE ID_factura = ?", factura);
+			bloqueada.countDown();
+			try {
+				confirmar.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		assertThat(bloqueada.await(5, TimeUnit.SECONDS)).isTrue();
+
+		CompletableFuture<FacturaDTO> anulacion = CompletableFuture.supplyAsync(
+			() -> facturacionService.anularFactura(factura, "Concurrente"));
+		Thread.sleep(200);
+		assertThat(anulacion).isNotDone();
+		confirmar.countDown();
+		pago.get(5, TimeUnit.SECONDS);
+
+		assertThatThrownBy(() -> anulacion.get(5, TimeUnit.SECONDS))
+			.isInstanceOf(ExecutionException.class)
+			.cause()
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessage("No se pueden anular facturas pagadas");
+		assertThat(jdbc.queryForObject("SELECT estado FROM Factura WHERE ID_factura = ?", String.class, factura))
+			.isEqualTo("Pagada");
+	}
+
+	@Test
+	@Tag("benchmark")
+	void elLoteCreceMenosQueLasLlamadasIndividuales() {
+		// Calentamiento de los dos caminos
+		pagarUnaPorUna(pendientes("CAL1", 200));
+		transicionesLote.marcarComoPagadas(pendientes("CAL2", 200), null);
+		for (int cantidad : new int[]{10, 100, 1000, 5000}) {
+			List<String> individuales = pendientes("IND" + cantidad, cantidad);
+			List<String> enLote = pendientes("LOT" + cantidad, cantidad);
+			long inicio = System.nanoTime();
+			pagarUnaPorUna(individuales);
+			long unaPorUna = System.nanoTime() - inicio;
+			inicio = System.nanoTime();
+			transicionesLote.marcarComoPagadas(enLote, null);
+			long lote = System.nanoTime() - inicio;
+			log.info("{} facturas: una por una {} ms, en lote {} ms ({}x)", cantidad, unaPorUna / 1_000_000, lote / 1_000_000,
+				String.format("%.1f", unaPorUna / (double) lote));
+		}
+	}
+
+	private List<String> emitir(String prefijo, int cantidad) {
+		List<String> facturas = new ArrayList<>();
+		for (String servicio : DatosPrueba.crearServicios(jdbc, prefijo, cantidad, "COMPLETADO")) {
+			facturas.add(facturacionService.emitirFactura(List.of(servicio), null).getIdFactura());
+		}
+		facturas.sort(null);
+		return facturas;
+	}
+
+	private List<String> pendientes(String prefijo, int cantidad) {
+		List<String> ids = DatosPrueba.crearFacturas(jdbc, prefijo, cantidad);
+		jdbc.update("UPDATE Factura SET estado = 'Pendiente' WHERE ID_factura LIKE ?", prefijo + "-%");
+		return ids;
+	}
+
+	private void pagarUnaPorUna(List<String> ids) {
+		ids.forEach(facturacionService::marcarComoPagada);
+	}
+}